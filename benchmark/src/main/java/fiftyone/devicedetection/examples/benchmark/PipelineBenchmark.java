@@ -0,0 +1,189 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.benchmark;
+
+import fiftyone.common.testhelpers.LogbackHelper;
+import fiftyone.devicedetection.DeviceDetectionOnPremisePipelineBuilder;
+import fiftyone.devicedetection.DeviceDetectionPipelineBuilder;
+import fiftyone.devicedetection.examples.console.PerformanceBenchmark;
+import fiftyone.devicedetection.examples.console.PerformanceBenchmark.PerformanceConfiguration;
+import fiftyone.devicedetection.examples.shared.EvidenceHelper;
+import fiftyone.devicedetection.shared.DeviceData;
+import fiftyone.pipeline.core.data.FlowData;
+import fiftyone.pipeline.core.flowelements.Pipeline;
+import fiftyone.pipeline.engines.data.AspectPropertyValue;
+import fiftyone.pipeline.util.FileFinder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static fiftyone.devicedetection.examples.shared.DataFileHelper.getDataFileLocation;
+import static fiftyone.devicedetection.examples.shared.DataFileHelper.getEvidenceFile;
+
+/**
+ * JMH benchmark of on-premise detection, covering the same configurations as
+ * {@link PerformanceBenchmark#DEFAULT_PERFORMANCE_CONFIGURATIONS}, loaded both from disk and
+ * from memory.
+ * <p>
+ * Unlike {@link PerformanceBenchmark}, JMH takes care of forking, warm-up and statistics. Throughput
+ * is reported in detections per second and sample time as a latency distribution in microseconds.
+ * <p>
+ * Run from the command line with the usual JMH options, for example:
+ * <pre>
+ *   java -jar benchmark/target/device-detection-java-examples.benchmark-4.4.20-jar-with-dependencies.jar \
+ *     -p configuration=MaxPerformance:false:true:false -t 8 \
+ *     -jvmArgsAppend "-DBenchmarkDataFile=/path/to/Enterprise-HashV41.hash"
+ * </pre>
+ * The data file and evidence file are found using {@link fiftyone.devicedetection.examples.shared.DataFileHelper}
+ * unless the system properties {@value #DATA_FILE_PROPERTY} and {@value #EVIDENCE_FILE_PROPERTY}
+ * are set in the forked JVM.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Threads(PerformanceBenchmark.DEFAULT_NUMBER_OF_THREADS)
+public class PipelineBenchmark {
+    public static final String DATA_FILE_PROPERTY = "BenchmarkDataFile";
+    public static final String EVIDENCE_FILE_PROPERTY = "BenchmarkEvidenceFile";
+    // the number of evidence records to load from the evidence file
+    public static final int EVIDENCE_RECORDS = 20000;
+
+    // (profile:allProperties:performanceGraph:predictiveGraph) as for
+    // PerformanceBenchmark.DEFAULT_PERFORMANCE_CONFIGURATIONS
+    @Param({"MaxPerformance:false:false:true",
+            "MaxPerformance:false:true:false",
+            "MaxPerformance:true:true:false"})
+    public String configuration;
+
+    // configure the pipeline from disk or from a memory buffer
+    @Param({"false", "true"})
+    public boolean configureFromDisk;
+
+    private Pipeline pipeline;
+    private List<Map<String, String>> evidence;
+
+    public static void main(String[] args) throws Exception {
+        LogbackHelper.configureLogback(FileFinder.getFilePath("logback.xml"));
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(PipelineBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    /**
+     * Each benchmark thread walks the evidence from its own position
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        /**
+         * Spread the starting positions of the threads evenly through the evidence, so
+         * that they are not all detecting the same record at the same time
+         * @param thread identifies this thread among the benchmark threads
+         * @param benchmark the benchmark, whose evidence is loaded first
+         */
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams thread, PipelineBenchmark benchmark) {
+            index = (int) ((long) thread.getThreadIndex() * benchmark.evidence.size() /
+                    thread.getThreadCount());
+        }
+
+        Map<String, String> next(List<Map<String, String>> evidence) {
+            Map<String, String> result = evidence.get(index);
+            index = (index + 1) % evidence.size();
+            return result;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) throws Exception {
+        String dataFileLocation = getDataFileLocation(System.getProperty(DATA_FILE_PROPERTY));
+        File evidenceFile = getEvidenceFile(System.getProperty(EVIDENCE_FILE_PROPERTY));
+        evidence = EvidenceHelper.getEvidenceList(evidenceFile, EVIDENCE_RECORDS);
+
+        DeviceDetectionOnPremisePipelineBuilder builder;
+        if (configureFromDisk) {
+            builder = new DeviceDetectionPipelineBuilder()
+                    .useOnPremise(dataFileLocation, false);
+        } else {
+            builder = new DeviceDetectionPipelineBuilder()
+                    .useOnPremise(Files.readAllBytes(new File(dataFileLocation).toPath()));
+        }
+        // use the same settings as PerformanceBenchmark, with concurrency matching
+        // the number of JMH threads
+        PerformanceBenchmark.setPipelinePerformanceProperties(builder,
+                PerformanceConfiguration.parse(configuration),
+                params.getThreads());
+        pipeline = builder.build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Object throughput(Cursor cursor) throws Exception {
+        return detect(cursor.next(evidence));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object sampleTime(Cursor cursor) throws Exception {
+        return detect(cursor.next(evidence));
+    }
+
+    /**
+     * Carry out a single detection. The result is returned so that JMH consumes it and the
+     * detection cannot be optimised away.
+     * @param evidence the evidence to process
+     * @return the value of IsMobile or null if there is none
+     * @throws Exception to satisfy called APIs
+     */
+    private Object detect(Map<String, String> evidence) throws Exception {
+        // A try-with-resource block MUST be used for the FlowData instance. This ensures
+        // that native resources created by the device detection engine are freed.
+        try (FlowData flowData = pipeline.createFlowData()) {
+            flowData.addEvidence(evidence).process();
+            AspectPropertyValue<Boolean> isMobile = flowData.get(DeviceData.class).getIsMobile();
+            return isMobile.hasValue() ? isMobile.getValue() : null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.benchmark;
+
+import fiftyone.common.testhelpers.LogbackHelper;
+import fiftyone.pipeline.util.FileFinder;
+import org.junit.Test;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.junit.Assert.assertFalse;
+
+public class PipelineBenchmarkTest {
+
+    @Test
+    public void pipelineBenchmarkTest() throws Exception {
+        LogbackHelper.configureLogback(FileFinder.getFilePath("logback.xml"));
+        // a short in-process run just to check the benchmark works
+        assertFalse(new Runner(new OptionsBuilder()
+                .include(PipelineBenchmark.class.getSimpleName())
+                .param("configuration", "MaxPerformance:false:true:false")
+                .forks(0)
+                .warmupIterations(1)
+                .warmupTime(TimeValue.milliseconds(200))
+                .measurementIterations(1)
+                .measurementTime(TimeValue.milliseconds(500))
+                .build())
+                .run()
+                .isEmpty());
+    }
+}
@@ -23,7 +23,12 @@
 package fiftyone.devicedetection.examples.console;
 
 import fiftyone.devicedetection.DeviceDetectionPipelineBuilder;
+import fiftyone.devicedetection.examples.shared.ArgumentHelper;
 import fiftyone.devicedetection.examples.shared.DataFileHelper;
+import fiftyone.devicedetection.examples.shared.DetectionEvents;
+import fiftyone.devicedetection.examples.console.offline.ResultCache;
+import fiftyone.devicedetection.examples.console.offline.ResultWriter;
+import fiftyone.devicedetection.examples.shared.EvidenceReader;
 import fiftyone.devicedetection.hash.engine.onpremise.flowelements.DeviceDetectionHashEngine;
 import fiftyone.devicedetection.shared.DeviceData;
 import fiftyone.pipeline.core.data.FlowData;
@@ -32,18 +37,29 @@ import fiftyone.pipeline.engines.Constants;
 import fiftyone.pipeline.engines.data.AspectPropertyValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.yaml.snakeyaml.DumperOptions;
-import org.yaml.snakeyaml.Yaml;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static fiftyone.common.testhelpers.LogbackHelper.configureLogback;
 import static fiftyone.devicedetection.examples.shared.PropertyHelper.asString;
+import static fiftyone.devicedetection.examples.shared.PropertyHelper.tryGet;
 import static fiftyone.pipeline.util.FileFinder.getFilePath;
 
 /**
@@ -80,23 +96,116 @@ public class OfflineProcessing {
     public static final String HEADER_EVIDENCE_YML =
             "device-detection-data/20000 Evidence Records.yml";
 
+    // the number of records processed by default, as an example
+    public static final int EXAMPLE_RECORDS = 20;
+    // the default capacity of the queues between the stages of processing
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    // the device properties written by default
+    public static final List<String> DEFAULT_PROPERTIES = Collections.unmodifiableList(
+            Arrays.asList("IsMobile", "PlatformName", "PlatformVersion"));
+
+    /**
+     * Process the evidence, by default the first {@link #EXAMPLE_RECORDS} records of
+     * {@link #HEADER_EVIDENCE_YML} with the Lite data file, writing the results to standard
+     * output. Arguments are:
+     * <ul>
+     *     <li>the data file, and the YAML evidence file, by position</li>
+     *     <li>--records=&lt;n&gt; the number of records to process, 0 for all</li>
+     *     <li>--workers=&lt;n&gt; the number of threads carrying out detections, by default
+     *     one per processor</li>
+     *     <li>--queue=&lt;n&gt; the capacity of the queues between stages</li>
+     *     <li>--ordered to write the results in the same order as the evidence</li>
+     *     <li>--format=yaml|csv|jsonl|columnar the format of the results, by default YAML</li>
+     *     <li>--properties=&lt;name,name,...&gt; the device properties to write</li>
+     *     <li>--evidence=&lt;key,key,...&gt; the evidence keys to write, by default all
+     *     of them, a few headers for CSV, and none for columnar</li>
+     *     <li>--flush=&lt;n&gt; the number of records written between flushes</li>
+     *     <li>--cache=&lt;n&gt; the number of results cached for repeated evidence, 0 for
+     *     none</li>
+     *     <li>--cache-policy=lru|fifo which result to evict when the cache is full</li>
+     *     <li>--output=&lt;file&gt; the file to write the results to, rather than standard
+     *     output which is shared with logging, required for columnar results</li>
+     * </ul>
+     * @param args the arguments
+     * @throws Exception if processing fails
+     */
     public static void main(String[] args) throws Exception {
         configureLogback(getFilePath("logback.xml"));
-        File evidenceFile = getFilePath(HEADER_EVIDENCE_YML);
-        run(LITE_V_4_1_HASH, Files.newInputStream(evidenceFile.toPath()), System.out);
+        ArgumentHelper arguments = new ArgumentHelper(args);
+        String dataFile = arguments.getPositional(0, LITE_V_4_1_HASH);
+        File evidenceFile = getFilePath(arguments.getPositional(1, HEADER_EVIDENCE_YML));
+        long records = arguments.getOption("records", (long) EXAMPLE_RECORDS);
+        Options options = new Options()
+                .setMaxRecords(records > 0 ? records : Long.MAX_VALUE)
+                .setWorkers(arguments.getOption("workers",
+                        Runtime.getRuntime().availableProcessors()))
+                .setQueueCapacity(arguments.getOption("queue", DEFAULT_QUEUE_CAPACITY))
+                .setPreserveOrder(arguments.hasOption("ordered"))
+                .setFormat(ResultWriter.Format.parse(arguments.getOption("format", "yaml")))
+                .setFlushRecords(arguments.getOption("flush", ResultWriter.DEFAULT_FLUSH_RECORDS))
+                .setCacheSize(arguments.getOption("cache", ResultCache.DEFAULT_SIZE))
+                .setCachePolicy(ResultCache.Policy.parse(arguments.getOption("cache-policy", "lru")));
+        String properties = arguments.getOption("properties", (String) null);
+        if (Objects.nonNull(properties)) {
+            options.setProperties(Arrays.asList(properties.split(",")));
+        }
+        String evidenceKeys = arguments.getOption("evidence", (String) null);
+        if (Objects.nonNull(evidenceKeys)) {
+            options.setEvidenceKeys(Arrays.asList(evidenceKeys.split(",")));
+        }
+        String output = arguments.getOption("output", (String) null);
+        if (options.format == ResultWriter.Format.COLUMNAR && Objects.isNull(output)) {
+            // standard output is shared with logging, which would corrupt a binary file
+            throw new IllegalArgumentException(
+                    "Columnar results must be written to a file given by --output");
+        }
+        try (InputStream is = Files.newInputStream(evidenceFile.toPath())) {
+            if (Objects.isNull(output)) {
+                run(dataFile, is, System.out, options);
+            } else {
+                try (OutputStream os = Files.newOutputStream(new File(output).toPath())) {
+                    run(dataFile, is, os, options);
+                }
+            }
+        }
     }
 
     /**
      * Process a YAML representation of evidence - and create a YAML output
-     * containing the processed evidence
+     * containing the processed evidence, for the first {@link #EXAMPLE_RECORDS} records
+     * in the order they were read
      *
      * @param dataFile the 51Degrees on premise data file containing
      *                 information about devices
      * @param is       an InputStream containing YAML documents - one per device
      * @param os       an OutputStream for the processed data
      */
-    @SuppressWarnings("unchecked")
     public static void run(String dataFile, InputStream is, OutputStream os) throws Exception {
+        run(dataFile, is, os, new Options()
+                .setMaxRecords(EXAMPLE_RECORDS)
+                .setPreserveOrder(true));
+    }
+
+    /**
+     * Process a YAML representation of evidence - and create a YAML output
+     * containing the processed evidence.
+     * <p>
+     * Processing is staged, so that reading, detection and writing are carried out at the
+     * same time: a thread reads the evidence, a pool of workers sharing one pipeline carry
+     * out detections, and the calling thread writes the results. The stages are connected by
+     * bounded queues, so that a slow stage holds back the ones before it rather than records
+     * building up in memory.
+     *
+     * @param dataFile the 51Degrees on premise data file containing
+     *                 information about devices
+     * @param is       an InputStream containing YAML documents - one per device
+     * @param os       an OutputStream for the processed data, which is flushed but left
+     *                 open for the caller to close
+     * @param options  how to process
+     * @return the number of records processed
+     */
+    public static long run(String dataFile, InputStream is, OutputStream os, Options options)
+            throws Exception {
 
         String detectionFile;
         try {
@@ -106,19 +215,6 @@ public class OfflineProcessing {
             throw e;
         }
 
-        /*
-          ---- configure YAML for getting evidence and saving the results ----
-         */
-
-        DumperOptions dumperOptions = new DumperOptions();
-        dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-        dumperOptions.setDefaultScalarStyle(DumperOptions.ScalarStyle.PLAIN);
-        dumperOptions.setSplitLines(false);
-
-        // get a YAML loader to iterate over the device evidence
-        Yaml yaml = new Yaml(dumperOptions);
-        Iterator<Object> evidenceIterator = yaml.loadAll(is).iterator();
-
         /*
           ---- Build a pipeline ----
          */
@@ -152,6 +248,9 @@ public class OfflineProcessing {
                 // see https://51degrees.com/documentation/_device_detection__hash.html#DeviceDetection_Hash_PredictivePower
                 //.setDifference(0)
                 //.setDrift(0)
+                // -- Setting Concurrency
+                // the number of detections the engine can carry out at once
+                .setConcurrency(options.workers)
                 .build()) {
 
             // get the details of the detection engine from the pipeline,
@@ -159,87 +258,436 @@ public class OfflineProcessing {
             DeviceDetectionHashEngine engine = pipeline.getElement(DeviceDetectionHashEngine.class);
             logger.info("Device data file was created {}", engine.getDataFilePublishedDate());
 
+            // record JFR events for each stage of detection, so that slow detections can be
+            // related to the evidence which caused them - these are only recorded when
+            // running with Flight Recorder e.g. -XX:StartFlightRecording
+            DetectionEvents events = DetectionEvents.forPipeline(pipeline,
+                    Constants.PerformanceProfiles.LowMemory.name());
+
+            // stream the evidence, keeping only the keys the pipeline's evidence key filter
+            // accepts, rather than loading each document into general purpose YAML objects
+            EvidenceReader evidenceReader = new EvidenceReader(is, pipeline.getEvidenceKeyFilter());
+
+            // cache the results of evidence seen before, as evidence from logs is often
+            // repeated, discarding them if the engine reloads its data file
+            ResultCache cache = options.cacheSize > 0 ?
+                    new ResultCache(options.cacheSize, options.cachePolicy,
+                            pipeline.getEvidenceKeyFilter(), engine::getDataFilePublishedDate) :
+                    null;
+            options.cache = cache;
+
             /*
-              ---- Iterate over the evidence ----
+              ---- Start the stages of processing ----
              */
 
-            // open a writer to collect the results
-            try (Writer writer = new OutputStreamWriter(os)) {
-                // read a batch of device data from the stream
-                int count = 0;
-                while (evidenceIterator.hasNext() && count < 20) {
-                    // Flow data is the container for inputs and outputs that
-                    // flow through the pipeline a flowdata instance is
-                    // created by the pipeline factory method it's important
-                    // to dispose flowdata - so wrap in a try/resources
-                    try (FlowData flowData = pipeline.createFlowData()) {
-                        // the evidence values in the test YAML data are read
-                        // as a Map<String, String> - add the evidence to the
-                        // flowData
-                        flowData.addEvidence(
-                                filterEvidence((Map<String, String>) evidenceIterator.next(),
-                                        "header."));
-
-                        /*
-                          ---- Do the detection ----
-                         */
-
-                        // carry out device-detection (and other
-                        // pipeline actions) on the evidence
-                        flowData.process();
-                        // extract device data from the flowData
-                        DeviceData device = flowData.get(DeviceData.class);
-
-                        /*
-                          ---- use the device data - output to YAML in this case
-                         */
-
-                        Map<String, ? super Object> resultMap = new HashMap<>();
-                        resultMap.put("device.ismobile", asString(device.getIsMobile()));
-                        resultMap.put("device.platformname", asString(device.getPlatformName()));
-                        resultMap.put("device.platformversion", asString(device.getPlatformVersion()));
-
-                        // to look at all device detection properties use the following:
-                        // resultMap.putAll(getPopulatedProperties(device, "device."));
-
-                        // write document to output stream as a YAML document
-                        writer.write("---\n");
-                        yaml.dump(flowData.getEvidence().asKeyMap(), writer);
-                        yaml.dump(resultMap, writer);
-                        writer.flush();
-                    }
-                    count++;
+            BlockingQueue<Record> evidenceQueue = new ArrayBlockingQueue<>(options.queueCapacity);
+            BlockingQueue<Record> resultQueue = new ArrayBlockingQueue<>(options.queueCapacity);
+            // limits the records read but not yet written, including those held back to
+            // keep them in order, as the queues alone do not
+            Semaphore inFlight = new Semaphore(options.queueCapacity);
+            ExecutorService service = Executors.newFixedThreadPool(options.workers + 1);
+            long count;
+            // open a writer to collect the results, in the format chosen
+            List<String> resultKeys = options.properties.stream()
+                    .map(OfflineProcessing::getResultKey)
+                    .collect(Collectors.toList());
+            try (ResultWriter writer = ResultWriter.create(options.format,
+                    new UnclosedOutputStream(os),
+                    options.evidenceKeys, resultKeys, options.flushRecords)) {
+                service.submit(stage(resultQueue, () ->
+                        read(evidenceReader, options, evidenceQueue, inFlight)));
+                for (int i = 0; i < options.workers; i++) {
+                    service.submit(stage(resultQueue, () ->
+                            detect(pipeline, events, cache, options, evidenceQueue, resultQueue)));
                 }
-                // finish the last YAML document
-                writer.write("...\n");
-                writer.flush();
+                count = write(writer, options, resultQueue, inFlight);
+                // only complete the output if every record was written
+                writer.finish();
                 logger.info("Finished processing {} records", count);
+                if (Objects.nonNull(cache)) {
+                    logger.info("Result cache hits {}, misses {}, invalidations {}",
+                            cache.getHits(), cache.getMisses(), cache.getInvalidations());
+                }
+            } finally {
+                // stop any stage still running if writing failed, and wait for detections
+                // to finish before the pipeline is closed
+                service.shutdownNow();
+                service.awaitTermination(1, TimeUnit.MINUTES);
+            }
+
+            if (engine.getDataSourceTier().equals("Lite")) {
+                logger.warn("You have used a Lite data file which has " +
+                        "limited properties and is of limited accuracy");
+                logger.info("The example requires an Enterprise data file " +
+                        "to work fully. Find out about the Enterprise " +
+                        "data file here: https://51degrees.com/pricing");
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Run a stage, passing any failure to the writer so that processing stops
+     * @param resultQueue the queue read by the writer
+     * @param stage the stage to run
+     * @return the stage to submit
+     */
+    private static Callable<Void> stage(BlockingQueue<Record> resultQueue, Callable<Void> stage) {
+        return () -> {
+            try {
+                return stage.call();
+            } catch (InterruptedException e) {
+                // processing has been stopped
+                return null;
+            } catch (Exception e) {
+                resultQueue.put(new Record(e));
+                return null;
+            }
+        };
+    }
+
+    /**
+     * The reading stage: read the evidence and queue it for detection, then queue an
+     * {@link #END} for each worker
+     */
+    private static Void read(EvidenceReader evidenceReader,
+                             Options options,
+                             BlockingQueue<Record> evidenceQueue,
+                             Semaphore inFlight) throws InterruptedException, IOException {
+        for (long index = 0; index < options.maxRecords; index++) {
+            inFlight.acquire();
+            // a new map for each record, as it is passed on to a worker, which keeps the
+            // evidence in the order it was read
+            Map<String, String> evidence = new LinkedHashMap<>();
+            if (evidenceReader.read(evidence) == false) {
+                inFlight.release();
+                break;
+            }
+            evidenceQueue.put(new Record(index, evidence));
+        }
+        for (int i = 0; i < options.workers; i++) {
+            evidenceQueue.put(END);
+        }
+        return null;
+    }
 
-                if (engine.getDataSourceTier().equals("Lite")) {
-                    logger.warn("You have used a Lite data file which has " +
-                            "limited properties and is of limited accuracy");
-                    logger.info("The example requires an Enterprise data file " +
-                            "to work fully. Find out about the Enterprise " +
-                            "data file here: https://51degrees.com/pricing");
+    /**
+     * The detection stage, run by each worker: take evidence from the queue, carry out a
+     * detection, unless the results are cached, and queue the result for writing, until an
+     * {@link #END} is taken which is passed on to the writer
+     */
+    private static Void detect(Pipeline pipeline,
+                               DetectionEvents events,
+                               ResultCache cache,
+                               Options options,
+                               BlockingQueue<Record> evidenceQueue,
+                               BlockingQueue<Record> resultQueue) throws InterruptedException {
+        for (Record record = evidenceQueue.take(); record != END; record = evidenceQueue.take()) {
+            try {
+                Map<String, ?> evidence = record.evidence;
+                record.results = Objects.isNull(cache) ?
+                        detect(pipeline, events, options, evidence) :
+                        cache.get(evidence, () -> detect(pipeline, events, options, evidence));
+            } catch (Exception e) {
+                // the writer stops processing when it takes the failure
+                record.failure = e;
+                resultQueue.put(record);
+                return null;
+            }
+            resultQueue.put(record);
+        }
+        resultQueue.put(END);
+        return null;
+    }
+
+    /**
+     * Carry out a detection
+     * @return the values of the properties to be written
+     */
+    private static Map<String, String> detect(Pipeline pipeline,
+                                              DetectionEvents events,
+                                              Options options,
+                                              Map<String, ?> evidence) throws Exception {
+        // Flow data is the container for inputs and outputs that
+        // flow through the pipeline a flowdata instance is
+        // created by the pipeline factory method it's important
+        // to dispose flowdata - so wrap in a try/resources
+        try (FlowData flowData = events.createFlowData(pipeline)) {
+            // add the evidence to the flowData
+            events.addEvidence(flowData, evidence);
+
+            /*
+              ---- Do the detection ----
+             */
+
+            // carry out device-detection (and other
+            // pipeline actions) on the evidence
+            events.process(flowData);
+            // extract device data from the flowData
+            DeviceData device = flowData.get(DeviceData.class);
+
+            /*
+              ---- use the device data - keep the properties to be written
+             */
+
+            Map<String, String> resultMap = new LinkedHashMap<>();
+            for (String property : options.properties) {
+                resultMap.put(getResultKey(property),
+                        getValue(events, flowData, device, property));
+            }
+
+            // to look at all device detection properties use the following:
+            // resultMap.putAll(getPopulatedProperties(device, "device."));
+
+            return resultMap;
+        }
+    }
+
+    /**
+     * The writing stage: write each result as it is queued, or if preserving order once
+     * those before it have been written, until every worker has finished
+     * @return the number of records written
+     */
+    private static long write(ResultWriter writer,
+                              Options options,
+                              BlockingQueue<Record> resultQueue,
+                              Semaphore inFlight) throws Exception {
+        // results which can't be written until those before them are
+        Map<Long, Record> heldBack = new HashMap<>();
+        long count = 0;
+        int finished = 0;
+        while (finished < options.workers) {
+            Record record = resultQueue.take();
+            if (record == END) {
+                finished++;
+                continue;
+            }
+            if (Objects.nonNull(record.failure)) {
+                throw record.failure;
+            }
+            if (options.preserveOrder) {
+                heldBack.put(record.index, record);
+                for (Record next = heldBack.remove(count);
+                     Objects.nonNull(next);
+                     next = heldBack.remove(count)) {
+                    writer.write(next.evidence, next.results);
+                    count++;
+                    inFlight.release();
                 }
+            } else {
+                writer.write(record.evidence, record.results);
+                count++;
+                inFlight.release();
             }
         }
+        return count;
     }
-	
+
     /**
-     * Filter entries that are not keyed on the required prefix
-     *
-     * @param prefix a prefix for the evidence to filter - e.g. "header."
-     * @param evidence a Map<String, String> of evidence entries
-     * @return a filtered Map
+     * @return the key a property's value is written with e.g. "device.ismobile"
      */
-    @SuppressWarnings("SameParameterValue")
-    private static Map<String, String> filterEvidence(Map<String, String> evidence, String prefix) {
+    private static String getResultKey(String property) {
+        return "device." + property.toLowerCase(Locale.ROOT);
+    }
 
-        return evidence.entrySet()
-                .stream()
-                .filter(e -> e.getKey().startsWith(prefix))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    /**
+     * @return the value of a property as a string, or a message saying why it has none
+     */
+    @SuppressWarnings("unchecked")
+    private static String getValue(DetectionEvents events,
+                                   FlowData flowData,
+                                   DeviceData device,
+                                   String property) {
+        return asString(tryGet(() -> events.get(flowData, property,
+                () -> (AspectPropertyValue<Object>) device.get(property))));
+    }
+
+    /**
+     * Options for processing
+     */
+    public static class Options {
+        long maxRecords = Long.MAX_VALUE;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        boolean preserveOrder = false;
+        ResultWriter.Format format = ResultWriter.Format.YAML;
+        List<String> properties = DEFAULT_PROPERTIES;
+        List<String> evidenceKeys = null;
+        int flushRecords = ResultWriter.DEFAULT_FLUSH_RECORDS;
+        int cacheSize = ResultCache.DEFAULT_SIZE;
+        ResultCache.Policy cachePolicy = ResultCache.Policy.LRU;
+        // the cache used by the last run with these options
+        volatile ResultCache cache = null;
+
+        /**
+         * @param maxRecords the maximum number of records to process, by default all of them
+         * @return this
+         */
+        public Options setMaxRecords(long maxRecords) {
+            this.maxRecords = maxRecords;
+            return this;
+        }
+
+        /**
+         * @param workers the number of threads carrying out detections, by default one per
+         *                processor
+         * @return this
+         */
+        public Options setWorkers(int workers) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("There must be at least one worker");
+            }
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * @param queueCapacity the number of records the queues between the stages hold,
+         *                      and the most that can be read but not yet written, by default
+         *                      {@link #DEFAULT_QUEUE_CAPACITY}
+         * @return this
+         */
+        public Options setQueueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("Queue capacity must be at least 1");
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param preserveOrder true to write the results in the same order as the evidence
+         *                      was read, otherwise they are written as they are detected
+         * @return this
+         */
+        public Options setPreserveOrder(boolean preserveOrder) {
+            this.preserveOrder = preserveOrder;
+            return this;
+        }
+
+        /**
+         * @param format the format to write the results in, by default YAML
+         * @return this
+         */
+        public Options setFormat(ResultWriter.Format format) {
+            this.format = Objects.requireNonNull(format);
+            return this;
+        }
+
+        /**
+         * @param properties the names of the device properties to write, by default
+         *                   {@link #DEFAULT_PROPERTIES}
+         * @return this
+         */
+        public Options setProperties(List<String> properties) {
+            if (properties.isEmpty()) {
+                throw new IllegalArgumentException("There must be at least one property");
+            }
+            this.properties = properties;
+            return this;
+        }
+
+        /**
+         * @param evidenceKeys the evidence keys to write, or null for the default of the
+         *                     format, see {@link ResultWriter#create}
+         * @return this
+         */
+        public Options setEvidenceKeys(List<String> evidenceKeys) {
+            this.evidenceKeys = evidenceKeys;
+            return this;
+        }
+
+        /**
+         * @param flushRecords the number of records written between flushes of the output,
+         *                     by default {@link ResultWriter#DEFAULT_FLUSH_RECORDS}
+         * @return this
+         */
+        public Options setFlushRecords(int flushRecords) {
+            if (flushRecords < 1) {
+                throw new IllegalArgumentException("Records between flushes must be at least 1");
+            }
+            this.flushRecords = flushRecords;
+            return this;
+        }
+
+        /**
+         * @param cacheSize the number of results cached, so that repeated evidence is not
+         *                  detected again, or 0 for no cache, by default
+         *                  {@link ResultCache#DEFAULT_SIZE}
+         * @return this
+         */
+        public Options setCacheSize(int cacheSize) {
+            if (cacheSize < 0) {
+                throw new IllegalArgumentException("Cache size can't be negative");
+            }
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * @param cachePolicy which result to evict when the cache is full, by default the
+         *                    least recently used
+         * @return this
+         */
+        public Options setCachePolicy(ResultCache.Policy cachePolicy) {
+            this.cachePolicy = Objects.requireNonNull(cachePolicy);
+            return this;
+        }
+
+        /**
+         * @return the cache of results used by the last run with these options, so that
+         * its hits and misses can be seen, or null if there was none
+         */
+        public ResultCache getCache() {
+            return cache;
+        }
+    }
+
+    // marks the end of the records in a queue
+    private static final Record END = new Record(-1, null);
+
+    /**
+     * A record passed between the stages of processing
+     */
+    private static class Record {
+        // the position of the record in the evidence
+        final long index;
+        // the evidence read, restricted to the keys the pipeline uses
+        Map<String, ?> evidence;
+        // the results of detection
+        Map<String, String> results;
+        // if not null, why processing failed
+        Exception failure;
+
+        Record(long index, Map<String, ?> evidence) {
+            this.index = index;
+            this.evidence = evidence;
+        }
+
+        Record(Exception failure) {
+            this(-1, null);
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Passes writes on to a stream owned by the caller, flushing rather than closing it when
+     * closed, so that e.g. standard output remains usable after the results are written
+     */
+    private static class UnclosedOutputStream extends FilterOutputStream {
+        UnclosedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
     }
 
     /**
@@ -249,13 +697,13 @@ public class OfflineProcessing {
      * @return a filtered map
      */
     @SuppressWarnings({"SameParameterValue", "unused"})
-    private static Map<String, Object> getPopulatedProperties(DeviceData data, String prefix) {
+    private static Map<String, String> getPopulatedProperties(DeviceData data, String prefix) {
 
         return data.asKeyMap().entrySet()
                 .stream()
                 .filter(e -> ((AspectPropertyValue<?>) e.getValue()).hasValue())
                 .collect(Collectors.toMap(e -> prefix + e.getKey(),
-                        e -> ((AspectPropertyValue<?>)e.getValue()).getValue()));
+                        e -> asString((AspectPropertyValue<?>) e.getValue())));
     }
 }
 /*!
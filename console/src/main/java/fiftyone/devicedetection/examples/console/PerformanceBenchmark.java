@@ -25,24 +25,55 @@ package fiftyone.devicedetection.examples.console;
 import fiftyone.common.testhelpers.LogbackHelper;
 import fiftyone.devicedetection.DeviceDetectionOnPremisePipelineBuilder;
 import fiftyone.devicedetection.DeviceDetectionPipelineBuilder;
+import fiftyone.devicedetection.examples.console.performance.Baseline;
+import fiftyone.devicedetection.examples.console.performance.ConcurrencySweep;
+import fiftyone.devicedetection.examples.console.performance.ContinuousLoad;
+import fiftyone.devicedetection.examples.console.performance.DetectionVerifier;
+import fiftyone.devicedetection.examples.console.performance.DriftDetector;
+import fiftyone.devicedetection.examples.console.performance.ForkedResults;
+import fiftyone.devicedetection.examples.console.performance.MemoryHelper;
+import fiftyone.devicedetection.examples.console.performance.PeakMemorySampler;
+import fiftyone.devicedetection.examples.console.performance.RateSweep;
+import fiftyone.devicedetection.examples.console.performance.ReplayStrategy;
+import fiftyone.devicedetection.examples.console.performance.ResultsWriter;
+import fiftyone.devicedetection.examples.console.performance.SoakTest;
+import fiftyone.devicedetection.examples.console.performance.SteadyStateDetector;
+import fiftyone.devicedetection.examples.console.performance.ThreadCostMeter;
+import fiftyone.devicedetection.examples.console.performance.ThreadCostMeter.Phase;
+import fiftyone.devicedetection.examples.console.performance.WarmUp;
+import fiftyone.devicedetection.examples.shared.ArgumentHelper;
+import fiftyone.devicedetection.examples.shared.BinaryEvidenceCorpus;
 import fiftyone.devicedetection.examples.shared.DataFileHelper;
+import fiftyone.devicedetection.examples.shared.DetectionEvents;
+import fiftyone.devicedetection.examples.shared.EvidenceCorpus;
+import fiftyone.devicedetection.examples.shared.EvidenceGenerator;
 import fiftyone.devicedetection.examples.shared.EvidenceHelper;
+import fiftyone.devicedetection.examples.shared.ExecutorHelper;
+import fiftyone.devicedetection.examples.shared.ExecutorHelper.Threading;
+import fiftyone.devicedetection.examples.shared.ForkHelper;
 import fiftyone.devicedetection.hash.engine.onpremise.flowelements.DeviceDetectionHashEngine;
 import fiftyone.devicedetection.shared.DeviceData;
 import fiftyone.pipeline.core.data.FlowData;
 import fiftyone.pipeline.core.flowelements.Pipeline;
 import fiftyone.pipeline.engines.Constants;
+import fiftyone.pipeline.engines.data.AspectPropertyValue;
 import fiftyone.pipeline.util.FileFinder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
 import org.apache.commons.lang3.BooleanUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MarkerFactory;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
 
 import static fiftyone.devicedetection.examples.shared.DataFileHelper.getDataFileLocation;
 import static fiftyone.devicedetection.examples.shared.DataFileHelper.getEvidenceFile;
@@ -61,15 +92,107 @@ public class PerformanceBenchmark {
     public static final int DEFAULT_NUMBER_OF_THREADS = 4;
     // the number of tests to execute.
     public static final int TESTS_PER_THREAD = 10000;
+    // the number of significant digits recorded in latency histograms
+    public static final int HISTOGRAM_SIGNIFICANT_DIGITS = 3;
+    // the default number of seconds each fixed rate run lasts
+    public static final int DEFAULT_RATE_DURATION_SECONDS = 10;
+    // the default starting rate, detections per second, of a rate sweep
+    public static final double DEFAULT_RATE_SWEEP_START = 1000;
+    // the default factor by which the rate increases on each step of a sweep
+    public static final double DEFAULT_RATE_SWEEP_FACTOR = 1.5;
+    // a rate is sustained if this fraction of the target rate is achieved
+    public static final double SATURATION_THRESHOLD = 0.95;
+    // the default number of virtual threads, each carrying out detections concurrently
+    public static final int DEFAULT_NUMBER_OF_VIRTUAL_THREADS = 1000;
+    // the default millis over which throughput is measured when finding the steady state
+    public static final long STEADY_STATE_WINDOW_MILLIS = 500;
+    // give up waiting for a steady state after this many seconds
+    public static final int MAX_STEADY_STATE_SECONDS = 60;
+    // the default seconds over which a soak test reports
+    public static final int DEFAULT_SOAK_WINDOW_SECONDS = 10;
+    // the default number of threads detecting concurrently when verifying results
+    public static final int DEFAULT_VERIFY_THREADS = 64;
+    // options which are not passed to child JVMs, as the parent JVM deals with them
+    private static final List<String> PARENT_OPTIONS = Arrays.asList("fork", "forked",
+            "profiles", "configurations", "results-file", "save-baseline", "baseline");
 
     public static final Logger logger = LoggerFactory.getLogger(PerformanceBenchmark.class);
 
     // where the results of the tests are gathered
     private List<Future<BenchmarkResult>> resultList;
+    // JFR events for detections by the pipeline being benchmarked
+    private DetectionEvents events;
     private int numberOfThreads = DEFAULT_NUMBER_OF_THREADS;
     private List<Map<String, String>> evidence;
     private String dataFileLocation;
     private PrintWriter writer;
+    // if set, the latency histogram of each benchmark is written here
+    private File histogramDirectory = null;
+    // detections per second across all threads, 0 to run each thread flat out
+    private double targetRate = 0;
+    private int rateDurationSeconds = DEFAULT_RATE_DURATION_SECONDS;
+    // if greater than 1, increase the rate by this factor until saturated
+    private double rateSweepFactor = 0;
+    // run each benchmark with each of these threading models
+    private Threading[] threadingModels = {Threading.PLATFORM};
+    private int numberOfVirtualThreads = DEFAULT_NUMBER_OF_VIRTUAL_THREADS;
+    // if set, run each benchmark on each of these numbers of platform threads
+    private List<Integer> threadCounts = null;
+    // if set, build a pipeline with each of its engine concurrency settings
+    private ConcurrencySweep concurrencySweep = null;
+    // if set, the summary of each benchmark is written here as CSV or JSON
+    private File resultsFile = null;
+    // if true, every profile is also benchmarked loaded from memory, not just MaxPerformance
+    private boolean memoryForAllProfiles = false;
+    // if true, measure the time taken for throughput to become steady after loading
+    private boolean measureStartup = false;
+    // warm up until the coefficient of variation of throughput, measured over windows of
+    // this many millis, is below the threshold
+    private long warmUpWindowMillis = STEADY_STATE_WINDOW_MILLIS;
+    private double warmUpThreshold = SteadyStateDetector.DEFAULT_THRESHOLD;
+    // if true, measure the allocation and CPU time of each phase of a detection
+    private boolean measurePhases = false;
+    // if set, replay evidence captured from real traffic rather than the evidence file
+    private File corpusFile = null;
+    // if true, replay the corpus with its original timing, sped up by corpusSpeed
+    private boolean corpusTiming = false;
+    private double corpusSpeed = 1.0;
+    // when replaying with original timing, the capture time of each evidence record
+    private long[] timestamps = null;
+    // the order in which each thread replays the evidence
+    private ReplayStrategy replay = new ReplayStrategy();
+    // if greater than 0, generate this many records from the evidence rather than using it
+    private int syntheticRecords = 0;
+    // the proportion of synthetic records with UA-CH headers, NaN to match the evidence
+    private double clientHintsCoverage = Double.NaN;
+    private long syntheticSeed = EvidenceGenerator.DEFAULT_SEED;
+    // the number of detections each thread carries out when running flat out
+    private long detectionsPerThread = TESTS_PER_THREAD;
+    // if greater than 0, run a soak test of this many seconds rather than the benchmarks
+    private int soakSeconds = 0;
+    private int soakWindowSeconds = DEFAULT_SOAK_WINDOW_SECONDS;
+    private double driftTolerance = DriftDetector.DEFAULT_TOLERANCE;
+    // if set, the results are saved here to be used as a baseline by later runs
+    private File saveBaselineFile = null;
+    // if set, the results are compared with this baseline
+    private File baselineFile = null;
+    private double throughputTolerance = Baseline.DEFAULT_THROUGHPUT_TOLERANCE;
+    private double p99Tolerance = Baseline.DEFAULT_P99_TOLERANCE;
+    // regressions found by comparing with the baseline
+    private final List<String> regressions = new ArrayList<>();
+    // the summaries of the benchmarks run
+    private final List<BenchmarkSummary> summaries = new ArrayList<>();
+    // if set, verify the values of these properties under concurrency rather than benchmark
+    private List<String> verifyProperties = null;
+    private int verifyThreads = DEFAULT_VERIFY_THREADS;
+    // mismatches found when verifying results under concurrency
+    private final List<String> verificationFailures = new ArrayList<>();
+    // if set, run each configuration in a child JVM with these options
+    private List<String> forkArguments = null;
+    // the heap size of each child JVM, null for the default
+    private String forkHeap = null;
+    // when running in a child JVM, "disk" or "memory"
+    private String forkedLoading = null;
 
     // a default set of configurations: (profile, allProperties, performanceGraph, predictiveGraph)
     public static PerformanceConfiguration [] DEFAULT_PERFORMANCE_CONFIGURATIONS = {
@@ -78,22 +201,565 @@ public class PerformanceBenchmark {
             new PerformanceConfiguration(MaxPerformance, true, true, false)
     };
 
+    // each performance profile, with the default graph and just "isMobile"
+    public static PerformanceConfiguration [] ALL_PROFILE_CONFIGURATIONS =
+            getProfileConfigurations("all");
+
 
     public static void main(String[] args) throws Exception {
         LogbackHelper.configureLogback(FileFinder.getFilePath("logback.xml"));
 
-        String dataFilename = args.length > 0 ? args[0] : null;
-        String evidenceFilename = args.length > 1 ? args[1] : null;
+        ArgumentHelper arguments = new ArgumentHelper(args);
+        String dataFilename = arguments.getPositional(0, null);
+        String evidenceFilename = arguments.getPositional(1, null);
         int numberOfThreads = DEFAULT_NUMBER_OF_THREADS;
-        if (args.length > 2) {
-            numberOfThreads = Integer.parseInt(args[2]);
+        if (Objects.nonNull(arguments.getPositional(2, null))) {
+            numberOfThreads = Integer.parseInt(arguments.getPositional(2, null));
         }
 
-        new PerformanceBenchmark().runBenchmarks(DEFAULT_PERFORMANCE_CONFIGURATIONS,
+        PerformanceBenchmark benchmark = new PerformanceBenchmark();
+        PerformanceConfiguration[] configurations = DEFAULT_PERFORMANCE_CONFIGURATIONS;
+        // --profiles=all|<profile>,<profile> benchmarks the profiles given loaded
+        // both from disk and from memory
+        if (arguments.hasOption("profiles")) {
+            configurations = getProfileConfigurations(arguments.getOption("profiles", "all"));
+            benchmark.setMemoryForAllProfiles(true);
+        }
+        // --configurations=<profile:allProperties:performanceGraph:predictiveGraph>,...
+        if (arguments.hasOption("configurations")) {
+            List<PerformanceConfiguration> parsed = new ArrayList<>();
+            for (String value : arguments.getOption("configurations", "").split(",")) {
+                parsed.add(PerformanceConfiguration.parse(value.trim()));
+            }
+            configurations = parsed.toArray(new PerformanceConfiguration[0]);
+        }
+        // --fork[=<heap size e.g. 4g>] runs each configuration in its own child JVM
+        if (arguments.hasOption("fork")) {
+            List<String> options = new ArrayList<>();
+            for (String arg : args) {
+                if (arg.startsWith("--") &&
+                        !PARENT_OPTIONS.contains(arg.substring(2).split("=")[0])) {
+                    options.add(arg);
+                }
+            }
+            String heap = arguments.getOption("fork", "true");
+            benchmark.setFork(heap.equals("true") ? null : heap, options);
+        }
+        // --forked=disk|memory is passed to a child JVM by its parent
+        if (arguments.hasOption("forked")) {
+            benchmark.forkedLoading = arguments.getOption("forked", "disk");
+        }
+        // --histograms=<directory> exports latency histograms for comparing runs
+        if (arguments.hasOption("histograms")) {
+            benchmark.setHistogramDirectory(new File(arguments.getOption("histograms", "")));
+        }
+        // --rate=<detections per second> runs open loop at a fixed rate
+        // --rate-sweep[=<factor>] increases the rate until the engine is saturated
+        if (arguments.hasOption("rate") || arguments.hasOption("rate-sweep")) {
+            benchmark.setTargetRate(arguments.getOption("rate", DEFAULT_RATE_SWEEP_START),
+                    arguments.getOption("rate-duration", DEFAULT_RATE_DURATION_SECONDS));
+        }
+        if (arguments.hasOption("rate-sweep")) {
+            String factor = arguments.getOption("rate-sweep", "true");
+            benchmark.setRateSweep(factor.equals("true") ?
+                    DEFAULT_RATE_SWEEP_FACTOR : Double.parseDouble(factor));
+        }
+        // --threading=platform|virtual|both and --virtual-threads=<number>
+        if (arguments.hasOption("threading")) {
+            benchmark.setThreading(Threading.parse(arguments.getOption("threading", "platform")),
+                    arguments.getOption("virtual-threads", DEFAULT_NUMBER_OF_VIRTUAL_THREADS));
+        }
+        // --thread-sweep[=<max threads>] runs on 1, 2, 4 ... threads to show scaling
+        if (arguments.hasOption("thread-sweep")) {
+            String maxThreads = arguments.getOption("thread-sweep", "true");
+            benchmark.setThreadSweep(maxThreads.equals("true") ?
+                    Runtime.getRuntime().availableProcessors() : Integer.parseInt(maxThreads));
+        }
+        // --concurrency=<n>,<n> builds a pipeline with each engine concurrency setting given,
+        // rather than that needed by the threads, to compare over and under provisioning
+        if (arguments.hasOption("concurrency")) {
+            benchmark.setConcurrencySweep(
+                    arguments.getOption("concurrency", Collections.<Integer>emptyList()));
+        }
+        // --warm-up-window=<millis> and --warm-up-cv=<coefficient of variation> control how
+        // steady throughput must be before measuring
+        if (arguments.hasOption("warm-up-window") || arguments.hasOption("warm-up-cv")) {
+            benchmark.setWarmUp(
+                    arguments.getOption("warm-up-window", STEADY_STATE_WINDOW_MILLIS),
+                    arguments.getOption("warm-up-cv", SteadyStateDetector.DEFAULT_THRESHOLD));
+        }
+        // --startup measures the time taken to reach steady throughput after loading
+        if (arguments.hasOption("startup")) {
+            benchmark.setMeasureStartup(true);
+        }
+        // --phases breaks down allocation and CPU time by phase of detection
+        if (arguments.hasOption("phases")) {
+            benchmark.setMeasurePhases(true);
+        }
+        // --results-file=<file.csv|file.json> writes the results in machine readable form
+        if (arguments.hasOption("results-file")) {
+            benchmark.setResultsFile(new File(arguments.getOption("results-file", "")));
+        }
+        // --corpus=<file> replays evidence captured by the web examples' EvidenceCaptureFilter,
+        // or a binary corpus converted by CorpusConverter,
+        // --corpus-timing[=<speed up>] with its original timing rather than flat out
+        if (arguments.hasOption("corpus")) {
+            String speed = arguments.getOption("corpus-timing", "false");
+            benchmark.setCorpus(new File(arguments.getOption("corpus", "")),
+                    !speed.equals("false"),
+                    speed.equals("true") || speed.equals("false") ?
+                            1.0 : Double.parseDouble(speed));
+        }
+        // --replay=sequential|offset|shuffle|zipf, --unique-ratio=<fraction of records>,
+        // --zipf-exponent=<exponent> and --seed=<seed> vary the evidence seen by each thread
+        if (arguments.hasOption("replay") || arguments.hasOption("unique-ratio")) {
+            benchmark.setReplay(new ReplayStrategy(
+                    ReplayStrategy.Order.parse(arguments.getOption("replay", "sequential")),
+                    arguments.getOption("unique-ratio", 1.0),
+                    arguments.getOption("zipf-exponent", ReplayStrategy.DEFAULT_ZIPF_EXPONENT),
+                    arguments.getOption("seed", ReplayStrategy.DEFAULT_SEED)));
+        }
+        // --synthetic=<records> generates evidence by recombining the evidence's headers,
+        // --ua-ch-coverage=<proportion> of the records having UA-CH headers, seeded by --seed
+        if (arguments.hasOption("synthetic")) {
+            benchmark.setSynthetic(arguments.getOption("synthetic", 1_000_000),
+                    arguments.getOption("ua-ch-coverage", Double.NaN),
+                    arguments.getOption("seed", EvidenceGenerator.DEFAULT_SEED));
+        }
+        // --detections=<detections> run by each thread, rather than TESTS_PER_THREAD
+        if (arguments.hasOption("detections")) {
+            benchmark.setDetectionsPerThread(arguments.getOption("detections", TESTS_PER_THREAD));
+        }
+        // --soak=<seconds> runs detections continuously, reporting every --soak-window
+        // seconds and flagging memory which drifts up by more than --drift-tolerance
+        if (arguments.hasOption("soak")) {
+            benchmark.setSoak(arguments.getOption("soak", 3600),
+                    arguments.getOption("soak-window", DEFAULT_SOAK_WINDOW_SECONDS),
+                    arguments.getOption("drift-tolerance", DriftDetector.DEFAULT_TOLERANCE));
+        }
+        // --verify[=<property>,<property>] checks, rather than benchmarking, that each
+        // configuration gives the same results on --verify-threads as on a single thread
+        if (arguments.hasOption("verify")) {
+            String properties = arguments.getOption("verify", "true");
+            benchmark.setVerify(properties.equals("true") ?
+                            DetectionVerifier.DEFAULT_PROPERTIES :
+                            Arrays.asList(properties.split(",")),
+                    arguments.getOption("verify-threads", DEFAULT_VERIFY_THREADS));
+        }
+        // --save-baseline=<file> saves the results for later runs to be compared with
+        if (arguments.hasOption("save-baseline")) {
+            benchmark.setSaveBaseline(new File(arguments.getOption("save-baseline", "")));
+        }
+        // --baseline=<file> compares with a saved baseline, failing if there is a regression
+        // of more than --throughput-tolerance or --p99-tolerance, e.g. 0.1 for 10%
+        if (arguments.hasOption("baseline")) {
+            benchmark.setBaseline(new File(arguments.getOption("baseline", "")),
+                    arguments.getOption("throughput-tolerance",
+                            Baseline.DEFAULT_THROUGHPUT_TOLERANCE),
+                    arguments.getOption("p99-tolerance", Baseline.DEFAULT_P99_TOLERANCE));
+        }
+        benchmark.runBenchmarks(configurations,
                 dataFilename,
                 evidenceFilename,
                 numberOfThreads,
                 new PrintWriter(System.out,true));
+        // a child JVM passes its verification failures back to its parent, see runForked
+        if (!benchmark.getRegressions().isEmpty() ||
+                (!benchmark.getVerificationFailures().isEmpty() &&
+                        Objects.isNull(benchmark.forkedLoading))) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Export the merged latency histogram of each benchmark to the directory given, as a
+     * HdrHistogram log (.hlog) and a percentile distribution (.hgrm). These can be compared
+     * across runs using the HdrHistogram tools, e.g. <a href="https://hdrhistogram.github.io/HdrHistogram/plotFiles.html">plotFiles</a>
+     * @param histogramDirectory the directory to write to, or null to not export
+     * @return this
+     */
+    public PerformanceBenchmark setHistogramDirectory(File histogramDirectory) {
+        this.histogramDirectory = histogramDirectory;
+        return this;
+    }
+
+    /**
+     * Run open loop: rather than each thread starting a detection as soon as the last finished,
+     * detections are scheduled at a fixed rate, and latency is measured from when a detection
+     * was scheduled to start. This means that time spent queued behind a stalled detection
+     * (e.g. during garbage collection) is counted, avoiding "coordinated omission".
+     * @param targetRate detections per second across all threads, 0 to run closed loop
+     * @param durationSeconds how long to run at the target rate
+     * @return this
+     */
+    public PerformanceBenchmark setTargetRate(double targetRate, int durationSeconds) {
+        this.targetRate = targetRate;
+        this.rateDurationSeconds = durationSeconds;
+        return this;
+    }
+
+    /**
+     * Starting from the target rate, repeatedly run open loop, increasing the rate by the
+     * factor given until less than {@link #SATURATION_THRESHOLD} of the target rate is achieved,
+     * to find the rate at which the configuration saturates.
+     * @param factor the factor by which to increase the rate on each step, greater than 1
+     * @return this
+     */
+    public PerformanceBenchmark setRateSweep(double factor) {
+        if (factor <= 1) {
+            throw new IllegalArgumentException("Rate sweep factor must be greater than 1");
+        }
+        if (targetRate <= 0) {
+            targetRate = DEFAULT_RATE_SWEEP_START;
+        }
+        this.rateSweepFactor = factor;
+        return this;
+    }
+
+    /**
+     * Run each benchmark using the threading models given, reporting the results side by side.
+     * Virtual threads require Java 21 or later, and are skipped if not supported.
+     * <p>
+     * The native engine pins a virtual thread to its carrier thread for the duration of a
+     * detection, so however many virtual threads there are, the number of concurrent
+     * detections is limited to the number of carrier threads. Run with
+     * <code>-Djdk.tracePinnedThreads=short</code> to see pinning.
+     * @param threadingModels platform and/or virtual
+     * @param numberOfVirtualThreads the number of virtual threads to use
+     * @return this
+     */
+    public PerformanceBenchmark setThreading(Threading[] threadingModels,
+                                             int numberOfVirtualThreads) {
+        List<Threading> supported = new ArrayList<>();
+        for (Threading threading : threadingModels) {
+            if (threading == Threading.VIRTUAL && !ExecutorHelper.isVirtualThreadSupported()) {
+                logger.warn("Virtual threads are not supported by Java {}, skipping",
+                        System.getProperty("java.version"));
+            } else {
+                supported.add(threading);
+            }
+        }
+        this.threadingModels = supported.toArray(new Threading[0]);
+        this.numberOfVirtualThreads = numberOfVirtualThreads;
+        return this;
+    }
+
+    /**
+     * Run each benchmark on 1, 2, 4 ... platform threads, doubling up to and including the
+     * maximum given, reporting the scaling efficiency at each step relative to a single thread.
+     * That is the detections per second on n threads divided by n times the detections per
+     * second on one thread, so 100% means perfect scaling.
+     * @param maxThreads the largest number of threads, usually the number of available processors
+     * @return this
+     */
+    public PerformanceBenchmark setThreadSweep(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Thread sweep maximum must be at least 1");
+        }
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(maxThreads);
+        this.threadCounts = counts;
+        return this;
+    }
+
+    /**
+     * Benchmark each configuration with each of the engine concurrency settings given,
+     * see {@link DeviceDetectionOnPremisePipelineBuilder#setConcurrency(int)}, rather
+     * than the setting needed by the number of threads. As the threads in a servlet
+     * container seldom match the setting, this shows the effect on throughput, latency
+     * and memory of over or under provisioning it. Combine with
+     * {@link #setThreadSweep(int)} to vary the number of threads too.
+     * @param concurrencies the concurrency settings, or null to match the threads
+     * @return this
+     */
+    public PerformanceBenchmark setConcurrencySweep(List<Integer> concurrencies) {
+        this.concurrencySweep = Objects.isNull(concurrencies) ?
+                null : new ConcurrencySweep(concurrencies);
+        return this;
+    }
+
+    /**
+     * The time taken to read the data file, build the pipeline and carry out the first
+     * detection are always reported, along with the peak memory used while loading. Set
+     * this to also report the time until throughput is steady, as seen by a newly started
+     * instance of a service, see {@link #setWarmUp(long, double)}.
+     * @param measureStartup true to measure the time to reach steady throughput
+     * @return this
+     */
+    public PerformanceBenchmark setMeasureStartup(boolean measureStartup) {
+        this.measureStartup = measureStartup;
+        return this;
+    }
+
+    /**
+     * Before measuring, each pipeline is warmed up by carrying out detections with the same
+     * threading model and the most threads the measurements use until throughput is
+     * steady, that is until the coefficient of variation of throughput over the last
+     * {@link SteadyStateDetector#DEFAULT_WINDOWS} windows is below the threshold, see
+     * {@link SteadyStateDetector}. The time this takes is reported. If
+     * throughput is not steady after {@link #MAX_STEADY_STATE_SECONDS} the benchmark goes
+     * ahead regardless.
+     * @param windowMillis the millis over which each window's throughput is measured, by
+     *                     default {@link #STEADY_STATE_WINDOW_MILLIS}
+     * @param threshold the coefficient of variation below which throughput is steady, by
+     *                  default {@link SteadyStateDetector#DEFAULT_THRESHOLD}
+     * @return this
+     */
+    public PerformanceBenchmark setWarmUp(long windowMillis, double threshold) {
+        if (windowMillis <= 0 || threshold <= 0) {
+            throw new IllegalArgumentException(
+                    "Warm up window and threshold must be greater than 0");
+        }
+        this.warmUpWindowMillis = windowMillis;
+        this.warmUpThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * As well as the overall bytes allocated and CPU time used per detection, measure
+     * these for each {@link Phase} of a detection: creating the flow data, adding evidence,
+     * processing, getting properties and closing the flow data. This shows which phase
+     * produces most garbage.
+     * <p>
+     * Measuring each phase adds to the time and allocation of a detection, so use the
+     * breakdown to compare phases rather than as absolute values.
+     * @param measurePhases true to measure each phase
+     * @return this
+     */
+    public PerformanceBenchmark setMeasurePhases(boolean measurePhases) {
+        if (measurePhases && ThreadCostMeter.getAllocatedBytes() < 0) {
+            logger.warn("Thread allocation is not measurable on this JVM");
+        }
+        this.measurePhases = measurePhases;
+        return this;
+    }
+
+    /**
+     * Write a summary of each benchmark run to the file given, as JSON if its name ends
+     * ".json", otherwise as CSV
+     * @param resultsFile the file to write, or null to not write results
+     * @return this
+     */
+    public PerformanceBenchmark setResultsFile(File resultsFile) {
+        this.resultsFile = resultsFile;
+        return this;
+    }
+
+    /**
+     * By default, only MaxPerformance configurations are benchmarked loaded from memory
+     * as well as from disk. Set this to benchmark every profile loaded both ways.
+     * @param memoryForAllProfiles true to load every profile from memory as well as disk
+     * @return this
+     */
+    public PerformanceBenchmark setMemoryForAllProfiles(boolean memoryForAllProfiles) {
+        this.memoryForAllProfiles = memoryForAllProfiles;
+        return this;
+    }
+
+    /**
+     * Create a configuration for each of the performance profiles named, using the predictive
+     * graph and requesting only "isMobile", so that the profiles can be compared
+     * @param profiles comma separated profile names, or "all" for every profile
+     * @return a configuration for each profile
+     */
+    public static PerformanceConfiguration[] getProfileConfigurations(String profiles) {
+        List<PerformanceConfiguration> configurations = new ArrayList<>();
+        if (profiles.equalsIgnoreCase("all")) {
+            for (Constants.PerformanceProfiles profile : Constants.PerformanceProfiles.values()) {
+                configurations.add(new PerformanceConfiguration(profile, false, false, true));
+            }
+        } else {
+            for (String profile : profiles.split(",")) {
+                configurations.add(new PerformanceConfiguration(
+                        Constants.PerformanceProfiles.valueOf(profile.trim()), false, false, true));
+            }
+        }
+        return configurations.toArray(new PerformanceConfiguration[0]);
+    }
+
+    /**
+     * Replay evidence captured from real traffic, see {@link EvidenceCorpus}, in place of
+     * the evidence file. The whole corpus is loaded, unless it is a
+     * {@link BinaryEvidenceCorpus} which is memory mapped. Replayed with its original timing,
+     * each record is scheduled at the time it was captured relative to the first, divided
+     * by the speed, the records being shared between the threads in turn. As when running
+     * at a fixed rate, latency is measured from when each detection was due. Otherwise the
+     * corpus is replayed as fast as possible.
+     * @param corpusFile the corpus file, or null to use the evidence file
+     * @param originalTiming true to replay with the original timing
+     * @param speed when replaying with the original timing, the factor to speed it up by
+     * @return this
+     */
+    public PerformanceBenchmark setCorpus(File corpusFile, boolean originalTiming, double speed) {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("Corpus speed must be greater than 0");
+        }
+        this.corpusFile = corpusFile;
+        this.corpusTiming = originalTiming;
+        this.corpusSpeed = speed;
+        return this;
+    }
+
+    /**
+     * Set the order in which each benchmark thread replays the evidence, see
+     * {@link ReplayStrategy}. The default is for every thread to replay all the evidence
+     * from the start. Finding the steady state and soak tests always start each thread at
+     * a different point in the evidence.
+     * @param replay the strategy to use
+     * @return this
+     */
+    public PerformanceBenchmark setReplay(ReplayStrategy replay) {
+        this.replay = replay;
+        return this;
+    }
+
+    /**
+     * Generate evidence, see {@link EvidenceGenerator}, by recombining the User-Agent and
+     * UA-CH headers of the evidence file, or of the corpus if set, rather than using it
+     * directly. The records are generated as they are needed, so sets of millions of
+     * records can be used without holding them in memory, though generating them is then
+     * part of each detection. Use with {@link #setDetectionsPerThread} and
+     * {@link #setReplay} to cover more of the records.
+     * @param records the number of records, or 0 to use the evidence directly
+     * @param clientHintsCoverage the proportion of records having UA-CH headers, or NaN for
+     *                            the proportion of the evidence which has them
+     * @param seed the seed, the same seed always generating the same records
+     * @return this
+     */
+    public PerformanceBenchmark setSynthetic(int records, double clientHintsCoverage, long seed) {
+        if (records < 0) {
+            throw new IllegalArgumentException("Number of records must not be negative");
+        }
+        this.syntheticRecords = records;
+        this.clientHintsCoverage = clientHintsCoverage;
+        this.syntheticSeed = seed;
+        return this;
+    }
+
+    /**
+     * Set the number of detections each thread carries out when running flat out. When
+     * running virtual threads, this many detections are shared between them for each
+     * platform thread that would have been run.
+     * @param detections the number of detections, the default being TESTS_PER_THREAD
+     * @return this
+     */
+    public PerformanceBenchmark setDetectionsPerThread(long detections) {
+        if (detections <= 0) {
+            throw new IllegalArgumentException("Number of detections must be greater than 0");
+        }
+        this.detectionsPerThread = detections;
+        return this;
+    }
+
+    /**
+     * Rather than running the benchmarks, run detections continuously on all threads for
+     * the duration given, to show degradation that only appears over time. Every window,
+     * the throughput and latency of the window are reported along with the heap used after
+     * the last garbage collection and the resident memory of the process. A window is
+     * flagged if heap or resident memory or the 99th percentile latency is drifting upward,
+     * or throughput is drifting downward, see {@link DriftDetector}. Open flow data are not
+     * counted, see {@link SoakTest}.
+     * @param durationSeconds how long to run each configuration for
+     * @param windowSeconds how often to report
+     * @param driftTolerance the fraction of its mean by which a measure may drift over
+     *                       {@link DriftDetector#DEFAULT_WINDOWS} windows
+     * @return this
+     */
+    public PerformanceBenchmark setSoak(int durationSeconds, int windowSeconds,
+                                        double driftTolerance) {
+        if (windowSeconds < 1 || durationSeconds < windowSeconds) {
+            throw new IllegalArgumentException(
+                    "Soak duration must be at least one window of at least 1 second");
+        }
+        this.soakSeconds = durationSeconds;
+        this.soakWindowSeconds = windowSeconds;
+        this.driftTolerance = driftTolerance;
+        return this;
+    }
+
+    /**
+     * Save the results of this run, to be used as the baseline for later runs
+     * @param saveBaselineFile the file to write, or null to not save
+     * @return this
+     */
+    public PerformanceBenchmark setSaveBaseline(File saveBaselineFile) {
+        this.saveBaselineFile = saveBaselineFile;
+        return this;
+    }
+
+    /**
+     * Compare the results of this run with a baseline saved by an earlier run. Each
+     * configuration whose throughput has fallen, or p99 latency risen, by more than the
+     * tolerance given is reported as a regression, see {@link #getRegressions()}. Run from
+     * the command line, a regression causes a non-zero exit code.
+     * @param baselineFile the baseline file to compare with, or null to not compare
+     * @param throughputTolerance the fraction by which throughput may fall e.g. 0.1
+     * @param p99Tolerance the fraction by which p99 latency may rise e.g. 0.2
+     * @return this
+     */
+    public PerformanceBenchmark setBaseline(File baselineFile,
+                                            double throughputTolerance,
+                                            double p99Tolerance) {
+        this.baselineFile = baselineFile;
+        this.throughputTolerance = throughputTolerance;
+        this.p99Tolerance = p99Tolerance;
+        return this;
+    }
+
+    /**
+     * @return the regressions found comparing the last run with the baseline, each naming
+     * the configuration which regressed
+     */
+    public List<String> getRegressions() {
+        return Collections.unmodifiableList(regressions);
+    }
+
+    /**
+     * Rather than running the benchmarks, check that each configuration gives the same
+     * results under contention as on a single thread, see {@link DetectionVerifier}. Every
+     * record of the evidence is detected on a single thread, then on each of the threads
+     * given, and the values of the properties compared. The default configurations cover
+     * both the performance and predictive graphs. Any mismatches are reported, see
+     * {@link #getVerificationFailures()}, and run from the command line cause a non-zero
+     * exit code.
+     * @param properties the names of the properties to compare, or null to benchmark
+     * @param threads the number of threads to detect on concurrently
+     * @return this
+     */
+    public PerformanceBenchmark setVerify(List<String> properties, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be greater than 0");
+        }
+        this.verifyProperties = properties;
+        this.verifyThreads = threads;
+        return this;
+    }
+
+    /**
+     * @return the mismatches found verifying the last run, each naming the configuration
+     */
+    public List<String> getVerificationFailures() {
+        return Collections.unmodifiableList(verificationFailures);
+    }
+
+    /**
+     * Run each configuration, loaded from memory and from disk, in its own child JVM so
+     * that JIT compilation, heap fragmentation and native memory left by earlier
+     * configurations can't affect later ones. Each child streams its output and results
+     * back, the results being reported together as when not forking.
+     * @param heap the initial and maximum heap of each child JVM e.g. "4g", or null for
+     *             the default
+     * @param options the command line options for each child, see {@link #main(String[])},
+     *                or null to run in this JVM
+     * @return this
+     */
+    public PerformanceBenchmark setFork(String heap, List<String> options) {
+        this.forkHeap = heap;
+        this.forkArguments = options;
+        return this;
     }
 
     /**
@@ -102,9 +768,10 @@ public class PerformanceBenchmark {
      * @param dataFilename     path to the 51Degrees device data file for testing
      * @param evidenceFilename path to a text file of evidence
      * @param numberOfThreads  number of concurrent threads
+     * @return a summary of each benchmark run
      * @throws Exception as a catch all
      */
-    protected void runBenchmarks(PerformanceConfiguration[] performanceConfigurations,
+    protected List<BenchmarkSummary> runBenchmarks(PerformanceConfiguration[] performanceConfigurations,
                                  String dataFilename,
                                  String evidenceFilename,
                                  int numberOfThreads,
@@ -113,27 +780,246 @@ public class PerformanceBenchmark {
         logger.info("Running Performance example");
 
         this.dataFileLocation = getDataFileLocation(dataFilename);
-
-        File evidenceFile = getEvidenceFile(evidenceFilename);
-        this.evidence = Collections.unmodifiableList(
-                EvidenceHelper.getEvidenceList(evidenceFile, 20000));
         this.numberOfThreads = numberOfThreads;
         this.writer = writer;
+        this.summaries.clear();
+        this.regressions.clear();
+        this.verificationFailures.clear();
+
+        if (Objects.nonNull(forkArguments)) {
+            // the child JVMs load the evidence and run the benchmarks
+            reportResults(runForked(performanceConfigurations, evidenceFilename));
+            logger.info("Finished Performance example");
+            return new ArrayList<>(summaries);
+        }
+
+        this.timestamps = null;
+        if (Objects.nonNull(corpusFile)) {
+            long[] captured = loadCorpus();
+            if (corpusTiming && captured.length > 1 &&
+                    captured[captured.length - 1] > captured[0]) {
+                this.timestamps = captured;
+                // the average rate of the original traffic, sped up
+                this.targetRate = corpusSpeed * 1000.0 * (captured.length - 1) /
+                        (captured[captured.length - 1] - captured[0]);
+            } else if (corpusTiming) {
+                logger.warn("Corpus has no timing to replay, replaying as fast as possible");
+            }
+        } else {
+            File evidenceFile = getEvidenceFile(evidenceFilename);
+            this.evidence = Collections.unmodifiableList(
+                    EvidenceHelper.getEvidenceList(evidenceFile, Integer.MAX_VALUE));
+        }
+        if (syntheticRecords > 0) {
+            EvidenceGenerator generator = new EvidenceGenerator(evidence).setSeed(syntheticSeed);
+            if (!Double.isNaN(clientHintsCoverage)) {
+                generator.setClientHintsCoverage(clientHintsCoverage);
+            }
+            logger.info("Generating {} records from {} with coverage {}",
+                    syntheticRecords, evidence.size(), generator.getCoverage());
+            this.evidence = generator.generate(syntheticRecords);
+            this.timestamps = null;
+        }
+
+        if (Objects.nonNull(forkedLoading)) {
+            // running in a child JVM, see runForked
+            for (PerformanceConfiguration config : performanceConfigurations) {
+                executeBenchmarks(forkedLoading.equals("disk"), config);
+            }
+            for (BenchmarkSummary summary : summaries) {
+                ForkedResults.writeResult(writer, summary.toMap(), summary.latency);
+            }
+            for (String failure : verificationFailures) {
+                ForkedResults.writeVerificationFailure(writer, failure);
+            }
+            return new ArrayList<>(summaries);
+        }
 
         // run "from memory" benchmarks - the only profiles that really make sense
-        // are maxPerformance
+        // are maxPerformance, unless comparing all the profiles
         for (PerformanceConfiguration config: performanceConfigurations){
-            if (config.profile.equals(MaxPerformance)) {
-                executeBenchmark(false, config);
+            if (memoryForAllProfiles || config.profile.equals(MaxPerformance)) {
+                executeBenchmarks(false, config);
             }
         }
 
         // run the selected benchmarks from disk
         for (PerformanceConfiguration config: performanceConfigurations){
-            executeBenchmark(true, config);
+            executeBenchmarks(true, config);
         }
 
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (BenchmarkSummary summary : summaries) {
+            results.add(summary.toMap());
+        }
+        reportResults(results);
+
         logger.info("Finished Performance example");
+        return new ArrayList<>(summaries);
+    }
+
+    /**
+     * Compare the results of the configurations, write them to the results file, and
+     * compare them with, or save them as, the baseline
+     * @param results the results, as columns for writing with {@link ResultsWriter}
+     * @throws Exception on file errors
+     */
+    private void reportResults(List<Map<String, Object>> results) throws Exception {
+        if (results.size() > 1) {
+            // compare the configurations, e.g. to trade off memory against speed
+            for (Map<String, Object> result : results) {
+                writer.format("Summary: %s, Detections per second: %,d, p99 microsecs: %.1f, " +
+                                "Heap MB: %s, Resident MB: %s%n",
+                        result.get("label"),
+                        Math.round(getDouble(result, "detectionsPerSecond")),
+                        getDouble(result, "p99Micros"),
+                        MemoryHelper.toMegabytes(Math.round(getDouble(result, "heapBytes"))),
+                        MemoryHelper.toMegabytes(Math.round(getDouble(result, "residentBytes"))));
+            }
+            writer.println();
+        }
+
+        if (Objects.nonNull(resultsFile)) {
+            ResultsWriter.write(resultsFile, results);
+            logger.info("Results written to {}", resultsFile.getAbsolutePath());
+        }
+        if (Objects.nonNull(baselineFile)) {
+            compareWithBaseline(results);
+        }
+        if (Objects.nonNull(saveBaselineFile)) {
+            Baseline.save(saveBaselineFile, results);
+            logger.info("Baseline written to {}", saveBaselineFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @param result a result, as columns for writing with {@link ResultsWriter}
+     * @param column the column
+     * @return the value of the column, or -1 if missing
+     */
+    private static double getDouble(Map<String, Object> result, String column) {
+        Object value = result.get(column);
+        return value instanceof Number ? ((Number) value).doubleValue() : -1;
+    }
+
+    /**
+     * Run each configuration, loaded from memory and from disk as when not forking, in its
+     * own child JVM, see {@link #setFork(String, List)}. The output of each child is written
+     * as it runs, and the results of each returned to be reported together. The summaries
+     * and verification failures of the children are gathered as if run in this JVM.
+     * @param configurations the configurations to run
+     * @param evidenceFilename the evidence file, or null for the default
+     * @return the results of every child
+     * @throws Exception on errors starting the children or reading their results
+     */
+    private List<Map<String, Object>> runForked(PerformanceConfiguration[] configurations,
+                                                String evidenceFilename) throws Exception {
+        // the evidence file is only needed when not replaying a corpus, in which case the
+        // corpus fills its place in the child's arguments
+        String evidence = Objects.isNull(corpusFile) || Objects.nonNull(evidenceFilename) ?
+                getEvidenceFile(evidenceFilename).getAbsolutePath() :
+                corpusFile.getAbsolutePath();
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String loading : new String[]{"memory", "disk"}) {
+            for (PerformanceConfiguration config : configurations) {
+                if (loading.equals("memory") &&
+                        !memoryForAllProfiles && !config.profile.equals(MaxPerformance)) {
+                    continue;
+                }
+                List<String> arguments = new ArrayList<>(Arrays.asList(
+                        dataFileLocation, evidence, Integer.toString(numberOfThreads)));
+                arguments.addAll(forkArguments);
+                arguments.add("--configurations=" + config);
+                arguments.add("--forked=" + loading);
+                logger.info("Running {} loaded from {} in a child JVM with heap {}",
+                        config, loading, Objects.isNull(forkHeap) ? "default" : forkHeap);
+
+                ForkedResults forked = new ForkedResults(writer::println);
+                int exitCode = ForkHelper.run(
+                        PerformanceBenchmark.class, forkHeap, arguments, forked);
+                if (exitCode != 0) {
+                    throw new IllegalStateException("Child JVM running " + config +
+                            " loaded from " + loading + " exited with code " + exitCode);
+                }
+                for (ForkedResults.Result result : forked.getResults()) {
+                    results.add(result.getColumns());
+                    summaries.add(BenchmarkSummary.fromMap(
+                            result.getColumns(), result.getLatency()));
+                }
+                verificationFailures.addAll(forked.getVerificationFailures());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Load the corpus into {@link #evidence}. A binary corpus is memory mapped, its records
+     * being decoded as they are read, so a corpus of millions of records need not fit in
+     * the heap. Decoding the values is then part of each detection, as reading the headers
+     * of a request would be.
+     * @return the time each record was captured
+     * @throws IOException on file errors
+     */
+    private long[] loadCorpus() throws IOException {
+        if (BinaryEvidenceCorpus.isBinaryCorpus(corpusFile)) {
+            // the memory map remains valid once the corpus is closed
+            try (BinaryEvidenceCorpus corpus = BinaryEvidenceCorpus.open(corpusFile)) {
+                List<Map<String, String>> records = corpus.asList(Integer.MAX_VALUE);
+                logger.info("Replaying {} records from binary corpus {}",
+                        records.size(), corpusFile);
+                this.evidence = Collections.unmodifiableList(records);
+                long[] captured = new long[corpusTiming ? records.size() : 0];
+                for (int i = 0; i < captured.length; i++) {
+                    captured[i] = ((BinaryEvidenceCorpus.Record) records.get(i)).getTimestamp();
+                }
+                return captured;
+            }
+        }
+        EvidenceCorpus corpus = EvidenceCorpus.read(corpusFile, Integer.MAX_VALUE);
+        logger.info("Replaying {} records from {}", corpus.size(), corpusFile);
+        this.evidence = Collections.unmodifiableList(corpus.getEvidence());
+        return corpus.getTimestamps();
+    }
+
+    /**
+     * Compare results with the baseline, reporting any regressions
+     * @param results the results of this run
+     * @throws Exception on file errors
+     */
+    private void compareWithBaseline(List<Map<String, Object>> results) throws Exception {
+        Baseline baseline = Baseline.load(baselineFile);
+        for (Map<String, Object> result : results) {
+            if (!baseline.getLabels().contains(String.valueOf(result.get("label")))) {
+                logger.warn("No baseline for {}", result.get("label"));
+            }
+        }
+        regressions.addAll(baseline.compare(results, throughputTolerance, p99Tolerance));
+        for (String regression : regressions) {
+            writer.println("Regression: " + regression);
+        }
+        if (regressions.isEmpty()) {
+            writer.format("Baseline: no regressions compared with %s%n", baselineFile);
+        }
+        writer.println();
+    }
+
+    /**
+     * Execute the benchmark for the configuration, with each engine concurrency setting
+     * if sweeping them, see {@link #setConcurrencySweep(List)}
+     * @param configureFromDisk configure the pipeline from disk or from buffer
+     * @param config the configuration to use for this benchmark
+     * @throws Exception to satisfy underlying calls
+     */
+    private void executeBenchmarks(boolean configureFromDisk,
+                                   PerformanceConfiguration config) throws Exception {
+        if (Objects.isNull(concurrencySweep)) {
+            executeBenchmark(configureFromDisk, config);
+            return;
+        }
+        concurrencySweep.run(() -> {
+            logger.info("Engine concurrency {}", concurrencySweep.getConcurrency());
+            executeBenchmark(configureFromDisk, config);
+        });
     }
 
     /**
@@ -156,46 +1042,353 @@ public class PerformanceBenchmark {
                 config.predictiveGraph);
 
         Pipeline pipeline = null;
+        StartupSummary startup = new StartupSummary();
+        int firstSummary = summaries.size();
         try {
-            if (configureFromDisk) {
-                logger.info("Load from disk");
-                DeviceDetectionOnPremisePipelineBuilder builder = new DeviceDetectionPipelineBuilder()
-                        // load from disk
-                        .useOnPremise(dataFileLocation, false);
+            long loadStart = System.nanoTime();
+            PeakMemorySampler sampler = new PeakMemorySampler();
+            try {
+                if (configureFromDisk) {
+                    logger.info("Load from disk");
+                    DeviceDetectionOnPremisePipelineBuilder builder = new DeviceDetectionPipelineBuilder()
+                            // load from disk
+                            .useOnPremise(dataFileLocation, false);
 
-                setPipelinePerformanceProperties(builder, config);
-                pipeline = builder.build();
+                    setPipelineProperties(builder, config);
+                    pipeline = builder.build();
+                    startup.buildMillis = millisSince(loadStart);
+                } else {
+                    logger.info("Load memory from {}", dataFileLocation);
+                    byte[] fileContent = Files.readAllBytes(new File(dataFileLocation).toPath());
+                    startup.fileReadMillis = millisSince(loadStart);
+                    logger.info("Memory loaded");
 
-                DataFileHelper.logDataFileInfo(pipeline.getElement(DeviceDetectionHashEngine.class));
-            } else {
-                logger.info("Load memory from {}", dataFileLocation);
-                byte[] fileContent = Files.readAllBytes(new File(dataFileLocation).toPath());
-                logger.info("Memory loaded");
+                    long buildStart = System.nanoTime();
+                    // create a pipeline builder
+                    DeviceDetectionOnPremisePipelineBuilder builder = new DeviceDetectionPipelineBuilder()
+                            // load from buffer
+                            .useOnPremise(fileContent);
+
+                    setPipelineProperties(builder, config);
+                    pipeline = builder.build();
+                    startup.buildMillis = millisSince(buildStart);
+                }
+            } finally {
+                sampler.close();
+            }
+            startup.peakHeapBytes = sampler.getPeakHeapBytes();
+            startup.peakResidentBytes = sampler.getPeakResidentBytes();
+            events = DetectionEvents.forPipeline(pipeline, config.profile.name());
 
-                // create a pipeline builder
-                DeviceDetectionOnPremisePipelineBuilder builder = new DeviceDetectionPipelineBuilder()
-                        // load from buffer
-                        .useOnPremise(fileContent);
+            long detectionStart = System.nanoTime();
+            detectOnce(pipeline, events, evidence.get(0));
+            startup.firstDetectionMicros = (System.nanoTime() - detectionStart) / 1000.0;
+            if (measureStartup || Objects.isNull(verifyProperties)) {
+                // warm up until throughput is steady, rather than for a fixed number of
+                // detections, so that the JIT compiler has finished with the detection path
+                // on the threads the first measurement is run on
+                Threading threading = soakSeconds > 0 || Objects.nonNull(verifyProperties) ?
+                        Threading.PLATFORM : threadingModels[0];
+                int threads = getWarmUpThreads(threading);
+                logger.info("Warming up on {} {} threads", threads,
+                        threading.name().toLowerCase(Locale.ROOT));
+                long warmUpStart = System.nanoTime();
+                double steadyStateMillis = runUntilSteady(pipeline, loadStart, threading, threads);
+                startup.warmUpMillis = millisSince(warmUpStart);
+                if (measureStartup) {
+                    startup.steadyStateMillis = steadyStateMillis;
+                }
+            }
+            writer.format("Startup: File read millis: %s, Build millis: %.0f, " +
+                            "First detection microsecs: %.0f, Steady state millis: %s, " +
+                            "Warm up millis: %s, Peak heap MB: %s, Peak resident MB: %s%n",
+                    Double.isNaN(startup.fileReadMillis) ?
+                            "n/a" : String.format("%.0f", startup.fileReadMillis),
+                    startup.buildMillis,
+                    startup.firstDetectionMicros,
+                    Double.isNaN(startup.steadyStateMillis) ?
+                            "n/a" : String.format("%.0f", startup.steadyStateMillis),
+                    Double.isNaN(startup.warmUpMillis) ?
+                            "n/a" : String.format("%.0f", startup.warmUpMillis),
+                    MemoryHelper.toMegabytes(startup.peakHeapBytes),
+                    MemoryHelper.toMegabytes(startup.peakResidentBytes));
+            writer.println();
+            if (configureFromDisk) {
+                DataFileHelper.logDataFileInfo(pipeline.getElement(DeviceDetectionHashEngine.class));
+            }
 
-                setPipelinePerformanceProperties(builder, config);
-                pipeline = builder.build();
+            if (Objects.nonNull(verifyProperties)) {
+                runVerification(pipeline, config, configureFromDisk);
+                return;
             }
 
-            // run the benchmarks twice, once to warm up the JVM
-            logger.info("Warming up");
-            runTests(pipeline);
+            // start the benchmarks with as little garbage as possible
             System.gc();
-            Thread.sleep(300);
 
-            logger.info("Running");
-            long executionTime = runTests(pipeline);
-            logger.info("Finished - Execution time was {} ms", executionTime);
+            if (soakSeconds > 0) {
+                runSoak(pipeline, config, configureFromDisk);
+                return;
+            }
+
+            List<BenchmarkSummary> configSummaries = new ArrayList<>();
+            for (Threading threading : threadingModels) {
+                if (threading != threadingModels[0]) {
+                    // warm up the executor of this threading model too
+                    logger.info("Warming up on {} threads",
+                            threading.name().toLowerCase(Locale.ROOT));
+                    runUntilSteady(pipeline, System.nanoTime(), threading,
+                            getWarmUpThreads(threading));
+                }
+                if (rateSweepFactor > 1) {
+                    runRateSweep(pipeline, config, configureFromDisk, threading);
+                    continue;
+                }
+                BenchmarkSummary baseline = null;
+                for (int threads : getThreadCounts(threading)) {
+                    logger.info("Running on {} {} threads", threads,
+                            threading.name().toLowerCase(Locale.ROOT));
+                    long executionTime = runTests(pipeline, targetRate, threading, threads);
+                    logger.info("Finished - Execution time was {} ms", executionTime);
+                    BenchmarkSummary summary =
+                            doReport(config, configureFromDisk, threading, targetRate);
+                    if (Objects.nonNull(threadCounts) && threading == Threading.PLATFORM) {
+                        // compare with perfect scaling from the fewest threads run
+                        if (Objects.isNull(baseline)) {
+                            baseline = summary;
+                        }
+                        summary.scalingEfficiency = summary.detectionsPerSecond /
+                                (baseline.detectionsPerSecond * summary.threads / baseline.threads);
+                    }
+                    configSummaries.add(summary);
+                }
+            }
+            if (configSummaries.size() > 1) {
+                for (BenchmarkSummary summary : configSummaries) {
+                    writer.format("Threading: %s, %,d threads, Detections per second: %,d, " +
+                                    "p99 microsecs: %.1f",
+                            summary.label,
+                            summary.threads,
+                            Math.round(summary.detectionsPerSecond),
+                            summary.latency.getValueAtPercentile(99.0) / 1000.0);
+                    if (!Double.isNaN(summary.scalingEfficiency)) {
+                        writer.format(", Scaling efficiency: %.0f%%",
+                                summary.scalingEfficiency * 100);
+                    }
+                    writer.println();
+                }
+                writer.println();
+            }
         } finally {
+            for (BenchmarkSummary summary : summaries.subList(firstSummary, summaries.size())) {
+                summary.startup = startup;
+            }
             if (Objects.nonNull(pipeline)) {
                 pipeline.close();
             }
         }
-        doReport();
+    }
+
+    /**
+     * @param startNanos a value of System.nanoTime()
+     * @return millis elapsed since then
+     */
+    private static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e6;
+    }
+
+    /**
+     * Carry out a single detection outside a benchmark
+     * @param pipeline the pipeline to use
+     * @param events records JFR events for the detection
+     * @param evidence the evidence for the detection
+     * @return the hash code of the value of IsMobile, or 0 if there isn't one
+     * @throws Exception from the pipeline
+     */
+    private static int detectOnce(Pipeline pipeline,
+                                  DetectionEvents events,
+                                  Map<String, String> evidence) throws Exception {
+        // A try-with-resource block MUST be used for the
+        // FlowData instance.
+        try (FlowData flowData = events.createFlowData(pipeline)) {
+            events.process(events.addEvidence(flowData, evidence));
+            DeviceData device = flowData.get(DeviceData.class);
+            if (device != null) {
+                AspectPropertyValue<Boolean> isMobile =
+                        events.get(flowData, "IsMobile", device::getIsMobile);
+                if (isMobile.hasValue()) {
+                    return Objects.hashCode(isMobile.getValue());
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * @param threading a threading model being measured
+     * @return the most threads measurements are run on with the threading model, so that
+     * warm up is under the same contention
+     */
+    private int getWarmUpThreads(Threading threading) {
+        if (Objects.nonNull(verifyProperties)) {
+            return verifyThreads;
+        }
+        if (soakSeconds > 0 || rateSweepFactor > 1) {
+            return threading == Threading.VIRTUAL ? numberOfVirtualThreads : numberOfThreads;
+        }
+        return Collections.max(getThreadCounts(threading));
+    }
+
+    /**
+     * Carry out detections continuously on all threads, measuring throughput in windows
+     * until it is steady, see {@link #setWarmUp(long, double)}, or for at most
+     * {@link #MAX_STEADY_STATE_SECONDS}
+     * @param pipeline the pipeline to use
+     * @param loadStart the System.nanoTime() loading the pipeline started
+     * @param threading the threading model, the same as the measurement which follows
+     * @param threads the number of threads
+     * @return millis from the start of loading to the start of the first of the steady
+     * windows, or NaN if throughput did not become steady
+     * @throws Exception to satisfy called APIs, or if detection fails on any thread
+     */
+    private double runUntilSteady(Pipeline pipeline,
+                                  long loadStart,
+                                  Threading threading,
+                                  int threads) throws Exception {
+        WarmUp warmUp = new WarmUp(warmUpWindowMillis, warmUpThreshold,
+                TimeUnit.SECONDS.toMillis(MAX_STEADY_STATE_SECONDS));
+        try (ContinuousLoad load = newLoad(pipeline, threading, threads)) {
+            if (warmUp.run(load)) {
+                logger.info("Steady at {} detections per second",
+                        Math.round(warmUp.getThroughput()));
+                return (warmUp.getSteadyStart() - loadStart) / 1e6;
+            }
+        }
+        logger.warn("Throughput not steady after {} seconds", MAX_STEADY_STATE_SECONDS);
+        return Double.NaN;
+    }
+
+    /**
+     * Start carrying out detections continuously, for warm up or a soak test
+     * @param pipeline the pipeline to use
+     * @param threading the threading model
+     * @param threads the number of threads
+     * @return the load, which the caller must close
+     */
+    private ContinuousLoad newLoad(Pipeline pipeline, Threading threading, int threads) {
+        return new ContinuousLoad(evidence, e -> detectOnce(pipeline, events, e),
+                threading, threads, HISTOGRAM_SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * @return the engine concurrency setting if sweeping them, otherwise the most detections
+     * that can be in progress at once, during warm up on platform threads or with any of the
+     * threading models being run
+     */
+    private int getConcurrency() {
+        if (Objects.nonNull(concurrencySweep) && concurrencySweep.getConcurrency() > 0) {
+            return concurrencySweep.getConcurrency();
+        }
+        int concurrency = numberOfThreads;
+        if (Objects.nonNull(verifyProperties)) {
+            concurrency = Math.max(concurrency, verifyThreads);
+        }
+        if (Objects.nonNull(threadCounts)) {
+            concurrency = Math.max(concurrency, Collections.max(threadCounts));
+        }
+        for (Threading threading : threadingModels) {
+            concurrency = Math.max(concurrency, ExecutorHelper.getConcurrency(threading,
+                    threading == Threading.VIRTUAL ? numberOfVirtualThreads : numberOfThreads));
+        }
+        return concurrency;
+    }
+
+    /**
+     * Verify that the results on many threads match those on a single thread, see
+     * {@link #setVerify(List, int)}
+     * @param pipeline the pipeline to use
+     * @param config the configuration of the pipeline
+     * @param configureFromDisk whether the pipeline was configured from disk or from buffer
+     * @throws Exception to satisfy called APIs
+     */
+    private void runVerification(Pipeline pipeline,
+                                 PerformanceConfiguration config,
+                                 boolean configureFromDisk) throws Exception {
+        String label = getLabel(config, configureFromDisk, Threading.PLATFORM, verifyThreads, 0);
+        DetectionVerifier verifier = new DetectionVerifier(pipeline, evidence, verifyProperties);
+        logger.info("Finding reference results on a single thread");
+        verifier.runReference();
+        logger.info("Verifying results on {} threads", verifyThreads);
+        DetectionVerifier.Result result = verifier.verify(Threading.PLATFORM, verifyThreads);
+        verificationFailures.addAll(verifier.report(result, label, verifyThreads, writer));
+        writer.println();
+    }
+
+    /**
+     * Carry out detections continuously on all threads for the soak duration, reporting
+     * each window, see {@link #setSoak(int, int, double)}
+     * @param pipeline the pipeline to use
+     * @param config the configuration of the pipeline
+     * @param configureFromDisk whether the pipeline was configured from disk or from buffer
+     * @throws Exception to satisfy called APIs
+     */
+    private void runSoak(Pipeline pipeline,
+                         PerformanceConfiguration config,
+                         boolean configureFromDisk) throws Exception {
+        logger.info("Soak testing for {} seconds", soakSeconds);
+        SoakTest soak = new SoakTest(TimeUnit.SECONDS.toMillis(soakSeconds),
+                TimeUnit.SECONDS.toMillis(soakWindowSeconds), driftTolerance);
+        SoakTest.Result result;
+        try (ContinuousLoad load = newLoad(pipeline, Threading.PLATFORM, numberOfThreads)) {
+            result = soak.run(load, writer);
+        }
+
+        BenchmarkSummary summary = new BenchmarkSummary(
+                getLabel(config, configureFromDisk, Threading.PLATFORM, numberOfThreads, 0) +
+                        "-soak",
+                config, configureFromDisk, Threading.PLATFORM, numberOfThreads, 0,
+                result.getLatency().getTotalCount(), result.getDetectionsPerSecond(),
+                result.getLatency());
+        summary.engineConcurrency = getConcurrency();
+        summary.heapBytes = MemoryHelper.getHeapUsedAfterGc();
+        summary.residentBytes = MemoryHelper.getResidentBytes();
+        summary.driftWindows = result.getDriftWindows();
+        summaries.add(summary);
+    }
+
+    /**
+     * @param threading the threading model
+     * @return the numbers of threads to run each benchmark on using the threading model
+     */
+    private List<Integer> getThreadCounts(Threading threading) {
+        if (threading == Threading.VIRTUAL) {
+            return Collections.singletonList(numberOfVirtualThreads);
+        }
+        return Objects.nonNull(threadCounts) ?
+                threadCounts : Collections.singletonList(numberOfThreads);
+    }
+
+    /**
+     * Run open loop at increasing rates until the target rate can no longer be sustained
+     * @param pipeline the pipeline to use
+     * @param config the configuration of the pipeline
+     * @param configureFromDisk whether the pipeline was configured from disk or from buffer
+     * @param threading the threading model to use
+     * @throws Exception to satisfy called APIs
+     */
+    private void runRateSweep(Pipeline pipeline,
+                              PerformanceConfiguration config,
+                              boolean configureFromDisk,
+                              Threading threading) throws Exception {
+        int threads = threading == Threading.VIRTUAL ? numberOfVirtualThreads : numberOfThreads;
+        RateSweep sweep = new RateSweep(targetRate, rateSweepFactor, SATURATION_THRESHOLD);
+        sweep.run(rate -> {
+            logger.info("Running at {} detections per second", Math.round(rate));
+            runTests(pipeline, rate, threading, threads);
+            return doReport(config, configureFromDisk, threading, rate).detectionsPerSecond;
+        });
+        writer.format("Saturation: sustained %,d detections per second, saturated at %,d%n",
+                Math.round(sweep.getSustainedRate()), Math.round(sweep.getSaturatedRate()));
+        writer.println();
     }
 
     /**
@@ -207,10 +1400,12 @@ public class PerformanceBenchmark {
      * for more information about adjusting performance.
      * @param builder          the builder to configure
      * @param config benchmark configuration
+     * @param concurrency hint for the number of concurrent detections
      */
-    private void setPipelinePerformanceProperties(
+    public static void setPipelinePerformanceProperties(
             DeviceDetectionOnPremisePipelineBuilder builder,
-            PerformanceConfiguration config) {
+            PerformanceConfiguration config,
+            int concurrency) {
         // the different profiles provide for trading off memory usage
         builder.setPerformanceProfile(config.profile)
         // set this to false for testing
@@ -218,7 +1413,7 @@ public class PerformanceBenchmark {
         // set this to false for testing
         .setShareUsage(false)
         // hint for cache concurrency
-        .setConcurrency(numberOfThreads);
+        .setConcurrency(concurrency);
         // performance is improved by selecting only the properties you intend to use
         // Requesting properties from a single component
         // reduces detection time compared with requesting properties from multiple components.
@@ -233,50 +1428,251 @@ public class PerformanceBenchmark {
         builder.setUsePredictiveGraph(config.predictiveGraph);
     }
 
+    /**
+     * Set the performance settings of the pipeline, also requesting the properties verified
+     * when the configuration requests just "isMobile", as otherwise the others are unknown
+     * on every thread and always match
+     * @param builder the builder to configure
+     * @param config benchmark configuration
+     */
+    private void setPipelineProperties(DeviceDetectionOnPremisePipelineBuilder builder,
+                                       PerformanceConfiguration config) {
+        setPipelinePerformanceProperties(builder, config, getConcurrency());
+        if (Objects.nonNull(verifyProperties) && BooleanUtils.isFalse(config.allProperties)) {
+            for (String property : verifyProperties) {
+                builder.setProperty(property);
+            }
+        }
+    }
+
     /**
      * Report per thread and overall detection performance
+     * @param config the configuration of the pipeline
+     * @param configureFromDisk whether the pipeline was configured from disk or from buffer
+     * @param threading the threading model used
+     * @param rate the target rate of detections per second, or 0 if run closed loop
+     * @return a summary of the results, which is also added to those reported at the end
      * @throws Exception to satisfy needs of called APIs
      */
-    private void doReport() throws Exception {
+    private BenchmarkSummary doReport(PerformanceConfiguration config,
+                                      boolean configureFromDisk,
+                                      Threading threading,
+                                      double rate) throws Exception {
+        long maxMillis = 0;
         long totalMillis = 0;
         long totalChecks = 0;
         int checksum = 0;
+        long allocatedBytes = 0;
+        long cpuNanos = 0;
+        ThreadCostMeter phases = measurePhases ? new ThreadCostMeter() : null;
+        // the per thread latencies merged
+        Histogram latency = new Histogram(HISTOGRAM_SIGNIFICANT_DIGITS);
         for (Future<BenchmarkResult> result : resultList) {
             BenchmarkResult bmr = result.get();
 
-            writer.format("Thread:  %,d detections, elapsed %f seconds, %,d Detections per second%n",
+            writer.format("Thread:  %,d detections, elapsed %f seconds, %,d Detections per second, " +
+                            "p99 %.1f microsecs%n",
                     bmr.count,
                     bmr.elapsedMillis/1000.0,
-                    (Math.round(1000.0 * bmr.count/ bmr.elapsedMillis)));
+                    (Math.round(1000.0 * bmr.count/ bmr.elapsedMillis)),
+                    bmr.histogram.getValueAtPercentile(99.0) / 1000.0);
 
+            maxMillis = Math.max(maxMillis, bmr.elapsedMillis);
             totalMillis += bmr.elapsedMillis;
             totalChecks += bmr.count;
             checksum += bmr.checkSum;
+            // a thread which could not be measured makes the total unknown
+            allocatedBytes = bmr.allocatedBytes < 0 || allocatedBytes < 0 ?
+                    -1 : allocatedBytes + bmr.allocatedBytes;
+            cpuNanos = bmr.cpuNanos < 0 || cpuNanos < 0 ? -1 : cpuNanos + bmr.cpuNanos;
+            if (Objects.nonNull(phases) && Objects.nonNull(bmr.meter)) {
+                phases.add(bmr.meter);
+            }
+            latency.add(bmr.histogram);
+            // the merged histogram spans all the threads
+            latency.setStartTimeStamp(Math.min(latency.getStartTimeStamp(),
+                    bmr.histogram.getStartTimeStamp()));
+            latency.setEndTimeStamp(Math.max(latency.getEndTimeStamp(),
+                    bmr.histogram.getEndTimeStamp()));
         }
 
         // output the results from the benchmark to the console
-        double millisPerTest = ((double) totalMillis / (numberOfThreads * totalChecks));
-        writer.format("Overall: %,d detections, Average millisecs per detection: %f, Detections per second: %,d\n",
-                totalChecks, millisPerTest, Math.round(1000.0/millisPerTest));
-        writer.format("Overall: Concurrent threads: %d, Checksum: %x \n", numberOfThreads, checksum);
+        int threads = resultList.size();
+        double detectionsPerSecond;
+        if (rate > 0) {
+            // elapsed time is set by the schedule, so only the rate achieved is meaningful
+            detectionsPerSecond = 1000.0 * totalChecks / Math.max(1, maxMillis);
+            writer.format("Overall: %,d detections, Target detections per second: %,d, Achieved: %,d\n",
+                    totalChecks, Math.round(rate), Math.round(detectionsPerSecond));
+            writer.println("Overall: Latency is measured from the scheduled start of each detection");
+        } else {
+            double millisPerTest = ((double) totalMillis / (threads * totalChecks));
+            detectionsPerSecond = 1000.0 / millisPerTest;
+            writer.format("Overall: %,d detections, Average millisecs per detection: %f, Detections per second: %,d\n",
+                    totalChecks, millisPerTest, Math.round(detectionsPerSecond));
+        }
+        writer.format("Overall: Concurrent threads: %d, Checksum: %x \n", threads, checksum);
+        writer.format("Overall: Latency microsecs p50: %.1f, p90: %.1f, p99: %.1f, p99.9: %.1f, max: %.1f%n",
+                latency.getValueAtPercentile(50.0) / 1000.0,
+                latency.getValueAtPercentile(90.0) / 1000.0,
+                latency.getValueAtPercentile(99.0) / 1000.0,
+                latency.getValueAtPercentile(99.9) / 1000.0,
+                latency.getMaxValue() / 1000.0);
+        double bytesPerDetection = allocatedBytes < 0 || totalChecks == 0 ?
+                Double.NaN : (double) allocatedBytes / totalChecks;
+        double cpuMicrosPerDetection = cpuNanos < 0 || totalChecks == 0 ?
+                Double.NaN : cpuNanos / 1000.0 / totalChecks;
+        writer.format("Overall: Allocated bytes per detection: %s, CPU microsecs per detection: %s%n",
+                Double.isNaN(bytesPerDetection) ? "n/a" : String.format("%,.0f", bytesPerDetection),
+                Double.isNaN(cpuMicrosPerDetection) ? "n/a" : String.format("%.1f", cpuMicrosPerDetection));
+        if (Objects.nonNull(phases) && totalChecks > 0) {
+            for (Phase phase : Phase.values()) {
+                writer.format("Phase: %s, Allocated bytes per detection: %,.0f, " +
+                                "CPU microsecs per detection: %.2f%n",
+                        phase.label,
+                        (double) phases.getAllocatedBytes(phase) / totalChecks,
+                        phases.getCpuNanos(phase) / 1000.0 / totalChecks);
+            }
+        }
+        // the pipeline is still open, so this is the memory used with it loaded
+        long heapBytes = MemoryHelper.getHeapUsedAfterGc();
+        long residentBytes = MemoryHelper.getResidentBytes();
+        writer.format("Overall: Heap used MB: %s, Resident MB: %s%n",
+                MemoryHelper.toMegabytes(heapBytes),
+                MemoryHelper.toMegabytes(residentBytes));
         writer.println();
+
+        String label = getLabel(config, configureFromDisk, threading, threads, rate);
+        if (Objects.nonNull(histogramDirectory)) {
+            exportHistogram(latency, label);
+        }
+        BenchmarkSummary summary = new BenchmarkSummary(label, config, configureFromDisk,
+                threading, threads, rate, totalChecks, detectionsPerSecond, latency);
+        summary.replay = replay;
+        summary.engineConcurrency = getConcurrency();
+        summary.heapBytes = heapBytes;
+        summary.residentBytes = residentBytes;
+        summary.bytesPerDetection = bytesPerDetection;
+        summary.cpuMicrosPerDetection = cpuMicrosPerDetection;
+        if (Objects.nonNull(phases) && totalChecks > 0) {
+            summary.phases = phases;
+        }
+        summaries.add(summary);
+        return summary;
+    }
+
+    /**
+     * @return a label identifying a benchmark run, used to name exported files
+     */
+    private String getLabel(PerformanceConfiguration config,
+                            boolean configureFromDisk,
+                            Threading threading,
+                            int threads,
+                            double rate) {
+        StringBuilder label = new StringBuilder(config.toString().replace(':', '-'))
+                .append(configureFromDisk ? "-disk" : "-memory");
+        if (threading != Threading.PLATFORM) {
+            label.append('-').append(threading.name().toLowerCase(Locale.ROOT));
+        } else if (Objects.nonNull(threadCounts)) {
+            label.append('-').append(threads).append("threads");
+        }
+        if (rateSweepFactor > 1) {
+            label.append('-').append(Math.round(rate));
+        }
+        if (!replay.isDefault()) {
+            label.append('-').append(replay);
+        }
+        if (syntheticRecords > 0) {
+            label.append("-synthetic").append(syntheticRecords);
+        }
+        if (Objects.nonNull(concurrencySweep)) {
+            label.append("-concurrency").append(getConcurrency());
+        }
+        return label.toString();
+    }
+
+    /**
+     * Write a latency histogram as a HdrHistogram log and as a percentile distribution
+     * in microseconds
+     * @param latency the histogram, values in nanoseconds
+     * @param label used to name the files
+     * @throws Exception on file errors
+     */
+    private void exportHistogram(Histogram latency, String label) throws Exception {
+        Files.createDirectories(histogramDirectory.toPath());
+        File logFile = new File(histogramDirectory, label + ".hlog");
+        try (PrintStream out = new PrintStream(new FileOutputStream(logFile), false, "UTF-8")) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(out);
+            logWriter.outputComment(label);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(latency.getStartTimeStamp());
+            logWriter.outputLegend();
+            logWriter.outputIntervalHistogram(latency);
+        }
+        File distributionFile = new File(histogramDirectory, label + ".hgrm");
+        try (PrintStream out = new PrintStream(new FileOutputStream(distributionFile), false, "UTF-8")) {
+            latency.outputPercentileDistribution(out, 1000.0);
+        }
+        logger.info("Latency histogram written to {}", logFile.getAbsolutePath());
     }
 
     /**
      * Execute detections on specified number of threads
      * @param pipeline the pipeline to use
+     * @param rate detections per second across all threads, or 0 for each thread to
+     *             run as fast as it can
+     * @param threading run on platform or virtual threads
+     * @param threads the number of threads to run
      * @return elapsed millis
      * @throws Exception to satisfy called APIs
      */
-    private long runTests(Pipeline pipeline) throws Exception {
+    private long runTests(Pipeline pipeline, double rate, Threading threading, int threads)
+            throws Exception {
 
         // create a list of callables
         List<Callable<BenchmarkResult>> callables = new ArrayList<>();
-        for (int i = 0; i < numberOfThreads; i++) {
-            callables.add(new BenchmarkRunnable(pipeline, evidence));
+        if (rate > 0 && Objects.nonNull(timestamps)) {
+            // replay the corpus with its original timing, the threads taking records in turn
+            long scheduleStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            for (int i = 0; i < threads; i++) {
+                List<Map<String, String>> records = new ArrayList<>();
+                long[] schedule = new long[(evidence.size() - i + threads - 1) / threads];
+                for (int j = i; j < evidence.size(); j += threads) {
+                    schedule[records.size()] =
+                            Math.round((timestamps[j] - timestamps[0]) * 1e6 / corpusSpeed);
+                    records.add(evidence.get(j));
+                }
+                callables.add(new BenchmarkRunnable(pipeline, events, records, scheduleStart, schedule,
+                        measurePhases ? new ThreadCostMeter() : null));
+            }
+        } else if (rate > 0) {
+            // each thread runs at an equal share of the rate, with their schedules
+            // staggered, starting once all the threads have had time to start
+            long intervalNanos = Math.round(threads * 1e9 / rate);
+            long detections = Math.round(rate * rateDurationSeconds / threads);
+            long scheduleStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            for (int i = 0; i < threads; i++) {
+                callables.add(new BenchmarkRunnable(pipeline, events,
+                        replay.getList(evidence, i, threads),
+                        scheduleStart + i * intervalNanos / threads,
+                        intervalNanos,
+                        detections,
+                        measurePhases ? new ThreadCostMeter() : null));
+            }
+        } else {
+            // virtual threads share the same total number of detections as platform threads
+            long detections = threading == Threading.VIRTUAL ?
+                    Math.max(1, numberOfThreads * detectionsPerThread / threads) :
+                    detectionsPerThread;
+            for (int i = 0; i < threads; i++) {
+                callables.add(new BenchmarkRunnable(pipeline, events,
+                        replay.getList(evidence, i, threads),
+                        detections,
+                        measurePhases ? new ThreadCostMeter() : null));
+            }
         }
-        // start multiple threads in a fixed pool
-        ExecutorService service = Executors.newFixedThreadPool(numberOfThreads);
+        // start multiple threads in a fixed pool, or one virtual thread per callable
+        ExecutorService service = ExecutorHelper.newExecutor(threading, threads);
         long start = System.currentTimeMillis();
         // start all the threads
         resultList = service.invokeAll(callables);
@@ -294,61 +1690,197 @@ public class PerformanceBenchmark {
      * Callable that implements the logic of the test for each thread
      */
     private static class BenchmarkRunnable implements Callable<BenchmarkResult> {
+        // below this many nanos from the next scheduled detection, spin rather than park
+        private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
 
         // the benchmark that is being executed
         private final BenchmarkResult result;
         private final List<Map<String, String>> testList;
         private final Pipeline pipeline;
+        // records JFR events for each stage of a detection
+        private final DetectionEvents events;
+        // when running open loop, the System.nanoTime() the first detection is due
+        private final long scheduleStart;
+        // when running open loop, the nanos between detections, otherwise 0
+        private final long intervalNanos;
+        // the number of detections to carry out
+        private final long scheduled;
+        // when replaying with original timing, the nanos after the start each detection is due
+        private final long[] schedule;
+        // if not null, measures the cost of each phase of a detection
+        private final ThreadCostMeter meter;
+
+        BenchmarkRunnable(Pipeline pipeline, DetectionEvents events,
+                          List<Map<String, String>> evidence, long detections,
+                          ThreadCostMeter meter) {
+            this(pipeline, events, evidence, 0, 0, detections, meter);
+        }
 
-        BenchmarkRunnable(Pipeline pipeline, List<Map<String, String>> evidence) {
+        BenchmarkRunnable(Pipeline pipeline, DetectionEvents events,
+                          List<Map<String, String>> evidence,
+                          long scheduleStart, long intervalNanos, long scheduled,
+                          ThreadCostMeter meter) {
+            this(pipeline, events, evidence, scheduleStart, intervalNanos, scheduled, null, meter);
+        }
+
+        BenchmarkRunnable(Pipeline pipeline, DetectionEvents events,
+                          List<Map<String, String>> evidence,
+                          long scheduleStart, long[] schedule, ThreadCostMeter meter) {
+            this(pipeline, events, evidence, scheduleStart, 0, schedule.length, schedule, meter);
+        }
+
+        private BenchmarkRunnable(Pipeline pipeline, DetectionEvents events,
+                                  List<Map<String, String>> evidence,
+                                  long scheduleStart, long intervalNanos, long scheduled,
+                                  long[] schedule, ThreadCostMeter meter) {
+            this.schedule = schedule;
+            this.meter = meter;
+            this.scheduleStart = scheduleStart;
+            this.intervalNanos = intervalNanos;
+            this.scheduled = scheduled;
             this.testList = evidence;
             // initialise the benchmark variables
             this.pipeline = pipeline;
+            this.events = events;
             this.result = new BenchmarkResult();
 
             result.elapsedMillis = 0;
             result.count = 0;
             result.checkSum = 0;
+            result.histogram = new Histogram(HISTOGRAM_SIGNIFICANT_DIGITS);
+            result.meter = meter;
         }
 
 
         @Override
         public BenchmarkResult call() {
+            if (intervalNanos > 0 || Objects.nonNull(schedule)) {
+                return callOnSchedule();
+            }
             result.checkSum = 0;
             long start = System.currentTimeMillis();
-            for (Map<String, String> evidence : testList) {
+            result.histogram.setStartTimeStamp(start);
+            // the cost of the whole run, which is almost all detection
+            long startBytes = ThreadCostMeter.getAllocatedBytes();
+            long startCpuNanos = ThreadCostMeter.getCpuNanos();
+            // cycle through the evidence until the detections are done, as callOnSchedule
+            for (long i = 0; i < scheduled; i++) {
+                Map<String, String> evidence = testList.get((int) (i % testList.size()));
                 // the benchmark is for detection time only
+                long detectionStart = System.nanoTime();
+                detect(evidence);
+                // the latency includes freeing the flow data
+                result.histogram.recordValue(System.nanoTime() - detectionStart);
+            }
+            result.allocatedBytes = ThreadCostMeter.getAllocatedBytes(
+                    startBytes, ThreadCostMeter.getAllocatedBytes());
+            result.cpuNanos = ThreadCostMeter.getCpuNanos(
+                    startCpuNanos, ThreadCostMeter.getCpuNanos());
+            result.elapsedMillis += System.currentTimeMillis() - start;
+            result.histogram.setEndTimeStamp(start + result.elapsedMillis);
+            return result;
+        }
 
-                // A try-with-resource block MUST be used for the
-                // FlowData instance. This ensures that native resources
-                // created by the device detection engine are freed.
-                try (FlowData flowData = pipeline.createFlowData()) {
-                    flowData
-                            .addEvidence(evidence)
-                            .process();
-
-                    // Calculate a checksum to compare different runs on
-                    // the same data.
-                    DeviceData device = flowData.get(DeviceData.class);
-                    if (device != null) {
-                        if (device.getIsMobile().hasValue()) {
-                            Object value = device.getIsMobile().getValue();
-                            if (value != null) {
-                                result.checkSum += value.hashCode();
-                            }
-                        }
-                    }
-                    result.count++;
-                    if (result.count >= TESTS_PER_THREAD) {
-                        break;
+        /**
+         * Carry out detections according to a schedule, at a fixed rate cycling through the
+         * evidence or at the times given, recording the latency from the time each detection
+         * was due to start.
+         * @return the result
+         */
+        private BenchmarkResult callOnSchedule() {
+            result.checkSum = 0;
+            long startMillis = System.currentTimeMillis() +
+                    TimeUnit.NANOSECONDS.toMillis(scheduleStart - System.nanoTime());
+            result.histogram.setStartTimeStamp(startMillis);
+            for (long i = 0; i < scheduled; i++) {
+                long due = scheduleStart +
+                        (Objects.nonNull(schedule) ? schedule[(int) i] : i * intervalNanos);
+                // wait for the detection to be due, if we are not already late
+                long now;
+                while ((now = System.nanoTime()) < due) {
+                    if (due - now > SPIN_NANOS) {
+                        LockSupport.parkNanos(due - now - SPIN_NANOS);
                     }
-                } catch (Exception e) {
-                    logger.error("Exception getting flow data", e);
                 }
+                // only the cost of the detection, not of waiting for it to be due
+                long startBytes = ThreadCostMeter.getAllocatedBytes();
+                long startCpuNanos = ThreadCostMeter.getCpuNanos();
+                detect(testList.get((int) (i % testList.size())));
+                // the latency includes any time spent waiting for earlier detections
+                result.histogram.recordValue(System.nanoTime() - due);
+                addCost(ThreadCostMeter.getAllocatedBytes(
+                                startBytes, ThreadCostMeter.getAllocatedBytes()),
+                        ThreadCostMeter.getCpuNanos(startCpuNanos, ThreadCostMeter.getCpuNanos()));
             }
-            result.elapsedMillis += System.currentTimeMillis() - start;
+            result.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduleStart);
+            result.histogram.setEndTimeStamp(startMillis + result.elapsedMillis);
             return result;
         }
+
+        /**
+         * Add the cost of a detection to the result, unless it could not be measured
+         * @param allocatedBytes bytes allocated, or -1
+         * @param cpuNanos CPU time used, or -1
+         */
+        private void addCost(long allocatedBytes, long cpuNanos) {
+            result.allocatedBytes = allocatedBytes < 0 || result.allocatedBytes < 0 ?
+                    -1 : result.allocatedBytes + allocatedBytes;
+            result.cpuNanos = cpuNanos < 0 || result.cpuNanos < 0 ?
+                    -1 : result.cpuNanos + cpuNanos;
+        }
+
+        /**
+         * Carry out a single detection, adding to the checksum and count
+         * @param evidence the evidence for the detection
+         */
+        private void detect(Map<String, String> evidence) {
+            if (Objects.nonNull(meter)) {
+                meter.start();
+            }
+            // A try-with-resource block MUST be used for the
+            // FlowData instance. This ensures that native resources
+            // created by the device detection engine are freed.
+            try (FlowData flowData = events.createFlowData(pipeline)) {
+                mark(Phase.CREATE_FLOW_DATA);
+                events.addEvidence(flowData, evidence);
+                mark(Phase.ADD_EVIDENCE);
+                events.process(flowData);
+                mark(Phase.PROCESS);
+
+                // Calculate a checksum to compare different runs on
+                // the same data.
+                DeviceData device = flowData.get(DeviceData.class);
+                if (device != null) {
+                    // only create a getter for the event if it is being recorded, to keep
+                    // the benchmark free of the allocation otherwise
+                    AspectPropertyValue<Boolean> isMobile =
+                            events.isEnabled(DetectionEvents.Stage.GET_PROPERTY) ?
+                                    events.get(flowData, "IsMobile", device::getIsMobile) :
+                                    device.getIsMobile();
+                    if (isMobile.hasValue()) {
+                        Object value = isMobile.getValue();
+                        if (value != null) {
+                            result.checkSum += value.hashCode();
+                        }
+                    }
+                }
+                mark(Phase.GET_PROPERTIES);
+                result.count++;
+            } catch (Exception e) {
+                logger.error("Exception getting flow data", e);
+            }
+            mark(Phase.CLOSE);
+        }
+
+        /**
+         * If measuring phases, add the cost since the last phase to the phase given
+         * @param phase the phase which has just ended
+         */
+        private void mark(Phase phase) {
+            if (Objects.nonNull(meter)) {
+                meter.mark(phase);
+            }
+        }
     }
 
 
@@ -364,9 +1896,183 @@ public class PerformanceBenchmark {
         // method that the benchmark is testing.
         private int checkSum;
 
+        // latency of each detection in nanoseconds
+        private Histogram histogram;
+
+        // bytes allocated and CPU used by detections on this thread, -1 if not measurable
+        private long allocatedBytes;
+        private long cpuNanos;
+
+        // the cost of each phase of detection, if measured
+        private ThreadCostMeter meter;
 
     }
 
+    /**
+     * The overall result of a benchmark, all threads combined
+     */
+    public static class BenchmarkSummary {
+        final String label;
+        final PerformanceConfiguration config;
+        final boolean configureFromDisk;
+        final Threading threading;
+        final int threads;
+        // the target detections per second, or 0 if run closed loop
+        final double targetRate;
+        final long detections;
+        final double detectionsPerSecond;
+        // latency of detections in nanoseconds
+        final Histogram latency;
+        // the order in which the evidence was replayed, null if not a benchmark run
+        ReplayStrategy replay = null;
+        // the engine concurrency setting of the pipeline, 0 if not known
+        int engineConcurrency = 0;
+        // relative to perfect scaling from the fewest threads, NaN if not a thread sweep
+        double scalingEfficiency = Double.NaN;
+        // heap used after garbage collection, with the pipeline loaded
+        long heapBytes = -1;
+        // resident set size of the process, -1 if not available
+        long residentBytes = -1;
+        // allocation and CPU time, NaN if not measurable
+        double bytesPerDetection = Double.NaN;
+        double cpuMicrosPerDetection = Double.NaN;
+        // the cost of each phase of detection, null if not measured
+        ThreadCostMeter phases = null;
+        // the startup of the pipeline the benchmark was run on
+        StartupSummary startup = null;
+        // the number of soak windows in which drift was flagged, -1 if not a soak test
+        int driftWindows = -1;
+
+        BenchmarkSummary(String label, PerformanceConfiguration config,
+                         boolean configureFromDisk, Threading threading, int threads,
+                         double targetRate, long detections,
+                         double detectionsPerSecond, Histogram latency) {
+            this.label = label;
+            this.config = config;
+            this.configureFromDisk = configureFromDisk;
+            this.threading = threading;
+            this.threads = threads;
+            this.targetRate = targetRate;
+            this.detections = detections;
+            this.detectionsPerSecond = detectionsPerSecond;
+            this.latency = latency;
+        }
+
+        /**
+         * Recreate a summary from the results of a child JVM, see {@link #runForked}. The
+         * replay order, startup and phase costs remain only in the results.
+         * @param result the result, as written by {@link #toMap()}
+         * @param latency the latency histogram
+         * @return the summary
+         */
+        static BenchmarkSummary fromMap(Map<String, Object> result, Histogram latency) {
+            BenchmarkSummary summary = new BenchmarkSummary(
+                    (String) result.get("label"),
+                    new PerformanceConfiguration(
+                            Constants.PerformanceProfiles.valueOf((String) result.get("profile")),
+                            Boolean.TRUE.equals(result.get("allProperties")),
+                            Boolean.TRUE.equals(result.get("performanceGraph")),
+                            Boolean.TRUE.equals(result.get("predictiveGraph"))),
+                    "disk".equals(result.get("loading")),
+                    Threading.valueOf(((String) result.get("threading")).toUpperCase(Locale.ROOT)),
+                    (int) getDouble(result, "threads"),
+                    getDouble(result, "targetRate"),
+                    Math.round(getDouble(result, "detections")),
+                    getDouble(result, "detectionsPerSecond"),
+                    latency);
+            summary.engineConcurrency = (int) getDouble(result, "engineConcurrency");
+            summary.scalingEfficiency = getDouble(result, "scalingEfficiency");
+            summary.heapBytes = Math.round(getDouble(result, "heapBytes"));
+            summary.residentBytes = Math.round(getDouble(result, "residentBytes"));
+            summary.bytesPerDetection = getDouble(result, "bytesPerDetection");
+            summary.cpuMicrosPerDetection = getDouble(result, "cpuMicrosPerDetection");
+            summary.driftWindows = (int) getDouble(result, "driftWindows");
+            return summary;
+        }
+
+        /**
+         * @return the summary as columns for writing with {@link ResultsWriter}, latencies
+         * in microseconds
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("label", label);
+            map.put("profile", config.profile.name());
+            map.put("allProperties", config.allProperties);
+            map.put("performanceGraph", config.performanceGraph);
+            map.put("predictiveGraph", config.predictiveGraph);
+            map.put("loading", configureFromDisk ? "disk" : "memory");
+            map.put("threading", threading.name().toLowerCase(Locale.ROOT));
+            map.put("threads", threads);
+            map.put("engineConcurrency", engineConcurrency);
+            map.put("targetRate", targetRate);
+            if (Objects.nonNull(replay)) {
+                map.put("replay", replay.getOrder().name().toLowerCase(Locale.ROOT));
+                map.put("uniqueRatio", replay.getUniqueRatio());
+            }
+            map.put("detections", detections);
+            map.put("detectionsPerSecond", detectionsPerSecond);
+            map.put("p50Micros", latency.getValueAtPercentile(50.0) / 1000.0);
+            map.put("p90Micros", latency.getValueAtPercentile(90.0) / 1000.0);
+            map.put("p99Micros", latency.getValueAtPercentile(99.0) / 1000.0);
+            map.put("p999Micros", latency.getValueAtPercentile(99.9) / 1000.0);
+            map.put("maxMicros", latency.getMaxValue() / 1000.0);
+            map.put("scalingEfficiency", scalingEfficiency);
+            map.put("heapBytes", heapBytes);
+            map.put("residentBytes", residentBytes < 0 ? null : residentBytes);
+            map.put("bytesPerDetection", bytesPerDetection);
+            map.put("cpuMicrosPerDetection", cpuMicrosPerDetection);
+            if (driftWindows >= 0) {
+                map.put("driftWindows", driftWindows);
+            }
+            if (Objects.nonNull(startup)) {
+                map.putAll(startup.toMap());
+            }
+            if (Objects.nonNull(phases)) {
+                for (Phase phase : Phase.values()) {
+                    map.put(phase.label + "BytesPerDetection",
+                            (double) phases.getAllocatedBytes(phase) / detections);
+                    map.put(phase.label + "CpuMicrosPerDetection",
+                            phases.getCpuNanos(phase) / 1000.0 / detections);
+                }
+            }
+            return map;
+        }
+    }
+
+    /**
+     * The time taken and memory used to load a pipeline and start detecting
+     */
+    public static class StartupSummary {
+        // reading the data file into memory, NaN if loaded from disk by the engine
+        double fileReadMillis = Double.NaN;
+        // building the pipeline, which includes reading the data file if loaded from disk
+        double buildMillis = Double.NaN;
+        double firstDetectionMicros = Double.NaN;
+        // from starting to load to steady throughput, NaN if not measured
+        double steadyStateMillis = Double.NaN;
+        // warming up until throughput was steady, NaN if not warmed up
+        double warmUpMillis = Double.NaN;
+        // the most memory used while loading, -1 if not available
+        long peakHeapBytes = -1;
+        long peakResidentBytes = -1;
+
+        /**
+         * @return the startup measurements as columns for writing with {@link ResultsWriter}
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("fileReadMillis", fileReadMillis);
+            map.put("buildMillis", buildMillis);
+            map.put("firstDetectionMicros", firstDetectionMicros);
+            map.put("steadyStateMillis", steadyStateMillis);
+            map.put("warmUpMillis", warmUpMillis);
+            map.put("peakLoadHeapBytes", peakHeapBytes < 0 ? null : peakHeapBytes);
+            map.put("peakLoadResidentBytes", peakResidentBytes < 0 ? null : peakResidentBytes);
+            return map;
+        }
+    }
+
     public static class PerformanceConfiguration {
         Constants.PerformanceProfiles profile;
         boolean allProperties;
@@ -381,6 +2087,29 @@ public class PerformanceBenchmark {
             this.performanceGraph = performanceGraph;
             this.predictiveGraph = predictiveGraph;
         }
+
+        /**
+         * Create a configuration from its string form, as produced by {@link #toString()}
+         * e.g. "MaxPerformance:false:true:false"
+         * @param value profile, allProperties, performanceGraph and predictiveGraph separated by ':'
+         * @return a configuration
+         */
+        public static PerformanceConfiguration parse(String value) {
+            String[] parts = value.split(":");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Expected " +
+                        "profile:allProperties:performanceGraph:predictiveGraph but got " + value);
+            }
+            return new PerformanceConfiguration(Constants.PerformanceProfiles.valueOf(parts[0]),
+                    Boolean.parseBoolean(parts[1]),
+                    Boolean.parseBoolean(parts[2]),
+                    Boolean.parseBoolean(parts[3]));
+        }
+
+        @Override
+        public String toString() {
+            return profile.name() + ":" + allProperties + ":" + performanceGraph + ":" + predictiveGraph;
+        }
     }
 }
 
@@ -0,0 +1,304 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console;
+
+import fiftyone.devicedetection.DeviceDetectionOnPremisePipelineBuilder;
+import fiftyone.devicedetection.DeviceDetectionPipelineBuilder;
+import fiftyone.devicedetection.examples.console.PerformanceBenchmark.PerformanceConfiguration;
+import fiftyone.devicedetection.examples.console.performance.DetectionVerifier;
+import fiftyone.devicedetection.examples.console.performance.ResultsWriter;
+import fiftyone.devicedetection.examples.shared.ArgumentHelper;
+import fiftyone.devicedetection.examples.shared.BinaryEvidenceCorpus;
+import fiftyone.devicedetection.examples.shared.EvidenceCorpus;
+import fiftyone.devicedetection.examples.shared.EvidenceHelper;
+import fiftyone.pipeline.core.flowelements.Pipeline;
+import fiftyone.pipeline.engines.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.*;
+
+import static fiftyone.common.testhelpers.LogbackHelper.configureLogback;
+import static fiftyone.devicedetection.examples.shared.DataFileHelper.getDataFileLocation;
+import static fiftyone.devicedetection.examples.shared.DataFileHelper.getEvidenceFile;
+import static fiftyone.pipeline.util.FileFinder.getFilePath;
+
+/**
+ * Compares the results of pipelines built with different performance profiles and graph
+ * settings, to show whether moving to a configuration which uses less memory, or is faster,
+ * changes any results. The same evidence is detected by each configuration and the values of
+ * the properties compared with those of the first configuration, each disagreement being
+ * counted by property, alongside each configuration's throughput.
+ * <p>
+ * Usage: {@code ProfileComparison [data file] [evidence file]
+ * [--configurations=<profile:allProperties:performanceGraph:predictiveGraph>,...]
+ * [--properties=<property>,...] [--corpus=<file>] [--records=<number>]
+ * [--results-file=<file.csv|file.json>]}
+ */
+public class ProfileComparison {
+    private static final Logger logger = LoggerFactory.getLogger(ProfileComparison.class);
+
+    // the default number of records read from the evidence file
+    public static final int DEFAULT_NUMBER_OF_RECORDS = 20000;
+    // the number of disagreements described for each property of each configuration
+    public static final int MAX_DESCRIBED_DISAGREEMENTS = 5;
+    // records detected before timing each configuration
+    public static final int WARM_UP_RECORDS = 1000;
+
+    // each performance profile using the predictive graph, then the performance graph,
+    // with all properties so that they can be compared
+    public static final PerformanceConfiguration[] DEFAULT_CONFIGURATIONS = {
+            new PerformanceConfiguration(Constants.PerformanceProfiles.MaxPerformance, true, false, true),
+            new PerformanceConfiguration(Constants.PerformanceProfiles.HighPerformance, true, false, true),
+            new PerformanceConfiguration(Constants.PerformanceProfiles.Balanced, true, false, true),
+            new PerformanceConfiguration(Constants.PerformanceProfiles.LowMemory, true, false, true),
+            new PerformanceConfiguration(Constants.PerformanceProfiles.MaxPerformance, true, true, false)
+    };
+
+    public static void main(String[] args) throws Exception {
+        configureLogback(getFilePath("logback.xml"));
+
+        ArgumentHelper arguments = new ArgumentHelper(args);
+        String dataFilename = arguments.getPositional(0, null);
+        int records = arguments.getOption("records", DEFAULT_NUMBER_OF_RECORDS);
+
+        PerformanceConfiguration[] configurations = DEFAULT_CONFIGURATIONS;
+        if (arguments.hasOption("configurations")) {
+            List<PerformanceConfiguration> parsed = new ArrayList<>();
+            for (String value : arguments.getOption("configurations", "").split(",")) {
+                parsed.add(PerformanceConfiguration.parse(value.trim()));
+            }
+            configurations = parsed.toArray(new PerformanceConfiguration[0]);
+        }
+        List<String> properties = DetectionVerifier.DEFAULT_PROPERTIES;
+        if (arguments.hasOption("properties")) {
+            properties = Arrays.asList(arguments.getOption("properties", "").split(","));
+        }
+
+        List<Map<String, String>> evidence;
+        if (arguments.hasOption("corpus")) {
+            File corpus = new File(arguments.getOption("corpus", ""));
+            if (BinaryEvidenceCorpus.isBinaryCorpus(corpus)) {
+                // the memory map remains valid once the corpus is closed
+                try (BinaryEvidenceCorpus binary = BinaryEvidenceCorpus.open(corpus)) {
+                    evidence = binary.asList(records);
+                }
+            } else {
+                evidence = EvidenceCorpus.read(corpus, records).getEvidence();
+            }
+        } else {
+            evidence = EvidenceHelper.getEvidenceList(
+                    getEvidenceFile(arguments.getPositional(1, null)), records);
+        }
+
+        List<ConfigurationResult> results = run(configurations, dataFilename, evidence,
+                properties, new PrintWriter(System.out, true));
+        if (arguments.hasOption("results-file")) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (ConfigurationResult result : results) {
+                rows.add(result.toMap());
+            }
+            File resultsFile = new File(arguments.getOption("results-file", ""));
+            ResultsWriter.write(resultsFile, rows);
+            logger.info("Results written to {}", resultsFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Detect the evidence with each configuration, comparing the results with those of the
+     * first configuration
+     * @param configurations the configurations to compare, the first being the reference
+     * @param dataFilename the data file, or null for the default
+     * @param evidence the evidence to detect
+     * @param properties the names of the properties to compare
+     * @param writer where to write the report
+     * @return the result for each configuration
+     * @throws Exception on errors building pipelines or detecting
+     */
+    public static List<ConfigurationResult> run(PerformanceConfiguration[] configurations,
+                                                String dataFilename,
+                                                List<Map<String, String>> evidence,
+                                                List<String> properties,
+                                                PrintWriter writer) throws Exception {
+        logger.info("Running Profile Comparison example");
+        String dataFileLocation = getDataFileLocation(dataFilename);
+        List<ConfigurationResult> results = new ArrayList<>();
+        // the values from the first configuration, for each record
+        String[][] reference = null;
+        for (PerformanceConfiguration config : configurations) {
+            logger.info("Detecting {} records with {}", evidence.size(), config);
+            ConfigurationResult result = new ConfigurationResult(config, properties);
+            DeviceDetectionOnPremisePipelineBuilder builder = new DeviceDetectionPipelineBuilder()
+                    .useOnPremise(dataFileLocation, false);
+            PerformanceBenchmark.setPipelinePerformanceProperties(builder, config, 1);
+            try (Pipeline pipeline = builder.build()) {
+                for (int i = 0; i < Math.min(WARM_UP_RECORDS, evidence.size()); i++) {
+                    DetectionVerifier.getValues(pipeline, evidence.get(i), properties);
+                }
+                String[][] values = reference == null ? new String[evidence.size()][] : null;
+                long elapsedNanos = 0;
+                for (int i = 0; i < evidence.size(); i++) {
+                    long start = System.nanoTime();
+                    String[] recordValues =
+                            DetectionVerifier.getValues(pipeline, evidence.get(i), properties);
+                    elapsedNanos += System.nanoTime() - start;
+                    if (values != null) {
+                        values[i] = recordValues;
+                    } else {
+                        result.compare(i, evidence.get(i), reference[i], recordValues);
+                    }
+                }
+                if (values != null) {
+                    reference = values;
+                    result.records = evidence.size();
+                }
+                result.detectionsPerSecond = elapsedNanos == 0 ?
+                        Double.NaN : evidence.size() * 1e9 / elapsedNanos;
+            }
+            results.add(result);
+            report(result, configurations[0], writer);
+        }
+
+        writer.println("Summary:");
+        for (ConfigurationResult result : results) {
+            writer.format("    %-40s Detections per second: %,10d, Disagreements: %,d%n",
+                    result.config, Math.round(result.detectionsPerSecond),
+                    result.getDisagreements());
+        }
+        writer.println();
+        logger.info("Finished Profile Comparison example");
+        return results;
+    }
+
+    private static void report(ConfigurationResult result,
+                               PerformanceConfiguration reference,
+                               PrintWriter writer) {
+        writer.format("Configuration: %s, Detections per second (single thread): %,d%n",
+                result.config, Math.round(result.detectionsPerSecond));
+        if (result.config == reference) {
+            writer.println("    Reference for the other configurations");
+        } else {
+            writer.format("    Records disagreeing with %s: %,d of %,d%n",
+                    reference, result.disagreeingRecords, result.records);
+            for (Map.Entry<String, Long> property : result.disagreements.entrySet()) {
+                if (property.getValue() > 0) {
+                    writer.format("    %s: %,d disagreements%n",
+                            property.getKey(), property.getValue());
+                    for (String description : result.described.get(property.getKey())) {
+                        writer.println("        " + description);
+                    }
+                }
+            }
+        }
+        writer.println();
+    }
+
+    /**
+     * The throughput of a configuration and how its results differ from the reference
+     */
+    public static class ConfigurationResult {
+        final PerformanceConfiguration config;
+        double detectionsPerSecond = Double.NaN;
+        // the number of records compared, and which disagree in any property
+        long records = 0;
+        long disagreeingRecords = 0;
+        // the number of records disagreeing, by property
+        final Map<String, Long> disagreements = new LinkedHashMap<>();
+        // descriptions of the first disagreements, by property
+        final Map<String, List<String>> described = new HashMap<>();
+
+        ConfigurationResult(PerformanceConfiguration config, List<String> properties) {
+            this.config = config;
+            for (String property : properties) {
+                disagreements.put(property, 0L);
+                described.put(property, new ArrayList<>());
+            }
+        }
+
+        private void compare(int record,
+                             Map<String, String> evidence,
+                             String[] expected,
+                             String[] actual) {
+            records++;
+            boolean disagrees = false;
+            int i = 0;
+            for (String property : disagreements.keySet()) {
+                if (!expected[i].equals(actual[i])) {
+                    disagrees = true;
+                    disagreements.merge(property, 1L, Long::sum);
+                    List<String> descriptions = described.get(property);
+                    if (descriptions.size() < MAX_DESCRIBED_DISAGREEMENTS) {
+                        descriptions.add(String.format("record %d: '%s' rather than '%s' for %s",
+                                record, actual[i], expected[i], evidence));
+                    }
+                }
+                i++;
+            }
+            if (disagrees) {
+                disagreeingRecords++;
+            }
+        }
+
+        /**
+         * @return the total number of disagreements across the properties
+         */
+        public long getDisagreements() {
+            long total = 0;
+            for (long count : disagreements.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * @return the number of records disagreeing with the reference, by property
+         */
+        public Map<String, Long> getDisagreementsByProperty() {
+            return Collections.unmodifiableMap(disagreements);
+        }
+
+        public double getDetectionsPerSecond() {
+            return detectionsPerSecond;
+        }
+
+        /**
+         * @return the result as columns for writing with {@link ResultsWriter}
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("profile", config.profile.name());
+            map.put("allProperties", config.allProperties);
+            map.put("performanceGraph", config.performanceGraph);
+            map.put("predictiveGraph", config.predictiveGraph);
+            map.put("records", records);
+            map.put("detectionsPerSecond", detectionsPerSecond);
+            map.put("disagreeingRecords", disagreeingRecords);
+            for (Map.Entry<String, Long> property : disagreements.entrySet()) {
+                map.put(property.getKey() + "Disagreements", property.getValue());
+            }
+            return map;
+        }
+    }
+}
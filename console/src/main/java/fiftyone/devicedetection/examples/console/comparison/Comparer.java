@@ -26,7 +26,11 @@ import fiftyone.common.testhelpers.LogbackHelper;
 import fiftyone.devicedetection.examples.console.comparison.Detection.BenchmarkResult;
 import fiftyone.devicedetection.examples.console.comparison.Detection.Request;
 import fiftyone.devicedetection.examples.console.comparison.Detection.Solution;
+import fiftyone.devicedetection.examples.shared.ArgumentHelper;
 import fiftyone.devicedetection.examples.shared.EvidenceHelper;
+import fiftyone.devicedetection.examples.shared.ExecutorHelper;
+import fiftyone.devicedetection.examples.shared.ExecutorHelper.Threading;
+import fiftyone.devicedetection.examples.shared.ForkHelper;
 import fiftyone.pipeline.util.FileFinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,18 +63,85 @@ public class Comparer {
     private int numberOfThreads;
     private int numberOfResults;
     private List<Map<String, String>> evidenceList;
+    // run each solution with each of these threading models
+    private Threading[] threadingModels = {Threading.PLATFORM};
+    // if true, run each solution in its own child JVM with the heap given
+    private boolean fork = false;
+    private String forkHeap = null;
+    // marks the lines of a child JVM's output which carry its results
+    static final String FORKED_EXECUTION_PREFIX = "Forked execution: ";
 
     private static final Logger logger = LoggerFactory.getLogger(Comparer.class);
 
     public static void main(String[] args) throws Exception {
         LogbackHelper.configureLogback(FileFinder.getFilePath("logback.xml"));
-        new Comparer().compare(Arrays.asList(DEFAULT_SOLUTIONS),
-                DEFAULT_NUMBER_OF_THREADS,
-                DEFAULT_NUMBER_OF_RESULTS,
-                new Reporting.Minimal(),
+        ArgumentHelper arguments = new ArgumentHelper(args);
+        Comparer comparer = new Comparer()
+                // --threading=platform|virtual|both
+                .setThreading(Threading.parse(arguments.getOption("threading", "platform")));
+        List<Solution> solutions = Arrays.asList(DEFAULT_SOLUTIONS);
+        Reporting reporting = new Reporting.Minimal();
+        // --fork[=<heap size e.g. 4g>] runs each solution in its own child JVM
+        if (arguments.hasOption("fork")) {
+            String heap = arguments.getOption("fork", "true");
+            comparer.setFork(true, heap.equals("true") ? null : heap);
+        }
+        // --forked=<vendor id> is passed to a child JVM by its parent
+        if (arguments.hasOption("forked")) {
+            String vendorId = arguments.getOption("forked", "");
+            solutions = new ArrayList<>();
+            for (Solution solution : DEFAULT_SOLUTIONS) {
+                if (solution.getVendorId().equals(vendorId)) {
+                    solutions.add(solution);
+                }
+            }
+            reporting = new Forked();
+        }
+        comparer.compare(solutions,
+                arguments.getOption("threads", DEFAULT_NUMBER_OF_THREADS),
+                arguments.getOption("results", DEFAULT_NUMBER_OF_RESULTS),
+                reporting,
                 new PrintWriter(System.out, true));
     }
 
+    /**
+     * Run each solution in its own child JVM, so that JIT compilation, heap fragmentation
+     * and native memory left by the solutions run before it can't affect its results. The
+     * solutions must be among the {@link #DEFAULT_SOLUTIONS}, as each child runs the
+     * solution with the same vendor id. Each child streams its output and results back, the
+     * results being reported together.
+     * @param fork true to run each solution in a child JVM
+     * @param heap the initial and maximum heap of each child JVM e.g. "4g", or null for the
+     *             default
+     * @return this
+     */
+    public Comparer setFork(boolean fork, String heap) {
+        this.fork = fork;
+        this.forkHeap = heap;
+        return this;
+    }
+
+    /**
+     * Run each solution on platform threads, virtual threads or both. When using virtual
+     * threads, numberOfThreads may be thousands, as virtual threads are cheap. Virtual threads
+     * require Java 21 or later and are skipped if not supported.
+     * @param threadingModels the threading models to use
+     * @return this
+     */
+    public Comparer setThreading(Threading[] threadingModels) {
+        List<Threading> supported = new ArrayList<>();
+        for (Threading threading : threadingModels) {
+            if (threading == Threading.VIRTUAL && !ExecutorHelper.isVirtualThreadSupported()) {
+                logger.warn("Virtual threads are not supported by Java {}, skipping",
+                        System.getProperty("java.version"));
+            } else {
+                supported.add(threading);
+            }
+        }
+        this.threadingModels = supported.toArray(new Threading[0]);
+        return this;
+    }
+
     /**
      * Execute the benchmarks using the solutions provided
      * @param solutions some solutions
@@ -90,6 +161,17 @@ public class Comparer {
         this.numberOfThreads = numberOfThreads;
         this.numberOfResults = numberOfResults;
 
+        if (fork) {
+            List<ExecutionResult> executionResults = new ArrayList<>();
+            for (Solution solution : solutions) {
+                executionResults.addAll(runForked(solution, writer));
+            }
+            logger.info("Preparing reports");
+            reportingModel.report(executionResults, writer);
+            logger.info("Comparison done");
+            return;
+        }
+
         // load the evidence as a list, using the default which comes with the distribution
         File evidenceFile = getEvidenceFile(null);
         this.evidenceList = Collections.unmodifiableList(
@@ -99,16 +181,23 @@ public class Comparer {
         List<ExecutionResult> executionResults = new ArrayList<>(solutions.size());
         for (Solution solution : solutions) {
             logger.info("Benchmarking {}", solution.getVendorId());
-            // init
-            solution.initialise(numberOfThreads);
+            // init, for the most concurrent detections of any threading model
+            int concurrency = 1;
+            for (Threading threading : threadingModels) {
+                concurrency = Math.max(concurrency,
+                        ExecutorHelper.getConcurrency(threading, numberOfThreads));
+            }
+            solution.initialise(concurrency);
             try {
-                // time how long it takes to execute all threads
-                long timeNow = System.currentTimeMillis();
-                List<BenchmarkResult> result = runBenchmarks(solution);
-                long elapsedMillis = System.currentTimeMillis() - timeNow;
-                // add to results for this vendor
-                executionResults.add(new ExecutionResult(solution.getVendorId(),
-                        result, elapsedMillis));
+                for (Threading threading : threadingModels) {
+                    // time how long it takes to execute all threads
+                    long timeNow = System.currentTimeMillis();
+                    List<BenchmarkResult> result = runBenchmarks(solution, threading);
+                    long elapsedMillis = System.currentTimeMillis() - timeNow;
+                    // add to results for this vendor
+                    executionResults.add(new ExecutionResult(solution.getVendorId(),
+                            threading, result, elapsedMillis));
+                }
             } finally {
                 solution.close();
             }
@@ -118,6 +207,83 @@ public class Comparer {
         logger.info("Comparison done");
     }
 
+    /**
+     * Benchmark a solution in a child JVM, see {@link #setFork(boolean, String)}
+     * @param solution the solution to benchmark
+     * @param writer where to write the child's output
+     * @return the results of the child, one per threading model
+     * @throws Exception on errors starting the child or reading its results
+     */
+    private List<ExecutionResult> runForked(Solution solution, PrintWriter writer)
+            throws Exception {
+        logger.info("Benchmarking {} in a child JVM with heap {}", solution.getVendorId(),
+                Objects.isNull(forkHeap) ? "default" : forkHeap);
+        if (threadingModels.length == 0) {
+            return Collections.emptyList();
+        }
+        String threading = threadingModels.length > 1 ?
+                "both" : threadingModels[0].name().toLowerCase(Locale.ROOT);
+        List<ExecutionResult> executionResults = new ArrayList<>();
+        int exitCode = ForkHelper.run(Comparer.class, forkHeap, Arrays.asList(
+                        "--threads=" + numberOfThreads,
+                        "--results=" + numberOfResults,
+                        "--threading=" + threading,
+                        "--forked=" + solution.getVendorId()),
+                line -> {
+                    if (line.startsWith(FORKED_EXECUTION_PREFIX)) {
+                        executionResults.add(Forked.parse(
+                                line.substring(FORKED_EXECUTION_PREFIX.length())));
+                    } else {
+                        writer.println(line);
+                    }
+                });
+        if (exitCode != 0) {
+            throw new IllegalStateException("Child JVM benchmarking " +
+                    solution.getVendorId() + " exited with code " + exitCode);
+        }
+        return executionResults;
+    }
+
+    /**
+     * Reports the results of a child JVM to its parent, one line per execution: the
+     * vendor id, threading model, elapsed millis and then the count and elapsed millis of
+     * each thread, separated by tabs
+     */
+    static class Forked implements Reporting {
+        @Override
+        public void report(List<ExecutionResult> executions, PrintWriter writer) {
+            for (ExecutionResult execution : executions) {
+                StringBuilder line = new StringBuilder(FORKED_EXECUTION_PREFIX)
+                        .append(execution.solutionId).append('\t')
+                        .append(execution.threading.name()).append('\t')
+                        .append(execution.elapsedMillis);
+                for (BenchmarkResult benchmark : execution.benchmarkResults) {
+                    line.append('\t').append(benchmark.count)
+                            .append(',').append(benchmark.elapsedMillis);
+                }
+                writer.println(line);
+            }
+        }
+
+        /**
+         * @param line a line reported, without its prefix
+         * @return the execution, whose results have counts and times but no properties
+         */
+        static ExecutionResult parse(String line) {
+            String[] fields = line.split("\t");
+            List<BenchmarkResult> results = new ArrayList<>();
+            for (int i = 3; i < fields.length; i++) {
+                String[] thread = fields[i].split(",");
+                BenchmarkResult result = new BenchmarkResult(0);
+                result.count = Integer.parseInt(thread[0]);
+                result.elapsedMillis = Long.parseLong(thread[1]);
+                results.add(result);
+            }
+            return new ExecutionResult(fields[0], Threading.valueOf(fields[1]), results,
+                    Long.parseLong(fields[2]));
+        }
+    }
+
     /**
      * Initiate the benchmark threads
      * @param solution the solution being benchmarked
@@ -125,8 +291,20 @@ public class Comparer {
      * @throws Exception to satisfy called APIs
      */
     public List<BenchmarkResult> runBenchmarks(Solution solution) throws Exception {
+        return runBenchmarks(solution, Threading.PLATFORM);
+    }
+
+    /**
+     * Initiate the benchmark threads
+     * @param solution the solution being benchmarked
+     * @param threading run on a pool of platform threads or one virtual thread per task
+     * @return result of the benchmark
+     * @throws Exception to satisfy called APIs
+     */
+    public List<BenchmarkResult> runBenchmarks(Solution solution, Threading threading)
+            throws Exception {
         List<BenchmarkResult> results = new ArrayList<>();
-        ExecutorService service = Executors.newFixedThreadPool(numberOfThreads);
+        ExecutorService service = ExecutorHelper.newExecutor(threading, numberOfThreads);
         try {
             // create a list of tasks to be run
             List<Callable<BenchmarkResult>> callables = new ArrayList<>();
@@ -188,12 +366,21 @@ public class Comparer {
     static class ExecutionResult {
         final List<BenchmarkResult> benchmarkResults;
         final String solutionId;
+        final Threading threading;
         final long elapsedMillis;
         public ExecutionResult(String solutionId,
                                List<BenchmarkResult> benchmarkResults,
                                long elapsedMillis) {
+            this(solutionId, Threading.PLATFORM, benchmarkResults, elapsedMillis);
+        }
+
+        public ExecutionResult(String solutionId,
+                               Threading threading,
+                               List<BenchmarkResult> benchmarkResults,
+                               long elapsedMillis) {
             this.benchmarkResults = benchmarkResults;
             this.solutionId = solutionId;
+            this.threading = threading;
             this.elapsedMillis = elapsedMillis;
         }
     }
@@ -24,6 +24,7 @@ package fiftyone.devicedetection.examples.console.comparison;
 
 import java.io.PrintWriter;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Interface proves ability to compare outcomes of detection
@@ -42,10 +43,20 @@ public interface Reporting {
     class Minimal implements Reporting {
          public void report(List<Comparer.ExecutionResult> executions, PrintWriter writer){
             for (Comparer.ExecutionResult execution: executions) {
-                writer.format("Vendor: %s, %,d millis\n", execution.solutionId, execution.elapsedMillis);
+                long count = 0;
                 for (Detection.BenchmarkResult benchmark: execution.benchmarkResults) {
-                    writer.format("Thread: %,d millis. Count: %,d\n",
-                            benchmark.elapsedMillis, benchmark.count);
+                    count += benchmark.count;
+                }
+                writer.format("Vendor: %s, %s threads: %,d, %,d millis, %,d detections per second\n",
+                        execution.solutionId,
+                        execution.threading.name().toLowerCase(Locale.ROOT),
+                        execution.benchmarkResults.size(),
+                        execution.elapsedMillis,
+                        Math.round(1000.0 * count / Math.max(1, execution.elapsedMillis)));
+                for (Detection.BenchmarkResult benchmark: execution.benchmarkResults) {
+                    writer.format("Thread: %,d millis. Count: %,d. Average microsecs per detection: %.1f\n",
+                            benchmark.elapsedMillis, benchmark.count,
+                            1000.0 * benchmark.elapsedMillis / Math.max(1, benchmark.count));
                 }
             }
         }
@@ -0,0 +1,196 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.offline;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static fiftyone.devicedetection.examples.console.offline.ColumnarResultWriter.MAGIC;
+import static fiftyone.devicedetection.examples.console.offline.ColumnarResultWriter.MISSING;
+import static fiftyone.devicedetection.examples.console.offline.ColumnarResultWriter.TRAILER_LENGTH;
+import static fiftyone.devicedetection.examples.console.offline.ColumnarResultWriter.VERSION;
+
+/**
+ * Reads results written by {@link ColumnarResultWriter}. The header and dictionaries are read
+ * when opened, and each column is read on demand as an array of ids, skipping the other
+ * columns of each row group.
+ */
+public class ColumnarResultReader implements Closeable {
+    private final FileChannel channel;
+    private final List<String> columns = new ArrayList<>();
+    private final String[][] dictionaries;
+    private final long dataOffset;
+    private final long footerOffset;
+    private final long rowCount;
+
+    private ColumnarResultReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length < 16 + TRAILER_LENGTH) {
+                throw new IOException(file + " is not a complete columnar results file");
+            }
+            ByteBuffer trailer = read(length - TRAILER_LENGTH, TRAILER_LENGTH);
+            footerOffset = trailer.getLong();
+            rowCount = trailer.getLong();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a columnar results file");
+            }
+            ByteBuffer header = read(0, 16);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a columnar results file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported columnar results version " + version);
+            }
+            // the row group size, which readers need not know
+            header.getInt();
+            int columnCount = header.getInt();
+            long offset = header.position();
+            for (int i = 0; i < columnCount; i++) {
+                int nameLength = read(offset, 4).getInt();
+                columns.add(StandardCharsets.UTF_8.decode(read(offset + 4, nameLength)).toString());
+                offset += 4 + nameLength;
+            }
+            dataOffset = offset;
+
+            ByteBuffer footer = read(footerOffset,
+                    (int) (length - TRAILER_LENGTH - footerOffset));
+            dictionaries = new String[columnCount][];
+            for (int i = 0; i < columnCount; i++) {
+                dictionaries[i] = new String[footer.getInt()];
+                for (int j = 0; j < dictionaries[i].length; j++) {
+                    dictionaries[i][j] = readString(footer);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open a columnar results file for reading
+     * @param file the file to read
+     * @return the reader, which must be closed
+     * @throws IOException on file errors or if the file is not a columnar results file
+     */
+    public static ColumnarResultReader open(File file) throws IOException {
+        return new ColumnarResultReader(file);
+    }
+
+    /**
+     * @return the columns, evidence followed by results
+     */
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param column the index of a column
+     * @return the distinct values of the column, indexed by id
+     */
+    public String[] getDictionary(int column) {
+        return dictionaries[column].clone();
+    }
+
+    /**
+     * Read the ids of the values of a column for every row
+     * @param column the index of a column
+     * @return an id per row, or -1 where the row has no value
+     * @throws IOException on read errors
+     */
+    public int[] readIds(int column) throws IOException {
+        if (rowCount > Integer.MAX_VALUE) {
+            throw new IOException("Too many rows to read a column as an array");
+        }
+        int[] ids = new int[(int) rowCount];
+        int row = 0;
+        for (long offset = dataOffset; offset < footerOffset; ) {
+            int rows = read(offset, 4).getInt();
+            read(offset + 4 + (long) column * rows * 4, rows * 4)
+                    .asIntBuffer()
+                    .get(ids, row, rows);
+            row += rows;
+            offset += 4 + (long) columns.size() * rows * 4;
+        }
+        return ids;
+    }
+
+    /**
+     * Read the values of a column for every row
+     * @param column the index of a column
+     * @return a value per row, or null where the row has no value
+     * @throws IOException on read errors
+     */
+    public String[] readValues(int column) throws IOException {
+        int[] ids = readIds(column);
+        String[] values = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = ids[i] == MISSING ? null : dictionaries[column][ids[i]];
+        }
+        return values;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        if (position < 0 || length < 0) {
+            throw new IOException("Columnar results file is not complete");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
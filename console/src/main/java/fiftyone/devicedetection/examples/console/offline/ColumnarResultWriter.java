@@ -0,0 +1,227 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.offline;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes results in a dictionary encoded columnar form, which is far smaller than text
+ * when, as with most device properties, values are repeated, and from which a column can be
+ * loaded without reading the others. Read it with {@link ColumnarResultReader}.
+ * <p>
+ * Each distinct value of a column is given an id, and rows are written in row groups of a
+ * fixed number of rows, each an int array of ids per column. The values of the ids are
+ * written once, in a dictionary footer at the end of the file.
+ * <p>
+ * The file starts with a header: the magic number, the format version, the row group size,
+ * and the number of columns followed by each column name in UTF-8 prefixed by its length.
+ * Each row group follows: the number of rows, then for each column an id per row, or -1 if
+ * the row has no value. The footer follows the last row group: for each column the number
+ * of values, then each value in UTF-8 prefixed by its length. The file ends with a trailer:
+ * the offset of the footer, the number of rows and the magic number again.
+ * <p>
+ * The columns are fixed when the writer is created, as for {@link CsvResultWriter}, but by
+ * default only the results are written. The dictionaries are held in memory until the
+ * writer is finished, so evidence columns, whose values such as the User-Agent are mostly
+ * distinct, need memory in proportion to the number of records and must be asked for.
+ * <p>
+ * The last row group, footer and trailer are only written by {@link #finish()}, so a file
+ * which is closed without being finished, e.g. because processing failed, is not mistaken
+ * for a complete one.
+ */
+public class ColumnarResultWriter extends ResultWriter {
+    // the first 4 bytes of a columnar results file, "51DR"
+    public static final int MAGIC = 0x35314452;
+    public static final int VERSION = 1;
+    // the default number of rows in each row group
+    public static final int DEFAULT_ROW_GROUP_SIZE = 10000;
+    // the offset of the footer, the row count and the magic number
+    static final int TRAILER_LENGTH = 8 + 8 + 4;
+    // the id of a missing value
+    static final int MISSING = -1;
+
+    private final DataOutputStream out;
+    private final List<String> columns;
+    private final int rowGroupSize;
+    // the ids of each distinct value of each column, in the order they were assigned
+    private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+    // the ids of the rows of the current row group, by column
+    private final int[][] rowGroup;
+    // reused to write a column of a row group
+    private final ByteBuffer columnBuffer;
+    private int rows = 0;
+    private long totalRows = 0;
+    private long offset = 0;
+    private boolean finished = false;
+
+    /**
+     * @param os the stream to write to, which is closed with the writer
+     * @param evidenceKeys the evidence columns, or null for none
+     * @param resultKeys the result columns
+     * @param rowGroupSize the number of rows in each row group
+     * @param flushRecords the number of records to write between flushes, though rows are
+     *                     only written when their row group is complete
+     * @throws IOException if the header can't be written
+     */
+    public ColumnarResultWriter(OutputStream os,
+                                List<String> evidenceKeys,
+                                List<String> resultKeys,
+                                int rowGroupSize,
+                                int flushRecords) throws IOException {
+        super(Objects.isNull(evidenceKeys) ?
+                Collections.<String>emptyList() : evidenceKeys, flushRecords);
+        if (rowGroupSize < 1) {
+            throw new IllegalArgumentException("Row groups must have at least 1 row");
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(os, BUFFER_SIZE));
+        this.columns = new ArrayList<>(this.evidenceKeys);
+        this.columns.addAll(resultKeys);
+        this.rowGroupSize = rowGroupSize;
+        this.rowGroup = new int[columns.size()][rowGroupSize];
+        this.columnBuffer = ByteBuffer.allocate(rowGroupSize * 4);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(rowGroupSize);
+        out.writeInt(columns.size());
+        offset += 16;
+        for (String column : columns) {
+            dictionaries.add(new HashMap<>());
+            writeString(column);
+        }
+    }
+
+    /**
+     * @return the columns, evidence followed by results
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    @Override
+    protected void writeRecord(Map<String, ?> evidence, Map<String, String> results)
+            throws IOException {
+        int column = 0;
+        for (String key : evidenceKeys) {
+            rowGroup[column][rows] = getId(column, evidence.get(key));
+            column++;
+        }
+        for (; column < columns.size(); column++) {
+            rowGroup[column][rows] = getId(column, results.get(columns.get(column)));
+        }
+        if (++rows == rowGroupSize) {
+            writeRowGroup();
+        }
+    }
+
+    /**
+     * @return the id of a value in a column's dictionary, adding it if it is new
+     */
+    private int getId(int column, Object value) {
+        if (Objects.isNull(value)) {
+            return MISSING;
+        }
+        Map<String, Integer> dictionary = dictionaries.get(column);
+        Integer id = dictionary.get(value.toString());
+        if (Objects.isNull(id)) {
+            id = dictionary.size();
+            dictionary.put(value.toString(), id);
+        }
+        return id;
+    }
+
+    private void writeRowGroup() throws IOException {
+        out.writeInt(rows);
+        offset += 4;
+        for (int[] ids : rowGroup) {
+            columnBuffer.clear();
+            columnBuffer.asIntBuffer().put(ids, 0, rows);
+            out.write(columnBuffer.array(), 0, rows * 4);
+            offset += rows * 4L;
+        }
+        totalRows += rows;
+        rows = 0;
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        offset += 4 + bytes.length;
+    }
+
+    @Override
+    protected void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Write the last row group, the dictionary footer and the trailer
+     */
+    @Override
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (rows > 0) {
+            writeRowGroup();
+        }
+        long footerOffset = offset;
+        for (Map<String, Integer> dictionary : dictionaries) {
+            // the values in id order, as they were added
+            String[] values = new String[dictionary.size()];
+            for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+                values[entry.getValue()] = entry.getKey();
+            }
+            out.writeInt(values.length);
+            offset += 4;
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+        out.writeLong(footerOffset);
+        out.writeLong(totalRows);
+        out.writeInt(MAGIC);
+        out.flush();
+        finished = true;
+    }
+
+    /**
+     * Close the stream, which is only a complete columnar file if {@link #finish()} was
+     * called first
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
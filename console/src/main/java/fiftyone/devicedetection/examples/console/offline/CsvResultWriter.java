@@ -0,0 +1,135 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.offline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes each record as a CSV row, with a header row naming the columns. The columns are
+ * fixed when the writer is created: the evidence keys followed by the result keys. Missing
+ * values are written as empty.
+ */
+public class CsvResultWriter extends ResultWriter {
+    // the evidence written if no keys are given: the User-Agent and User-Agent Client Hints
+    public static final List<String> DEFAULT_EVIDENCE_KEYS = Collections.unmodifiableList(
+            Arrays.asList(
+                    "header.user-agent",
+                    "header.sec-ch-ua",
+                    "header.sec-ch-ua-full-version-list",
+                    "header.sec-ch-ua-mobile",
+                    "header.sec-ch-ua-model",
+                    "header.sec-ch-ua-platform",
+                    "header.sec-ch-ua-platform-version"));
+
+    private final Writer writer;
+    private final List<String> resultKeys;
+    // reused for each row
+    private final StringBuilder row = new StringBuilder();
+
+    /**
+     * @param os the stream to write to, which is closed with the writer
+     * @param evidenceKeys the evidence columns, or null for {@link #DEFAULT_EVIDENCE_KEYS}
+     * @param resultKeys the result columns
+     * @param flushRecords the number of records to write between flushes
+     * @throws IOException if the header row can't be written
+     */
+    public CsvResultWriter(OutputStream os,
+                           List<String> evidenceKeys,
+                           List<String> resultKeys,
+                           int flushRecords) throws IOException {
+        super(Objects.isNull(evidenceKeys) ? DEFAULT_EVIDENCE_KEYS : evidenceKeys, flushRecords);
+        this.writer = textWriter(os);
+        this.resultKeys = resultKeys;
+        List<String> columns = new ArrayList<>(this.evidenceKeys);
+        columns.addAll(resultKeys);
+        for (String column : columns) {
+            appendValue(column);
+        }
+        endRow();
+    }
+
+    @Override
+    protected void writeRecord(Map<String, ?> evidence, Map<String, String> results)
+            throws IOException {
+        for (String key : evidenceKeys) {
+            appendValue(evidence.get(key));
+        }
+        for (String key : resultKeys) {
+            appendValue(results.get(key));
+        }
+        endRow();
+    }
+
+    private void appendValue(Object value) {
+        if (row.length() > 0) {
+            row.append(',');
+        }
+        if (Objects.isNull(value)) {
+            return;
+        }
+        String text = value.toString();
+        // quote values containing separators, quotes or line breaks
+        boolean quote = false;
+        for (int i = 0; i < text.length() && quote == false; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote == false) {
+            row.append(text);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+
+    private void endRow() throws IOException {
+        row.append('\n');
+        writer.append(row);
+        row.setLength(0);
+    }
+
+    @Override
+    protected void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,108 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.offline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes each record as a JSON object on its own line, with the evidence followed by the
+ * results as its fields.
+ */
+public class JsonLinesResultWriter extends ResultWriter {
+    private final Writer writer;
+    // reused for each line
+    private final StringBuilder line = new StringBuilder();
+
+    /**
+     * @param os the stream to write to, which is closed with the writer
+     * @param evidenceKeys the evidence keys to write, or null for all of them
+     * @param flushRecords the number of records to write between flushes
+     */
+    public JsonLinesResultWriter(OutputStream os, List<String> evidenceKeys, int flushRecords) {
+        super(evidenceKeys, flushRecords);
+        this.writer = textWriter(os);
+    }
+
+    @Override
+    protected void writeRecord(Map<String, ?> evidence, Map<String, String> results)
+            throws IOException {
+        line.append('{');
+        for (Map.Entry<String, ?> entry : project(evidence).entrySet()) {
+            appendField(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : results.entrySet()) {
+            appendField(entry.getKey(), entry.getValue());
+        }
+        line.append("}\n");
+        writer.append(line);
+        line.setLength(0);
+    }
+
+    private void appendField(String key, Object value) {
+        if (line.length() > 1) {
+            line.append(',');
+        }
+        appendString(key);
+        line.append(':');
+        if (value == null) {
+            line.append("null");
+        } else {
+            appendString(value.toString());
+        }
+    }
+
+    private void appendString(String text) {
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    @Override
+    protected void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,251 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.offline;
+
+import fiftyone.pipeline.core.data.EvidenceKeyFilter;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of detection results, so that records with the same evidence as one
+ * already processed, such as repeated User-Agents in a log, need not be detected again.
+ * <p>
+ * Results are keyed on a canonical form of the evidence the engine uses: the keys accepted
+ * by the pipeline's evidence key filter, in lower case as the filter ignores case, in
+ * sorted order, with their values. The results
+ * cached are those written, i.e. the projected property values, and must not be modified.
+ * <p>
+ * When full, an entry is evicted according to the {@link Policy}. All entries are discarded
+ * when the published date of the data file changes, e.g. because the engine has reloaded an
+ * updated file, which is checked at most every {@link #CHECK_INTERVAL_MILLIS}.
+ */
+public class ResultCache {
+    // the default number of results held
+    public static final int DEFAULT_SIZE = 10000;
+    // how often the published date of the data file is checked
+    public static final long CHECK_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Which entry is evicted when the cache is full
+     */
+    public enum Policy {
+        // the entry used least recently
+        LRU,
+        // the entry added first
+        FIFO;
+
+        /**
+         * @param name the name of a policy, in any case
+         * @return the policy
+         */
+        public static Policy parse(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Map<Key, Map<String, String>> entries;
+    private final EvidenceKeyFilter filter;
+    private final Supplier<Date> publishedDate;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final long checkIntervalNanos;
+    // the published date of the data file the entries were detected with
+    private volatile Date entriesPublished;
+    private volatile long nextCheck;
+
+    /**
+     * @param size the most results to hold
+     * @param policy which entry to evict when full
+     * @param filter the evidence used by the engine, or null if all evidence is
+     * @param publishedDate gets the published date of the data file in use
+     */
+    public ResultCache(int size,
+                       Policy policy,
+                       EvidenceKeyFilter filter,
+                       Supplier<Date> publishedDate) {
+        this(size, policy, filter, publishedDate, CHECK_INTERVAL_MILLIS);
+    }
+
+    ResultCache(int size,
+                Policy policy,
+                EvidenceKeyFilter filter,
+                Supplier<Date> publishedDate,
+                long checkIntervalMillis) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        // a LinkedHashMap in access order evicts the least recently used entry, and in
+        // insertion order the first added
+        this.entries = new LinkedHashMap<Key, Map<String, String>>(
+                16, 0.75f, policy == Policy.LRU) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Map<String, String>> eldest) {
+                return size() > size;
+            }
+        };
+        this.filter = filter;
+        this.publishedDate = publishedDate;
+        this.checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(checkIntervalMillis);
+        this.entriesPublished = publishedDate.get();
+        this.nextCheck = System.nanoTime() + checkIntervalNanos;
+    }
+
+    /**
+     * Get the results for the evidence from the cache, or if they are not cached detect them
+     * and add them. Detection is not carried out while holding the cache's lock, so other
+     * threads can use the cache meanwhile.
+     * @param evidence the evidence
+     * @param detect detects the results of the evidence on a miss
+     * @return the results
+     * @throws Exception if detection fails
+     */
+    public Map<String, String> get(Map<String, ?> evidence,
+                                   Callable<Map<String, String>> detect) throws Exception {
+        checkPublishedDate();
+        Key key = new Key(evidence, filter);
+        Map<String, String> results;
+        synchronized (entries) {
+            results = entries.get(key);
+        }
+        if (Objects.nonNull(results)) {
+            hits.increment();
+            return results;
+        }
+        misses.increment();
+        Date published = entriesPublished;
+        results = detect.call();
+        synchronized (entries) {
+            // don't cache results which may be from a data file since replaced
+            if (published == entriesPublished) {
+                entries.put(key, results);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Discard the entries if the published date of the data file has changed, if it is
+     * time to check. Only one thread checks, under the lock, so that a change is only
+     * counted once.
+     */
+    private void checkPublishedDate() {
+        long now = System.nanoTime();
+        if (now - nextCheck < 0) {
+            return;
+        }
+        synchronized (entries) {
+            if (now - nextCheck < 0) {
+                // another thread has just checked
+                return;
+            }
+            nextCheck = now + checkIntervalNanos;
+            Date published = publishedDate.get();
+            if (Objects.equals(published, entriesPublished) == false) {
+                entries.clear();
+                entriesPublished = published;
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * @return the number of results found in the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of results not found in the cache, which were detected
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of times the entries were discarded as the data file changed
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return the number of results held
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * The canonical form of the evidence used by the engine: its keys in lower case and
+     * sorted order, each followed by its value
+     */
+    private static class Key {
+        private final String[] keysAndValues;
+        private final int hash;
+
+        Key(Map<String, ?> evidence, EvidenceKeyFilter filter) {
+            String[][] pairs = new String[evidence.size()][];
+            int count = 0;
+            for (Map.Entry<String, ?> entry : evidence.entrySet()) {
+                if (Objects.isNull(filter) || filter.include(entry.getKey())) {
+                    pairs[count++] = new String[]{
+                            entry.getKey().toLowerCase(Locale.ROOT),
+                            String.valueOf(entry.getValue())};
+                }
+            }
+            Arrays.sort(pairs, 0, count, Comparator.comparing(pair -> pair[0]));
+            keysAndValues = new String[count * 2];
+            for (int i = 0; i < count; i++) {
+                keysAndValues[i * 2] = pairs[i][0];
+                keysAndValues[i * 2 + 1] = pairs[i][1];
+            }
+            hash = Arrays.hashCode(keysAndValues);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key &&
+                    hash == ((Key) other).hash &&
+                    Arrays.equals(keysAndValues, ((Key) other).keysAndValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
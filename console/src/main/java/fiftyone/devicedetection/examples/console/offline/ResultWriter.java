@@ -0,0 +1,185 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.offline;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes the evidence and results of each record processed offline. Output is buffered and
+ * only flushed every {@link #getFlushRecords()} records, and when closed, rather than after
+ * every record.
+ * <p>
+ * The evidence written can be restricted to a list of keys, in that order, and the results
+ * are written in the order of the map passed, keyed e.g. "device.ismobile".
+ */
+public abstract class ResultWriter implements Closeable {
+    // the default number of records written between flushes
+    public static final int DEFAULT_FLUSH_RECORDS = 1000;
+    // the size of the buffer in front of the output stream
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The formats results can be written in
+     */
+    public enum Format {
+        // a YAML document per record, as the evidence file
+        YAML,
+        // a row per record with a header row naming the columns
+        CSV,
+        // a JSON object per line
+        JSONL,
+        // dictionary encoded columns in row groups, see ColumnarResultWriter
+        COLUMNAR;
+
+        /**
+         * @param name the name of a format, in any case
+         * @return the format
+         */
+        public static Format parse(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    // the evidence keys to write, or null for all of them
+    protected final List<String> evidenceKeys;
+    private final int flushRecords;
+    private int unflushed = 0;
+
+    /**
+     * @param evidenceKeys the evidence keys to write, or null for all of them
+     * @param flushRecords the number of records to write between flushes
+     */
+    protected ResultWriter(List<String> evidenceKeys, int flushRecords) {
+        if (flushRecords < 1) {
+            throw new IllegalArgumentException("Records between flushes must be at least 1");
+        }
+        this.evidenceKeys = evidenceKeys;
+        this.flushRecords = flushRecords;
+    }
+
+    /**
+     * Create a writer for a format
+     * @param format the format to write
+     * @param os the stream to write to, which is closed with the writer
+     * @param evidenceKeys the evidence keys to write, or null for all of them, for CSV
+     *                     {@link CsvResultWriter#DEFAULT_EVIDENCE_KEYS} and for columnar
+     *                     none
+     * @param resultKeys the result keys to write, which name the CSV and columnar columns
+     * @param flushRecords the number of records to write between flushes
+     * @return a new writer
+     */
+    public static ResultWriter create(Format format,
+                                      OutputStream os,
+                                      List<String> evidenceKeys,
+                                      List<String> resultKeys,
+                                      int flushRecords) throws IOException {
+        switch (format) {
+            case CSV:
+                return new CsvResultWriter(os, evidenceKeys, resultKeys, flushRecords);
+            case JSONL:
+                return new JsonLinesResultWriter(os, evidenceKeys, flushRecords);
+            case COLUMNAR:
+                return new ColumnarResultWriter(os, evidenceKeys, resultKeys,
+                        ColumnarResultWriter.DEFAULT_ROW_GROUP_SIZE, flushRecords);
+            default:
+                return new YamlResultWriter(os, evidenceKeys, flushRecords);
+        }
+    }
+
+    /**
+     * @return the number of records written between flushes
+     */
+    public int getFlushRecords() {
+        return flushRecords;
+    }
+
+    /**
+     * Write a record, flushing if enough records have been written since the last flush
+     * @param evidence the evidence
+     * @param results the results
+     * @throws IOException on write errors
+     */
+    public void write(Map<String, ?> evidence, Map<String, String> results) throws IOException {
+        writeRecord(evidence, results);
+        if (++unflushed >= flushRecords) {
+            flush();
+            unflushed = 0;
+        }
+    }
+
+    /**
+     * Write a record without flushing
+     */
+    protected abstract void writeRecord(Map<String, ?> evidence, Map<String, String> results)
+            throws IOException;
+
+    /**
+     * Flush the records written
+     */
+    protected abstract void flush() throws IOException;
+
+    /**
+     * Complete the output once every record has been written, before closing. A format
+     * which ends with a trailer only writes it here, so output which is closed without
+     * being finished can be told from complete output.
+     * @throws IOException on write errors
+     */
+    public void finish() throws IOException {
+        flush();
+    }
+
+    /**
+     * @return the evidence restricted to {@link #evidenceKeys}, in that order
+     */
+    protected Map<String, ?> project(Map<String, ?> evidence) {
+        if (Objects.isNull(evidenceKeys)) {
+            return evidence;
+        }
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (String key : evidenceKeys) {
+            Object value = evidence.get(key);
+            if (Objects.nonNull(value)) {
+                projected.put(key, value);
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * @return a buffered UTF-8 writer for a stream
+     */
+    static Writer textWriter(OutputStream os) {
+        return new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
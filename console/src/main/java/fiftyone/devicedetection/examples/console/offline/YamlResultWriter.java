@@ -0,0 +1,76 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.offline;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes each record as a YAML document of its evidence followed by its results, ending
+ * the output with a document end marker.
+ */
+public class YamlResultWriter extends ResultWriter {
+    private final Writer writer;
+    private final Yaml yaml;
+
+    /**
+     * @param os the stream to write to, which is closed with the writer
+     * @param evidenceKeys the evidence keys to write, or null for all of them
+     * @param flushRecords the number of records to write between flushes
+     */
+    public YamlResultWriter(OutputStream os, List<String> evidenceKeys, int flushRecords) {
+        super(evidenceKeys, flushRecords);
+        this.writer = textWriter(os);
+        DumperOptions dumperOptions = new DumperOptions();
+        dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        dumperOptions.setDefaultScalarStyle(DumperOptions.ScalarStyle.PLAIN);
+        dumperOptions.setSplitLines(false);
+        this.yaml = new Yaml(dumperOptions);
+    }
+
+    @Override
+    protected void writeRecord(Map<String, ?> evidence, Map<String, String> results)
+            throws IOException {
+        writer.write("---\n");
+        yaml.dump(project(evidence), writer);
+        yaml.dump(results, writer);
+    }
+
+    @Override
+    protected void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // finish the last YAML document
+        writer.write("...\n");
+        writer.close();
+    }
+}
@@ -0,0 +1,222 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Benchmark results saved from an earlier run, to compare later runs with, for example to
+ * find regressions following an upgrade of the data file or of the device detection
+ * library. Results are matched by their "label" column, and a result has regressed if its
+ * throughput has fallen, or its p99 latency has risen, by more than a tolerance.
+ * <p>
+ * Baselines are saved as CSV, as written by {@link ResultsWriter}.
+ */
+public class Baseline {
+    // the default fraction by which throughput may fall before it is a regression
+    public static final double DEFAULT_THROUGHPUT_TOLERANCE = 0.1;
+    // the default fraction by which p99 latency may rise before it is a regression
+    public static final double DEFAULT_P99_TOLERANCE = 0.2;
+
+    // the columns compared
+    static final String LABEL = "label";
+    static final String THROUGHPUT = "detectionsPerSecond";
+    static final String P99 = "p99Micros";
+
+    // the baseline results by label
+    private final Map<String, Map<String, String>> results = new LinkedHashMap<>();
+
+    private Baseline() {
+    }
+
+    /**
+     * Save results to be used as a baseline by later runs
+     * @param file the file to write
+     * @param results the results, one map per row, as written by {@link ResultsWriter}
+     * @throws IOException on file errors
+     */
+    public static void save(File file, List<Map<String, Object>> results) throws IOException {
+        if (Objects.nonNull(file.getAbsoluteFile().getParentFile())) {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        }
+        try (Writer writer = new OutputStreamWriter(
+                Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            ResultsWriter.writeCsv(writer, results);
+        }
+    }
+
+    /**
+     * Load a baseline saved by {@link #save(File, List)}
+     * @param file the file to read
+     * @return the baseline
+     * @throws IOException on file errors, or if the file has no label column
+     */
+    public static Baseline load(File file) throws IOException {
+        try (Reader reader = new InputStreamReader(
+                Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * Load a baseline from CSV
+     * @param reader to read from
+     * @return the baseline
+     * @throws IOException on read errors, or if there is no label column
+     */
+    public static Baseline load(Reader reader) throws IOException {
+        List<List<String>> rows = parseCsv(reader);
+        Baseline baseline = new Baseline();
+        if (rows.isEmpty()) {
+            return baseline;
+        }
+        List<String> columns = rows.get(0);
+        if (!columns.contains(LABEL)) {
+            throw new IOException("Baseline has no " + LABEL + " column");
+        }
+        for (List<String> row : rows.subList(1, rows.size())) {
+            Map<String, String> result = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size() && i < row.size(); i++) {
+                result.put(columns.get(i), row.get(i));
+            }
+            baseline.results.put(result.get(LABEL), result);
+        }
+        return baseline;
+    }
+
+    /**
+     * @return the labels of the results in the baseline
+     */
+    public Set<String> getLabels() {
+        return Collections.unmodifiableSet(results.keySet());
+    }
+
+    /**
+     * Compare results with the baseline
+     * @param current the results of this run, as written by {@link ResultsWriter}
+     * @param throughputTolerance the fraction by which throughput may fall e.g. 0.1
+     * @param p99Tolerance the fraction by which p99 latency may rise e.g. 0.2
+     * @return a description of each regression, naming the configuration, empty if none
+     */
+    public List<String> compare(List<Map<String, Object>> current,
+                                double throughputTolerance,
+                                double p99Tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Map<String, Object> result : current) {
+            String label = String.valueOf(result.get(LABEL));
+            Map<String, String> base = results.get(label);
+            if (Objects.isNull(base)) {
+                continue;
+            }
+            double baseThroughput = getDouble(base.get(THROUGHPUT));
+            double throughput = getDouble(result.get(THROUGHPUT));
+            if (throughput < baseThroughput * (1 - throughputTolerance)) {
+                regressions.add(String.format("%s: detections per second %,d is more than " +
+                                "%.0f%% below the baseline %,d",
+                        label, Math.round(throughput), throughputTolerance * 100,
+                        Math.round(baseThroughput)));
+            }
+            double baseP99 = getDouble(base.get(P99));
+            double p99 = getDouble(result.get(P99));
+            if (p99 > baseP99 * (1 + p99Tolerance)) {
+                regressions.add(String.format("%s: p99 latency %.1f microsecs is more than " +
+                                "%.0f%% above the baseline %.1f",
+                        label, p99, p99Tolerance * 100, baseP99));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * @param value a number, or its string form
+     * @return the value, or NaN if missing, so that it never compares as a regression
+     */
+    private static double getDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (Objects.isNull(value) || value.toString().isEmpty()) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Parse CSV in which values may be quoted, with quotes doubled inside quoted values
+     * @param reader to read from
+     * @return the rows
+     * @throws IOException on read errors
+     */
+    static List<List<String>> parseCsv(Reader reader) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        BufferedReader in = new BufferedReader(reader);
+        int c;
+        while ((c = in.read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    if (in.read() == '"') {
+                        value.append('"');
+                    } else {
+                        in.reset();
+                        quoted = false;
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                empty = false;
+            } else if (c == ',') {
+                row.add(value.toString());
+                value.setLength(0);
+                empty = false;
+            } else if (c == '\n') {
+                row.add(value.toString());
+                rows.add(row);
+                row = new ArrayList<>();
+                value.setLength(0);
+                empty = true;
+            } else if (c != '\r') {
+                value.append((char) c);
+                empty = false;
+            }
+        }
+        if (!empty) {
+            row.add(value.toString());
+            rows.add(row);
+        }
+        return rows;
+    }
+}
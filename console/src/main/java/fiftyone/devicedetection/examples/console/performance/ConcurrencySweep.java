@@ -0,0 +1,96 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs a benchmark with each of a list of engine concurrency settings, rather than the
+ * setting needed by the number of threads, to show the effect of over or under
+ * provisioning it.
+ */
+public class ConcurrencySweep {
+
+    /**
+     * A benchmark, building its pipeline with the setting given by
+     * {@link #getConcurrency()}
+     */
+    @FunctionalInterface
+    public interface Benchmark {
+        /**
+         * @throws Exception from the benchmark
+         */
+        void run() throws Exception;
+    }
+
+    private final List<Integer> concurrencies;
+    // the setting of the benchmark being run, 0 if none is
+    private int concurrency = 0;
+
+    /**
+     * @param concurrencies the engine concurrency settings, each at least 1
+     */
+    public ConcurrencySweep(List<Integer> concurrencies) {
+        if (concurrencies.isEmpty()) {
+            throw new IllegalArgumentException("Concurrency sweep needs at least one value");
+        }
+        for (int concurrency : concurrencies) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Concurrency must be at least 1");
+            }
+        }
+        this.concurrencies = Collections.unmodifiableList(new ArrayList<>(concurrencies));
+    }
+
+    /**
+     * Run the benchmark once with each setting
+     * @param benchmark the benchmark
+     * @throws Exception from the benchmark
+     */
+    public void run(Benchmark benchmark) throws Exception {
+        for (int setting : concurrencies) {
+            concurrency = setting;
+            try {
+                benchmark.run();
+            } finally {
+                concurrency = 0;
+            }
+        }
+    }
+
+    /**
+     * @return the settings, in the order run
+     */
+    public List<Integer> getConcurrencies() {
+        return concurrencies;
+    }
+
+    /**
+     * @return the setting of the benchmark being run, 0 if none is
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+}
@@ -0,0 +1,124 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import fiftyone.devicedetection.examples.shared.ExecutorHelper;
+import fiftyone.devicedetection.examples.shared.ExecutorHelper.Threading;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Carries out detections continuously on a number of threads until closed. Each thread
+ * starts at a different record of the evidence, wrapping round to the first after the last.
+ * The latency of every detection is recorded, so that throughput and latency can be measured
+ * over windows of any length by {@link WarmUp} and {@link SoakTest}.
+ */
+public class ContinuousLoad implements AutoCloseable {
+
+    /**
+     * Carries out a single detection
+     */
+    @FunctionalInterface
+    public interface Detection {
+        /**
+         * @param evidence the evidence for the detection
+         * @throws Exception from the pipeline
+         */
+        void detect(Map<String, String> evidence) throws Exception;
+    }
+
+    private final Recorder recorder;
+    private final AtomicBoolean stop = new AtomicBoolean(false);
+    private final ExecutorService service;
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    /**
+     * Start the detections
+     * @param evidence the records to detect, at least one
+     * @param detection carries out each detection
+     * @param threading the threading model
+     * @param threads the number of threads
+     * @param significantDigits the number of significant digits of the latencies recorded
+     */
+    public ContinuousLoad(List<Map<String, String>> evidence,
+                          Detection detection,
+                          Threading threading,
+                          int threads,
+                          int significantDigits) {
+        if (evidence.isEmpty()) {
+            throw new IllegalArgumentException("There must be some evidence to detect");
+        }
+        this.recorder = new Recorder(significantDigits);
+        this.service = ExecutorHelper.newExecutor(threading, threads);
+        for (int i = 0; i < threads; i++) {
+            int offset = (int) ((long) i * evidence.size() / threads);
+            futures.add(service.submit(() -> {
+                // wrap the index, as a count of detections would overflow in a long run
+                for (int j = offset; !stop.get(); j = (j + 1) % evidence.size()) {
+                    long start = System.nanoTime();
+                    detection.detect(evidence.get(j));
+                    recorder.recordValue(System.nanoTime() - start);
+                }
+                return null;
+            }));
+        }
+    }
+
+    /**
+     * Surface any exception which stopped a thread, rather than measuring those left
+     * @throws Exception the exception thrown by a detection
+     */
+    public void checkThreads() throws Exception {
+        for (Future<?> future : futures) {
+            if (future.isDone()) {
+                future.get();
+            }
+        }
+    }
+
+    /**
+     * @return the latencies, in nanoseconds, of the detections since the last call
+     */
+    public Histogram getIntervalHistogram() {
+        return recorder.getIntervalHistogram();
+    }
+
+    /**
+     * Stop the detections, waiting for those in progress to finish
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public void close() throws InterruptedException {
+        stop.set(true);
+        service.shutdown();
+        service.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,51 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import fiftyone.devicedetection.examples.shared.BinaryEvidenceCorpus;
+
+import java.io.File;
+
+/**
+ * Converts a YAML evidence file, or a corpus captured by the web examples, to a
+ * {@link BinaryEvidenceCorpus}, which {@code PerformanceBenchmark --corpus=<file>} can
+ * replay without loading every record into memory.
+ * <p>
+ * Usage: {@code CorpusConverter <input file> <output file>}
+ */
+public class CorpusConverter {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: CorpusConverter <input file> <output file>");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        File output = new File(args[1]);
+        long start = System.nanoTime();
+        long records = BinaryEvidenceCorpus.convert(input, output);
+        System.out.format("Converted %,d records from %s to %s (%,d bytes) in %,d ms%n",
+                records, input, output, output.length(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
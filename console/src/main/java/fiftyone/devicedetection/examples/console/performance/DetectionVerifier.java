@@ -0,0 +1,230 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import fiftyone.devicedetection.examples.shared.ExecutorHelper;
+import fiftyone.devicedetection.examples.shared.ExecutorHelper.Threading;
+import fiftyone.devicedetection.examples.shared.PropertyHelper;
+import fiftyone.devicedetection.shared.DeviceData;
+import fiftyone.pipeline.core.data.FlowData;
+import fiftyone.pipeline.core.flowelements.Pipeline;
+import fiftyone.pipeline.engines.data.AspectPropertyValue;
+
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Checks that detections give the same results under contention as they do on a single
+ * thread. Each record of the evidence is detected on a single thread to give the reference
+ * values of the properties, then every thread detects every record, each starting at a
+ * different record, and every value is compared with the reference.
+ */
+public class DetectionVerifier {
+    // properties compared by default, those which aren't available being compared as such
+    public static final List<String> DEFAULT_PROPERTIES = Collections.unmodifiableList(
+            Arrays.asList("IsMobile", "DeviceType", "HardwareVendor", "HardwareName",
+                    "PlatformName", "PlatformVersion", "BrowserName", "BrowserVersion"));
+    // the most mismatches described, all being counted
+    public static final int MAX_DESCRIBED_MISMATCHES = 20;
+
+    private final Pipeline pipeline;
+    private final List<Map<String, String>> evidence;
+    private final List<String> properties;
+    // the values of the properties for each record, detected on a single thread
+    private String[][] reference = null;
+
+    /**
+     * @param pipeline the pipeline to verify
+     * @param evidence the records to detect
+     * @param properties the names of the properties to compare
+     */
+    public DetectionVerifier(Pipeline pipeline,
+                             List<Map<String, String>> evidence,
+                             List<String> properties) {
+        this.pipeline = pipeline;
+        this.evidence = evidence;
+        this.properties = properties;
+    }
+
+    /**
+     * Detect the evidence, getting the value of each property as a string
+     * @param pipeline the pipeline to use
+     * @param evidence the evidence
+     * @param properties the names of the properties
+     * @return the values, in the order of the properties, those which are not available
+     * being given as such
+     * @throws Exception on detection errors
+     */
+    public static String[] getValues(Pipeline pipeline,
+                                     Map<String, String> evidence,
+                                     List<String> properties) throws Exception {
+        String[] values = new String[properties.size()];
+        // A try-with-resource block MUST be used for the
+        // FlowData instance. This ensures that native resources
+        // created by the device detection engine are freed.
+        try (FlowData flowData = pipeline.createFlowData()) {
+            flowData.addEvidence(evidence).process();
+            DeviceData device = flowData.get(DeviceData.class);
+            for (int i = 0; i < values.length; i++) {
+                String property = properties.get(i);
+                @SuppressWarnings("unchecked")
+                AspectPropertyValue<Object> value = PropertyHelper.tryGet(
+                        () -> (AspectPropertyValue<Object>) device.get(property));
+                values[i] = PropertyHelper.asString(value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Detect every record on a single thread to find the reference values
+     * @throws Exception on detection errors
+     */
+    public void runReference() throws Exception {
+        String[][] values = new String[evidence.size()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getValues(pipeline, evidence.get(i), properties);
+        }
+        reference = values;
+    }
+
+    /**
+     * Detect every record on each of the threads, comparing the values with the reference
+     * @param threading the threading model
+     * @param threads the number of threads
+     * @return the outcome
+     * @throws Exception on detection errors
+     */
+    public Result verify(Threading threading, int threads) throws Exception {
+        if (Objects.isNull(reference)) {
+            runReference();
+        }
+        List<Callable<Result>> callables = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final int thread = i;
+            int offset = (int) ((long) thread * evidence.size() / threads);
+            callables.add(() -> verify(thread, offset));
+        }
+        ExecutorService service = ExecutorHelper.newExecutor(threading, threads);
+        Result result = new Result();
+        try {
+            for (Future<Result> future : service.invokeAll(callables)) {
+                result.add(future.get());
+            }
+        } finally {
+            service.shutdown();
+        }
+        return result;
+    }
+
+    /**
+     * Write a line giving the outcome of verifying, then a line for each mismatch described
+     * @param result the outcome, see {@link #verify(Threading, int)}
+     * @param label identifies the pipeline verified
+     * @param threads the number of threads verified on
+     * @param writer to write to
+     * @return the failures prefixed by the label, the mismatches not described being counted
+     * in a last failure
+     */
+    public List<String> report(Result result, String label, int threads, PrintWriter writer) {
+        List<String> failures = new ArrayList<>();
+        writer.format("Verify: %s, Threads: %d, Detections compared: %,d, Properties: %s, " +
+                        "Mismatches: %,d%n",
+                label, threads, result.getDetections(), properties, result.getMismatches());
+        for (String mismatch : result.getDescribedMismatches()) {
+            writer.println("Mismatch: " + label + ": " + mismatch);
+            failures.add(label + ": " + mismatch);
+        }
+        if (result.getMismatches() > result.getDescribedMismatches().size()) {
+            failures.add(label + ": " + (result.getMismatches() -
+                    result.getDescribedMismatches().size()) + " more mismatches");
+        }
+        return failures;
+    }
+
+    /**
+     * Detect every record, starting at the offset, comparing with the reference
+     */
+    private Result verify(int thread, int offset) throws Exception {
+        Result result = new Result();
+        for (int j = 0; j < evidence.size(); j++) {
+            int record = (offset + j) % evidence.size();
+            String[] values = getValues(pipeline, evidence.get(record), properties);
+            result.detections++;
+            for (int k = 0; k < values.length; k++) {
+                if (!values[k].equals(reference[record][k])) {
+                    result.addMismatch(String.format(
+                            "record %d, %s: expected '%s' but thread %d got '%s'",
+                            record, properties.get(k), reference[record][k], thread, values[k]));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The outcome of verifying detections
+     */
+    public static class Result {
+        // the number of detections compared
+        private long detections = 0;
+        private long mismatches = 0;
+        // descriptions of the first mismatches
+        private final List<String> described = new ArrayList<>();
+
+        private void addMismatch(String description) {
+            mismatches++;
+            if (described.size() < MAX_DESCRIBED_MISMATCHES) {
+                described.add(description);
+            }
+        }
+
+        private void add(Result other) {
+            detections += other.detections;
+            mismatches += other.mismatches;
+            for (String description : other.described) {
+                if (described.size() < MAX_DESCRIBED_MISMATCHES) {
+                    described.add(description);
+                }
+            }
+        }
+
+        public long getDetections() {
+            return detections;
+        }
+
+        public long getMismatches() {
+            return mismatches;
+        }
+
+        /**
+         * @return descriptions of up to {@link #MAX_DESCRIBED_MISMATCHES} mismatches
+         */
+        public List<String> getDescribedMismatches() {
+            return Collections.unmodifiableList(described);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Detects drift in a value measured over a series of windows, such as memory use or
+ * throughput during a soak test. A straight line is fitted to the most recent windows, and
+ * the value is drifting if the line rises, or for a downward detector falls, by more than a
+ * tolerance, as a fraction of the mean, across those windows.
+ */
+public class DriftDetector {
+    // the default number of recent windows considered
+    public static final int DEFAULT_WINDOWS = 6;
+    // the default fraction of the mean by which the value may rise across the windows
+    public static final double DEFAULT_TOLERANCE = 0.05;
+
+    private final int windows;
+    private final double tolerance;
+    // true if a falling value is drifting, rather than a rising one
+    private final boolean downward;
+    // the values of the most recent windows
+    private final Deque<Double> recent = new ArrayDeque<>();
+
+    /**
+     * Construct with the default number of windows
+     * @param tolerance the fraction of the mean by which the value may rise
+     */
+    public DriftDetector(double tolerance) {
+        this(DEFAULT_WINDOWS, tolerance);
+    }
+
+    /**
+     * @param windows the number of recent windows considered, at least 2
+     * @param tolerance the fraction of the mean by which the value may rise
+     */
+    public DriftDetector(int windows, double tolerance) {
+        this(windows, tolerance, false);
+    }
+
+    /**
+     * @param windows the number of recent windows considered, at least 2
+     * @param tolerance the fraction of the mean by which the value may rise, or fall
+     * @param downward true to detect the value falling, such as throughput, rather than
+     *                 rising
+     */
+    public DriftDetector(int windows, double tolerance, boolean downward) {
+        if (windows < 2) {
+            throw new IllegalArgumentException("At least 2 windows are needed");
+        }
+        this.windows = windows;
+        this.tolerance = tolerance;
+        this.downward = downward;
+    }
+
+    /**
+     * Construct with the default number of windows, to detect a value falling
+     * @param tolerance the fraction of the mean by which the value may fall
+     * @return a new detector
+     */
+    public static DriftDetector downward(double tolerance) {
+        return new DriftDetector(DEFAULT_WINDOWS, tolerance, true);
+    }
+
+    /**
+     * Add the value of the latest window
+     * @param value the value, negative or NaN if it could not be measured
+     * @return true if the value is drifting upward, or for a downward detector downward
+     */
+    public boolean add(double value) {
+        if (Double.isNaN(value) || value < 0) {
+            return false;
+        }
+        recent.addLast(value);
+        if (recent.size() > windows) {
+            recent.removeFirst();
+        }
+        return (downward ? -getRise() : getRise()) > tolerance * getMean();
+    }
+
+    /**
+     * @return the rise of a least squares line fitted to the recent windows, from the first
+     * to the last, 0 until enough windows have been added
+     */
+    public double getRise() {
+        int n = recent.size();
+        if (n < windows) {
+            return 0;
+        }
+        double meanX = (n - 1) / 2.0;
+        double meanY = getMean();
+        double covariance = 0;
+        double variance = 0;
+        int x = 0;
+        for (double y : recent) {
+            covariance += (x - meanX) * (y - meanY);
+            variance += (x - meanX) * (x - meanX);
+            x++;
+        }
+        return covariance / variance * (n - 1);
+    }
+
+    private double getMean() {
+        double sum = 0;
+        for (double value : recent) {
+            sum += value;
+        }
+        return recent.isEmpty() ? 0 : sum / recent.size();
+    }
+}
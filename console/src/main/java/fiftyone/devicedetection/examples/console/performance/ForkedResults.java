@@ -0,0 +1,175 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+
+/**
+ * Passes the results of benchmarks run in a child JVM back to its parent. The child writes
+ * each result to its standard output as marked lines, which the parent picks out from the
+ * rest of the output as it reads it, passing on the other lines to be shown as they are.
+ */
+public class ForkedResults implements Consumer<String> {
+    // marks the lines of a child JVM's output which carry its results
+    public static final String RESULT_PREFIX = "Forked result: ";
+    // marks the lines of a child JVM's output which carry the latency histogram of a result
+    public static final String LATENCY_PREFIX = "Forked latency: ";
+    // marks the lines of a child JVM's output which carry a verification failure
+    public static final String VERIFICATION_PREFIX = "Forked verification failure: ";
+
+    /**
+     * A result read from a child JVM
+     */
+    public static class Result {
+        private final Map<String, Object> columns;
+        private final Histogram latency;
+
+        private Result(Map<String, Object> columns, Histogram latency) {
+            this.columns = columns;
+            this.latency = latency;
+        }
+
+        /**
+         * @return the result as written by {@link ResultsWriter}
+         */
+        public Map<String, Object> getColumns() {
+            return columns;
+        }
+
+        /**
+         * @return the latency histogram of the result
+         */
+        public Histogram getLatency() {
+            return latency;
+        }
+    }
+
+    // receives the lines which are not results
+    private final Consumer<String> output;
+    private final List<String> resultLines = new ArrayList<>();
+    private final List<String> latencyLines = new ArrayList<>();
+    private final List<String> verificationFailures = new ArrayList<>();
+
+    /**
+     * @param output receives the lines of the child's output which are not results
+     */
+    public ForkedResults(Consumer<String> output) {
+        this.output = output;
+    }
+
+    /**
+     * Write a result from the child JVM
+     * @param writer the child's standard output
+     * @param columns the result, as written by {@link ResultsWriter}
+     * @param latency the latency histogram of the result
+     * @throws IOException on write errors
+     */
+    public static void writeResult(PrintWriter writer,
+                                   Map<String, Object> columns,
+                                   Histogram latency) throws IOException {
+        StringWriter csv = new StringWriter();
+        ResultsWriter.writeCsv(csv, Collections.singletonList(columns));
+        for (String line : csv.toString().split("\\R")) {
+            writer.println(RESULT_PREFIX + line);
+        }
+        writer.println(LATENCY_PREFIX + encode(latency));
+    }
+
+    /**
+     * Write a verification failure from the child JVM
+     * @param writer the child's standard output
+     * @param failure the description of the failure
+     */
+    public static void writeVerificationFailure(PrintWriter writer, String failure) {
+        writer.println(VERIFICATION_PREFIX + failure);
+    }
+
+    /**
+     * @param latency the histogram
+     * @return the histogram compressed and Base64 encoded, to fit on a line
+     */
+    public static String encode(Histogram latency) {
+        ByteBuffer buffer = ByteBuffer.allocate(latency.getNeededByteBufferCapacity());
+        int length = latency.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    /**
+     * @param latency a histogram written by {@link #encode(Histogram)}
+     * @return the histogram
+     * @throws DataFormatException if the histogram can't be decoded
+     */
+    public static Histogram decode(String latency) throws DataFormatException {
+        return Histogram.decodeFromCompressedByteBuffer(
+                ByteBuffer.wrap(Base64.getDecoder().decode(latency)), 0);
+    }
+
+    /**
+     * Read a line of the child's output, keeping it if it is a result or passing it on
+     * @param line the line
+     */
+    @Override
+    public void accept(String line) {
+        if (line.startsWith(RESULT_PREFIX)) {
+            resultLines.add(line.substring(RESULT_PREFIX.length()));
+        } else if (line.startsWith(LATENCY_PREFIX)) {
+            latencyLines.add(line.substring(LATENCY_PREFIX.length()));
+        } else if (line.startsWith(VERIFICATION_PREFIX)) {
+            verificationFailures.add(line.substring(VERIFICATION_PREFIX.length()));
+        } else {
+            output.accept(line);
+        }
+    }
+
+    /**
+     * @return the results read, in the order written
+     * @throws IOException if a result can't be read
+     * @throws DataFormatException if a latency histogram can't be decoded
+     */
+    public List<Result> getResults() throws IOException, DataFormatException {
+        List<Result> results = new ArrayList<>();
+        // each result is a header row followed by a value row, then its latency
+        for (int i = 0; i + 1 < resultLines.size(); i += 2) {
+            Map<String, Object> columns = ResultsWriter.readCsv(new StringReader(
+                    resultLines.get(i) + "\n" + resultLines.get(i + 1))).get(0);
+            results.add(new Result(columns, decode(latencyLines.get(i / 2))));
+        }
+        return results;
+    }
+
+    /**
+     * @return the verification failures read, in the order written
+     */
+    public List<String> getVerificationFailures() {
+        return Collections.unmodifiableList(verificationFailures);
+    }
+}
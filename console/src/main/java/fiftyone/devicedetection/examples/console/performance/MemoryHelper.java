@@ -0,0 +1,122 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Measures the memory used by the process. The device detection engine holds its data
+ * outside the Java heap, so both the heap and the resident set size (RSS) of the process
+ * are needed to understand the memory used by a configuration.
+ * <p>
+ * Resident memory is read from /proc/self/status, so is only available on Linux. Memory
+ * freed by the engine is not necessarily returned to the operating system, so when
+ * comparing configurations run one after another in the same JVM, the resident memory of
+ * later runs may include some left over from earlier ones.
+ */
+public class MemoryHelper {
+    // Linux process status, see "man proc"
+    private static final File PROC_STATUS = new File("/proc/self/status");
+
+    /**
+     * Collect garbage, then measure the heap in use
+     * @return bytes of heap used
+     */
+    public static long getHeapUsedAfterGc() {
+        System.gc();
+        return getHeapUsed();
+    }
+
+    /**
+     * @return bytes of heap currently used, including garbage not yet collected
+     */
+    public static long getHeapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * The heap used immediately after the most recent garbage collection of each heap
+     * memory pool. Unlike the heap used at an arbitrary time, this does not rise and fall
+     * with garbage, so shows growth in live objects without forcing a collection.
+     * @return bytes of heap used after the last collection, or -1 if not available
+     */
+    public static long getHeapUsedAfterLastGc() {
+        long used = 0;
+        boolean available = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    used += usage.getUsed();
+                    available = true;
+                }
+            }
+        }
+        return available ? used : -1;
+    }
+
+    /**
+     * @return the resident set size of the process in bytes, or -1 if not available
+     */
+    public static long getResidentBytes() {
+        return getProcStatusBytes("VmRSS:");
+    }
+
+    /**
+     * @param bytes a number of bytes, or -1 if not available
+     * @return the number of whole megabytes, or "n/a" if not available
+     */
+    public static String toMegabytes(long bytes) {
+        return bytes < 0 ? "n/a" : String.format("%,d", bytes / (1024 * 1024));
+    }
+
+    /**
+     * Read a field of /proc/self/status, whose values are given in kB
+     * @param field the field name including the trailing ':'
+     * @return the value in bytes, or -1 if not available
+     */
+    private static long getProcStatusBytes(String field) {
+        if (!PROC_STATUS.exists()) {
+            return -1;
+        }
+        try {
+            List<String> lines = Files.readAllLines(PROC_STATUS.toPath(), StandardCharsets.UTF_8);
+            for (String line : lines) {
+                if (line.startsWith(field)) {
+                    String[] parts = line.substring(field.length()).trim().split("\\s+");
+                    return Long.parseLong(parts[0]) * 1024;
+                }
+            }
+        } catch (Exception e) {
+            // fall through to not available
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,99 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+/**
+ * Samples the heap used and resident memory of the process on a background thread from
+ * construction until closed, to find the peak memory used during an operation such as
+ * loading a data file. Short lived peaks between samples are missed.
+ */
+public class PeakMemorySampler implements AutoCloseable {
+    // the default millis between samples
+    public static final long DEFAULT_INTERVAL_MILLIS = 10;
+
+    private final long intervalMillis;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile long peakHeapBytes = -1;
+    private volatile long peakResidentBytes = -1;
+
+    /**
+     * Start sampling at the default interval
+     */
+    public PeakMemorySampler() {
+        this(DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Start sampling
+     * @param intervalMillis millis between samples
+     */
+    public PeakMemorySampler(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+        sample();
+        thread = new Thread(this::run, "peak-memory-sampler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        while (running) {
+            sample();
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void sample() {
+        peakHeapBytes = Math.max(peakHeapBytes, MemoryHelper.getHeapUsed());
+        peakResidentBytes = Math.max(peakResidentBytes, MemoryHelper.getResidentBytes());
+    }
+
+    /**
+     * @return the most heap used in any sample, in bytes
+     */
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    /**
+     * @return the largest resident set size in any sample, in bytes, -1 if not available
+     */
+    public long getPeakResidentBytes() {
+        return peakResidentBytes;
+    }
+
+    /**
+     * Stop sampling, taking a final sample
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join();
+        sample();
+    }
+}
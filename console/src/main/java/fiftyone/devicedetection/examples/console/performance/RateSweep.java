@@ -0,0 +1,100 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+/**
+ * Finds the highest rate of detections which can be sustained, by measuring at a rate
+ * which increases by a factor each step until less than a threshold fraction of it is
+ * achieved.
+ */
+public class RateSweep {
+
+    /**
+     * Measures the detections carried out when trying for a rate
+     */
+    @FunctionalInterface
+    public interface Measurement {
+        /**
+         * @param rate the target detections per second
+         * @return the detections per second achieved
+         * @throws Exception from the measurement
+         */
+        double measure(double rate) throws Exception;
+    }
+
+    private final double startRate;
+    private final double factor;
+    private final double threshold;
+    // the highest rate achieved, 0 if none was
+    private double sustainedRate = 0;
+    // the first rate not achieved
+    private double saturatedRate = Double.NaN;
+
+    /**
+     * @param startRate the first rate, detections per second
+     * @param factor the factor by which the rate increases each step, more than 1
+     * @param threshold a rate is sustained if this fraction of it is achieved, at most 1
+     */
+    public RateSweep(double startRate, double factor, double threshold) {
+        if (startRate <= 0) {
+            throw new IllegalArgumentException("The starting rate must be positive");
+        }
+        if (factor <= 1) {
+            throw new IllegalArgumentException("The rate must increase by a factor above 1");
+        }
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("The threshold must be above 0 and at most 1");
+        }
+        this.startRate = startRate;
+        this.factor = factor;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Measure at increasing rates until one is not sustained
+     * @param measurement carries out the measurement at each rate
+     * @throws Exception from the measurement
+     */
+    public void run(Measurement measurement) throws Exception {
+        double rate = startRate;
+        while (measurement.measure(rate) >= rate * threshold) {
+            sustainedRate = rate;
+            rate *= factor;
+        }
+        saturatedRate = rate;
+    }
+
+    /**
+     * @return the highest rate sustained, 0 if none was
+     */
+    public double getSustainedRate() {
+        return sustainedRate;
+    }
+
+    /**
+     * @return the first rate not sustained, NaN until run
+     */
+    public double getSaturatedRate() {
+        return saturatedRate;
+    }
+}
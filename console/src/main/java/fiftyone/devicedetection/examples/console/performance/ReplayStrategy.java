@@ -0,0 +1,324 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import java.util.*;
+
+/**
+ * Decides the order in which each benchmark thread replays the evidence. By default every
+ * thread walks the same evidence in the same order, so all threads see identical, perfectly
+ * correlated input. Production traffic is not like that: each request is different, and
+ * some devices are far more common than others, which affects caching and branch
+ * prediction in the engine. The orders available are:
+ * <ul>
+ *     <li>{@link Order#SEQUENTIAL} - every thread from the start, as before</li>
+ *     <li>{@link Order#OFFSET} - each thread starts at a different point</li>
+ *     <li>{@link Order#SHUFFLE} - each thread replays in its own random order</li>
+ *     <li>{@link Order#ZIPF} - records are repeated with a Zipf distribution, so a few are
+ *     very common and most are rare</li>
+ * </ul>
+ * In addition, a unique ratio less than 1 replays only that fraction of the records, each
+ * repeated, to vary the number of distinct inputs. Random choices are made using a seed so
+ * that runs can be repeated. The order is worked out as each record is replayed, so no
+ * memory is needed for each thread however many records or threads there are.
+ */
+public class ReplayStrategy {
+    // the default seed for random choices
+    public static final long DEFAULT_SEED = 42;
+    // the default exponent of the Zipf distribution, 1 is typical of web traffic
+    public static final double DEFAULT_ZIPF_EXPONENT = 1.0;
+    // the increment between the keys of each thread and each pass through the records
+    private static final long GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The order in which records are replayed
+     */
+    public enum Order {
+        SEQUENTIAL, OFFSET, SHUFFLE, ZIPF;
+
+        /**
+         * @param value the name of an order, in any case
+         * @return the order
+         */
+        public static Order parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Order order;
+    private final double uniqueRatio;
+    private final double zipfExponent;
+    private final long seed;
+
+    /**
+     * The default strategy, every thread replays every record in order
+     */
+    public ReplayStrategy() {
+        this(Order.SEQUENTIAL, 1.0, DEFAULT_ZIPF_EXPONENT, DEFAULT_SEED);
+    }
+
+    /**
+     * @param order the order in which records are replayed
+     * @param uniqueRatio the fraction of the records replayed, greater than 0 and at most 1
+     * @param zipfExponent the exponent of the Zipf distribution, used by {@link Order#ZIPF}
+     * @param seed seed for random choices
+     */
+    public ReplayStrategy(Order order, double uniqueRatio, double zipfExponent, long seed) {
+        if (uniqueRatio <= 0 || uniqueRatio > 1) {
+            throw new IllegalArgumentException("Unique ratio must be greater than 0 and at most 1");
+        }
+        this.order = order;
+        this.uniqueRatio = uniqueRatio;
+        this.zipfExponent = zipfExponent;
+        this.seed = seed;
+    }
+
+    /**
+     * @return the order in which records are replayed
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * @return the fraction of the records replayed
+     */
+    public double getUniqueRatio() {
+        return uniqueRatio;
+    }
+
+    /**
+     * @return true if every thread replays every record in order
+     */
+    public boolean isDefault() {
+        return order == Order.SEQUENTIAL && uniqueRatio == 1.0;
+    }
+
+    @Override
+    public String toString() {
+        return order.name().toLowerCase(Locale.ROOT) +
+                (uniqueRatio < 1 ? "-unique" + uniqueRatio : "");
+    }
+
+    /**
+     * Get the records for a thread to replay, in order. The list is the same length as the
+     * records given, and is a view of them, each record being chosen as it is got, so
+     * neither the records nor their order are copied.
+     * @param records the records
+     * @param thread the index of the thread, from 0
+     * @param threads the number of threads
+     * @param <T> the type of record
+     * @return the records for the thread
+     */
+    public <T> List<T> getList(List<T> records, int thread, int threads) {
+        if (isDefault() || records.isEmpty()) {
+            return records;
+        }
+        int size = records.size();
+        // threads start at different points, as well as having their own random choices
+        int offset = order == Order.SEQUENTIAL ?
+                0 : (int) ((long) thread * size / Math.max(1, threads));
+        return new Replay<>(records, offset, mix(seed + (thread + 1) * GAMMA));
+    }
+
+    /**
+     * Mix the bits of a value, as the finaliser of SplitMix64, so that nearby values give
+     * unrelated results
+     * @param value the value
+     * @return the mixed value
+     */
+    static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * @param key a random key
+     * @return a double between 0 inclusive and 1 exclusive chosen by the key
+     */
+    private static double toDouble(long key) {
+        return (mix(key) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * A permutation of 0 to size - 1 chosen by a key, found for each index as it is needed.
+     * A balanced Feistel network permutes the smallest even power of 2 covering the size,
+     * and indexes beyond the size are walked on until one within it is found, which takes
+     * fewer than 4 steps on average.
+     */
+    static class Permutation {
+        private static final int ROUNDS = 4;
+        private final long size;
+        private final int halfBits;
+        private final long mask;
+
+        Permutation(int size) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("Size must be greater than 0");
+            }
+            this.size = size;
+            int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(size - 1L));
+            this.halfBits = (bits + 1) / 2;
+            this.mask = (1L << halfBits) - 1;
+        }
+
+        /**
+         * @param index the index, from 0 to size - 1
+         * @param key chooses the permutation
+         * @return the permuted index, also from 0 to size - 1
+         */
+        int apply(int index, long key) {
+            long value = index;
+            do {
+                value = encrypt(value, key);
+            } while (value >= size);
+            return (int) value;
+        }
+
+        private long encrypt(long value, long key) {
+            long left = value >>> halfBits;
+            long right = value & mask;
+            for (int round = 0; round < ROUNDS; round++) {
+                long next = left ^ (mix(key + round * GAMMA + right) & mask);
+                left = right;
+                right = next;
+            }
+            return (left << halfBits) | right;
+        }
+    }
+
+    /**
+     * Samples ranks from 1 to n with a Zipf distribution, rank k having weight 1/k^exponent,
+     * by rejection-inversion (Hormann and Derflinger) so that no table of n probabilities
+     * is needed
+     */
+    static class Zipf {
+        private final int n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        Zipf(int n, double exponent) {
+            this.n = n;
+            this.exponent = exponent;
+            this.hIntegralX1 = hIntegral(1.5) - 1.0;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        /**
+         * @param key chooses the rank, the same key always giving the same rank
+         * @return a rank from 1 to n
+         */
+        int sample(long key) {
+            for (long attempt = 0; ; attempt++) {
+                double u = hIntegralN + toDouble(key + attempt * GAMMA) * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                int k = (int) (x + 0.5);
+                k = Math.max(1, Math.min(n, k));
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1.0 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1.0, x * (1.0 - exponent));
+            return Math.exp(helper1(t) * x);
+        }
+
+        // log(1 + x) / x, accurate near 0
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ?
+                    Math.log1p(x) / x : 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+        }
+
+        // (exp(x) - 1) / x, accurate near 0
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ?
+                    Math.expm1(x) / x : 1.0 + x * 0.5 * (1.0 + x * (1.0 / 3.0) * (1.0 + 0.25 * x));
+        }
+    }
+
+    /**
+     * A view of the records in the order replayed by one thread, starting at an offset
+     */
+    private class Replay<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> records;
+        private final int offset;
+        // chooses the random order of this thread
+        private final long key;
+        // the number of records replayed, the same for every thread
+        private final int unique;
+        // the records replayed are the first unique of this, shuffled by the seed
+        private final Permutation pool;
+        private final long poolKey;
+        private final Permutation shuffle;
+        private final Zipf zipf;
+
+        Replay(List<T> records, int offset, long key) {
+            this.records = records;
+            this.offset = offset;
+            this.key = key;
+            this.unique = Math.max(1, (int) Math.round(records.size() * uniqueRatio));
+            this.pool = unique < records.size() ? new Permutation(records.size()) : null;
+            this.poolKey = mix(seed);
+            this.shuffle = order == Order.SHUFFLE ? new Permutation(unique) : null;
+            this.zipf = order == Order.ZIPF ? new Zipf(unique, zipfExponent) : null;
+        }
+
+        @Override
+        public T get(int index) {
+            int i = (int) (((long) index + offset) % records.size());
+            int rank;
+            switch (order) {
+                case SHUFFLE:
+                    // each pass through the unique records is in a new order
+                    rank = shuffle.apply(i % unique, mix(key + (i / unique) * GAMMA));
+                    break;
+                case ZIPF:
+                    rank = zipf.sample(key + i * GAMMA) - 1;
+                    break;
+                default:
+                    rank = i % unique;
+            }
+            return records.get(Objects.isNull(pool) ? rank : pool.apply(rank, poolKey));
+        }
+
+        @Override
+        public int size() {
+            return records.size();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Writes benchmark results as CSV or JSON. Each result is a map of column name to value,
+ * values being numbers, booleans or strings. Numbers that are not finite (e.g. a value that
+ * was not measured) are written as empty in CSV and null in JSON.
+ */
+public class ResultsWriter {
+
+    /**
+     * Write results to a file, as JSON if the file name ends ".json", otherwise as CSV
+     * @param file the file to write
+     * @param results the results, one map per row
+     * @throws IOException on file errors
+     */
+    public static void write(File file, List<Map<String, Object>> results) throws IOException {
+        if (Objects.nonNull(file.getAbsoluteFile().getParentFile())) {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        }
+        try (Writer writer = new OutputStreamWriter(
+                Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            if (file.getName().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                writeJson(writer, results);
+            } else {
+                writeCsv(writer, results);
+            }
+        }
+    }
+
+    /**
+     * Write results as CSV with a header row. The columns are all those found in the results,
+     * in the order first seen.
+     * @param writer to write to
+     * @param results the results, one map per row
+     * @throws IOException on write errors
+     */
+    public static void writeCsv(Writer writer, List<Map<String, Object>> results)
+            throws IOException {
+        Set<String> columns = new LinkedHashSet<>();
+        for (Map<String, Object> result : results) {
+            columns.addAll(result.keySet());
+        }
+        writer.write(csvRow(new ArrayList<Object>(columns)));
+        for (Map<String, Object> result : results) {
+            List<Object> values = new ArrayList<>();
+            for (String column : columns) {
+                values.add(result.get(column));
+            }
+            writer.write(csvRow(values));
+        }
+        writer.flush();
+    }
+
+    /**
+     * Read results written by {@link #writeCsv(Writer, List)}. Numbers and booleans are
+     * read as such, other values as strings and missing values as null.
+     * @param reader to read from
+     * @return the results, one map per row
+     * @throws IOException on read errors
+     */
+    public static List<Map<String, Object>> readCsv(Reader reader) throws IOException {
+        List<List<String>> rows = Baseline.parseCsv(reader);
+        List<Map<String, Object>> results = new ArrayList<>();
+        if (rows.isEmpty()) {
+            return results;
+        }
+        List<String> columns = rows.get(0);
+        for (List<String> row : rows.subList(1, rows.size())) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size() && i < row.size(); i++) {
+                result.put(columns.get(i), parseValue(row.get(i)));
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static Object parseValue(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            // not an integer
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    /**
+     * Write results as a JSON array of objects
+     * @param writer to write to
+     * @param results the results, one map per object
+     * @throws IOException on write errors
+     */
+    public static void writeJson(Writer writer, List<Map<String, Object>> results)
+            throws IOException {
+        writer.write("[");
+        String separator = "\n";
+        for (Map<String, Object> result : results) {
+            writer.write(separator);
+            writer.write("  {");
+            String fieldSeparator = "";
+            for (Map.Entry<String, Object> entry : result.entrySet()) {
+                writer.write(fieldSeparator);
+                writer.write(jsonValue(entry.getKey()));
+                writer.write(": ");
+                writer.write(jsonValue(entry.getValue()));
+                fieldSeparator = ", ";
+            }
+            writer.write("}");
+            separator = ",\n";
+        }
+        writer.write("\n]\n");
+        writer.flush();
+    }
+
+    private static String csvRow(List<Object> values) {
+        StringBuilder row = new StringBuilder();
+        for (Object value : values) {
+            if (row.length() > 0) {
+                row.append(',');
+            }
+            String text = isMissing(value) ? "" : String.valueOf(value);
+            // quote values containing separators, quotes or line breaks
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 ||
+                    text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                text = '"' + text.replace("\"", "\"\"") + '"';
+            }
+            row.append(text);
+        }
+        return row.append('\n').toString();
+    }
+
+    private static String jsonValue(Object value) {
+        if (isMissing(value)) {
+            return "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return String.valueOf(value);
+        }
+        String text = String.valueOf(value);
+        StringBuilder json = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private static boolean isMissing(Object value) {
+        if (Objects.isNull(value)) {
+            return true;
+        }
+        if (value instanceof Double) {
+            return ((Double) value).isNaN() || ((Double) value).isInfinite();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).isNaN() || ((Float) value).isInfinite();
+        }
+        return false;
+    }
+}
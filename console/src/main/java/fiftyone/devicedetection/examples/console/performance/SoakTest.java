@@ -0,0 +1,175 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a {@link ContinuousLoad} over a long run, reporting throughput, latency and
+ * memory use each window, and flagging windows where a {@link DriftDetector} finds heap,
+ * resident memory or latency rising, or throughput falling.
+ * <p>
+ * Open FlowData are not counted, as every detection of the load closes its FlowData and
+ * one which fails to close stops the load. Native memory which is not freed shows as drift
+ * in resident memory instead.
+ */
+public class SoakTest {
+    private final long durationMillis;
+    private final long windowMillis;
+    private final double driftTolerance;
+
+    /**
+     * @param durationMillis the millis the soak test lasts, only whole windows being run
+     * @param windowMillis the millis over which each report is made
+     * @param driftTolerance the fraction of its mean by which a measure may drift over
+     *                       {@link DriftDetector#DEFAULT_WINDOWS} windows
+     */
+    public SoakTest(long durationMillis, long windowMillis, double driftTolerance) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("The window must be at least 1 milli");
+        }
+        this.durationMillis = durationMillis;
+        this.windowMillis = windowMillis;
+        this.driftTolerance = driftTolerance;
+    }
+
+    /**
+     * Measure the load for the duration, writing a line for each window and one for the
+     * whole soak test
+     * @param load the detections being carried out
+     * @param writer where the report is written
+     * @return the outcome
+     * @throws Exception if detection failed on any thread
+     */
+    public Result run(ContinuousLoad load, PrintWriter writer) throws Exception {
+        DriftDetector heapDrift = new DriftDetector(driftTolerance);
+        DriftDetector residentDrift = new DriftDetector(driftTolerance);
+        DriftDetector latencyDrift = new DriftDetector(driftTolerance);
+        DriftDetector throughputDrift = DriftDetector.downward(driftTolerance);
+        // discard detections before the soak test, keeping an empty histogram to add to
+        Histogram latency = load.getIntervalHistogram();
+        latency.reset();
+        int driftWindows = 0;
+        long start = System.nanoTime();
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        long windowStart = start;
+        for (int window = 1; windowStart + windowNanos <= end; window++) {
+            long windowEnd = windowStart + windowNanos;
+            long remaining;
+            while ((remaining = windowEnd - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            }
+            load.checkThreads();
+            Histogram windowLatency = load.getIntervalHistogram();
+            latency.add(windowLatency);
+            long heapBytes = MemoryHelper.getHeapUsedAfterLastGc();
+            long residentBytes = MemoryHelper.getResidentBytes();
+            double detectionsPerSecond = windowLatency.getTotalCount() * 1e9 / windowNanos;
+            long p99 = windowLatency.getValueAtPercentile(99.0);
+
+            List<String> drifting = new ArrayList<>();
+            if (heapDrift.add(heapBytes)) {
+                drifting.add("heap");
+            }
+            if (residentDrift.add(residentBytes)) {
+                drifting.add("resident");
+            }
+            if (latencyDrift.add(p99)) {
+                drifting.add("p99 latency");
+            }
+            if (throughputDrift.add(detectionsPerSecond)) {
+                drifting.add("throughput");
+            }
+            writer.format("Soak: Window %d, %,d secs, Detections per second: %,d, " +
+                            "p50 microsecs: %.1f, p99 microsecs: %.1f, max microsecs: %.1f, " +
+                            "Heap after GC MB: %s, Resident MB: %s%s%n",
+                    window,
+                    TimeUnit.NANOSECONDS.toSeconds(windowEnd - start),
+                    Math.round(detectionsPerSecond),
+                    windowLatency.getValueAtPercentile(50.0) / 1000.0,
+                    p99 / 1000.0,
+                    windowLatency.getMaxValue() / 1000.0,
+                    MemoryHelper.toMegabytes(heapBytes),
+                    MemoryHelper.toMegabytes(residentBytes),
+                    drifting.isEmpty() ? "" : ", DRIFT: " + String.join(", ", drifting));
+            if (!drifting.isEmpty()) {
+                driftWindows++;
+            }
+            windowStart = windowEnd;
+        }
+        Result result = new Result(latency, System.nanoTime() - start, driftWindows);
+        writer.format("Soak: %,d detections, Detections per second: %,d, p99 microsecs: %.1f, " +
+                        "Windows drifting: %d%n",
+                latency.getTotalCount(),
+                Math.round(result.getDetectionsPerSecond()),
+                latency.getValueAtPercentile(99.0) / 1000.0,
+                driftWindows);
+        writer.println("Soak: Open FlowData are not counted, as each detection closes its " +
+                "FlowData, native memory not freed shows as resident memory drift");
+        writer.println();
+        return result;
+    }
+
+    /**
+     * The outcome of a soak test
+     */
+    public static class Result {
+        private final Histogram latency;
+        private final long elapsedNanos;
+        private final int driftWindows;
+
+        private Result(Histogram latency, long elapsedNanos, int driftWindows) {
+            this.latency = latency;
+            this.elapsedNanos = elapsedNanos;
+            this.driftWindows = driftWindows;
+        }
+
+        /**
+         * @return the latencies, in nanoseconds, of all the detections in the windows
+         */
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getDetectionsPerSecond() {
+            return latency.getTotalCount() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return the number of windows where any measure was drifting
+         */
+        public int getDriftWindows() {
+            return driftWindows;
+        }
+    }
+}
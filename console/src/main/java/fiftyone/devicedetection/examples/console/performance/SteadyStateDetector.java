@@ -0,0 +1,124 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Decides when throughput has reached a steady state. Throughput is measured over a series
+ * of windows, and is steady once the coefficient of variation (standard deviation divided
+ * by mean) of the most recent windows falls below a threshold.
+ */
+public class SteadyStateDetector {
+    // the default number of recent windows considered
+    public static final int DEFAULT_WINDOWS = 5;
+    // the default coefficient of variation below which throughput is steady
+    public static final double DEFAULT_THRESHOLD = 0.05;
+
+    private final int windows;
+    private final double threshold;
+    // the throughput of the most recent windows
+    private final Deque<Double> recent = new ArrayDeque<>();
+
+    /**
+     * Construct with the default number of windows and threshold
+     */
+    public SteadyStateDetector() {
+        this(DEFAULT_WINDOWS, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param windows the number of recent windows considered, at least 2
+     * @param threshold the coefficient of variation below which throughput is steady
+     */
+    public SteadyStateDetector(int windows, double threshold) {
+        if (windows < 2) {
+            throw new IllegalArgumentException("At least 2 windows are needed");
+        }
+        this.windows = windows;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return the number of recent windows considered
+     */
+    public int getWindows() {
+        return windows;
+    }
+
+    /**
+     * Add the throughput of the latest window
+     * @param throughput e.g. detections per second during the window
+     * @return true if throughput is now steady
+     */
+    public boolean add(double throughput) {
+        recent.addLast(throughput);
+        if (recent.size() > windows) {
+            recent.removeFirst();
+        }
+        return isSteady();
+    }
+
+    /**
+     * @return true if enough windows have been added and their coefficient of variation
+     * is below the threshold
+     */
+    public boolean isSteady() {
+        double cv = getCoefficientOfVariation();
+        return !Double.isNaN(cv) && cv < threshold;
+    }
+
+    /**
+     * @return the mean throughput of the recent windows, NaN if there are none
+     */
+    public double getMean() {
+        if (recent.isEmpty()) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (double value : recent) {
+            sum += value;
+        }
+        return sum / recent.size();
+    }
+
+    /**
+     * @return the coefficient of variation of the recent windows, NaN until enough windows
+     * have been added
+     */
+    public double getCoefficientOfVariation() {
+        if (recent.size() < windows) {
+            return Double.NaN;
+        }
+        double mean = getMean();
+        if (mean <= 0) {
+            return Double.NaN;
+        }
+        double squares = 0;
+        for (double value : recent) {
+            squares += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(squares / recent.size()) / mean;
+    }
+}
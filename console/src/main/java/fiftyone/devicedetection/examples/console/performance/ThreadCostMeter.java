@@ -0,0 +1,192 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the bytes allocated and CPU time used by the current thread, using the HotSpot
+ * extensions to {@link ThreadMXBean}. Where these are not available, e.g. on other JVMs or
+ * on virtual threads, measurements are -1.
+ * <p>
+ * An instance accumulates the cost of each {@link Phase} of a detection, by calling
+ * {@link #start()} before the detection and {@link #mark(Phase)} at the end of each phase.
+ * An instance must only be used by one thread.
+ */
+public class ThreadCostMeter {
+
+    /**
+     * The phases of a detection
+     */
+    public enum Phase {
+        CREATE_FLOW_DATA("createFlowData"),
+        ADD_EVIDENCE("addEvidence"),
+        PROCESS("process"),
+        GET_PROPERTIES("getProperties"),
+        CLOSE("close");
+
+        public final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean allocationBean =
+            threadBean instanceof com.sun.management.ThreadMXBean ?
+                    (com.sun.management.ThreadMXBean) threadBean : null;
+    // bytes allocated by measuring allocation, subtracted from each measurement
+    private static final long ALLOCATION_OVERHEAD;
+
+    static {
+        if (threadBean.isCurrentThreadCpuTimeSupported()) {
+            threadBean.setThreadCpuTimeEnabled(true);
+        }
+        if (allocationBean != null && allocationBean.isThreadAllocatedMemorySupported()) {
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        // some implementations allocate when asked for the allocated bytes, so
+        // find the smallest difference between consecutive calls
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long first = getAllocatedBytes();
+            long second = getAllocatedBytes();
+            overhead = Math.min(overhead, second - first);
+        }
+        ALLOCATION_OVERHEAD = Math.max(0, overhead);
+    }
+
+    // the cost of each phase, indexed by ordinal
+    private final long[] allocatedBytes = new long[Phase.values().length];
+    private final long[] cpuNanos = new long[Phase.values().length];
+    // the measurements when the last phase ended
+    private long lastAllocatedBytes;
+    private long lastCpuNanos;
+
+    /**
+     * @return bytes allocated by the current thread since it started, or -1 if not available
+     */
+    public static long getAllocatedBytes() {
+        if (allocationBean == null || !allocationBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return CPU nanos used by the current thread since it started, or -1 if not available
+     */
+    public static long getCpuNanos() {
+        if (!threadBean.isThreadCpuTimeEnabled()) {
+            return -1;
+        }
+        try {
+            return threadBean.getCurrentThreadCpuTime();
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The bytes allocated between two measurements, corrected for the cost of measuring
+     * @param start the first value of {@link #getAllocatedBytes()}
+     * @param end the second value of {@link #getAllocatedBytes()}
+     * @return the bytes allocated, or -1 if either value is not available
+     */
+    public static long getAllocatedBytes(long start, long end) {
+        if (start < 0 || end < 0) {
+            return -1;
+        }
+        return Math.max(0, end - start - ALLOCATION_OVERHEAD);
+    }
+
+    /**
+     * The CPU time used between two measurements
+     * @param start the first value of {@link #getCpuNanos()}
+     * @param end the second value of {@link #getCpuNanos()}
+     * @return the CPU nanos used, or -1 if either value is not available
+     */
+    public static long getCpuNanos(long start, long end) {
+        if (start < 0 || end < 0) {
+            return -1;
+        }
+        return end - start;
+    }
+
+    /**
+     * Start measuring the first phase
+     */
+    public void start() {
+        lastAllocatedBytes = getAllocatedBytes();
+        lastCpuNanos = getCpuNanos();
+    }
+
+    /**
+     * Add the cost since the end of the previous phase, or start, to the phase given
+     * @param phase the phase that has just ended
+     */
+    public void mark(Phase phase) {
+        long bytes = getAllocatedBytes();
+        long cpu = getCpuNanos();
+        long allocated = getAllocatedBytes(lastAllocatedBytes, bytes);
+        if (allocated >= 0) {
+            allocatedBytes[phase.ordinal()] += allocated;
+        }
+        long used = getCpuNanos(lastCpuNanos, cpu);
+        if (used >= 0) {
+            cpuNanos[phase.ordinal()] += used;
+        }
+        // don't count the cost of measuring in the next phase
+        lastAllocatedBytes = getAllocatedBytes();
+        lastCpuNanos = getCpuNanos();
+    }
+
+    /**
+     * @param phase the phase
+     * @return the total bytes allocated during the phase
+     */
+    public long getAllocatedBytes(Phase phase) {
+        return allocatedBytes[phase.ordinal()];
+    }
+
+    /**
+     * @param phase the phase
+     * @return the total CPU nanos used during the phase
+     */
+    public long getCpuNanos(Phase phase) {
+        return cpuNanos[phase.ordinal()];
+    }
+
+    /**
+     * Add the costs measured by another meter to this one
+     * @param other the meter to add
+     */
+    public void add(ThreadCostMeter other) {
+        for (int i = 0; i < allocatedBytes.length; i++) {
+            allocatedBytes[i] += other.allocatedBytes[i];
+            cpuNanos[i] += other.cpuNanos[i];
+        }
+    }
+}
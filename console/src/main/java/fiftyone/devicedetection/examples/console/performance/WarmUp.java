@@ -0,0 +1,101 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Warms up detection by measuring the throughput of a {@link ContinuousLoad} over a series
+ * of windows until a {@link SteadyStateDetector} finds it steady, so that the JIT compiler
+ * has finished with the detection path, or until a time limit is reached.
+ */
+public class WarmUp {
+    private final long windowMillis;
+    private final double threshold;
+    private final long maxMillis;
+    // System.nanoTime() at the start of the first of the steady windows, 0 if not steady
+    private long steadyStart = 0;
+    // the mean detections per second of the steady windows
+    private double throughput = Double.NaN;
+
+    /**
+     * @param windowMillis the millis over which throughput is measured
+     * @param threshold the coefficient of variation below which throughput is steady
+     * @param maxMillis give up waiting for throughput to be steady after this many millis
+     */
+    public WarmUp(long windowMillis, double threshold, long maxMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("The window must be at least 1 milli");
+        }
+        this.windowMillis = windowMillis;
+        this.threshold = threshold;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Measure the throughput of the load until it is steady
+     * @param load the detections being carried out
+     * @return true if throughput became steady, false if the time limit was reached
+     * @throws Exception if detection failed on any thread
+     */
+    public boolean run(ContinuousLoad load) throws Exception {
+        SteadyStateDetector detector = new SteadyStateDetector(
+                SteadyStateDetector.DEFAULT_WINDOWS, threshold);
+        List<Long> windowStarts = new ArrayList<>();
+        // discard detections before the first window
+        load.getIntervalHistogram();
+        long windowStart = System.nanoTime();
+        long deadline = windowStart + maxMillis * 1000000L;
+        while (windowStart < deadline) {
+            Thread.sleep(windowMillis);
+            load.checkThreads();
+            long detections = load.getIntervalHistogram().getTotalCount();
+            long windowEnd = System.nanoTime();
+            windowStarts.add(windowStart);
+            if (detector.add(detections * 1e9 / (windowEnd - windowStart))) {
+                steadyStart = windowStarts.get(windowStarts.size() - detector.getWindows());
+                throughput = detector.getMean();
+                return true;
+            }
+            windowStart = windowEnd;
+        }
+        return false;
+    }
+
+    /**
+     * @return System.nanoTime() at the start of the first of the steady windows, 0 if
+     * throughput was not steady
+     */
+    public long getSteadyStart() {
+        return steadyStart;
+    }
+
+    /**
+     * @return the mean detections per second of the steady windows, NaN if throughput was
+     * not steady
+     */
+    public double getThroughput() {
+        return throughput;
+    }
+}
@@ -22,20 +22,188 @@
 
 package fiftyone.devicedetection.examples.console;
 
+import fiftyone.devicedetection.examples.console.offline.ColumnarResultReader;
+import fiftyone.devicedetection.examples.console.offline.ResultCache;
+import fiftyone.devicedetection.examples.console.offline.ResultWriter;
 import fiftyone.devicedetection.shared.testhelpers.FileUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class OfflineProcessingTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void offlineProcessingTest() throws Exception {
-        OfflineProcessing.run(FileUtils.getHashFileName() == null
-                        ? FileUtils.LITE_HASH_DATA_FILE_NAME
-                        : FileUtils.getHashFileName(),
+        OfflineProcessing.run(getDataFile(),
                 new FileInputStream(Objects.requireNonNull(FileUtils.getEvidenceFile())),
                 System.out);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void parallelOfflineProcessingTest() throws Exception {
+        String single = run(new OfflineProcessing.Options()
+                .setMaxRecords(1000)
+                .setWorkers(1)
+                .setPreserveOrder(true));
+        // results kept in order are the same however many workers there are
+        assertEquals(single, run(new OfflineProcessing.Options()
+                .setMaxRecords(1000)
+                .setWorkers(8)
+                .setQueueCapacity(16)
+                .setPreserveOrder(true)));
+        // otherwise the same results are written, but not necessarily in the same order
+        String[] ordered = single.replace("...\n", "").split("---\n");
+        String[] unordered = run(new OfflineProcessing.Options()
+                .setMaxRecords(1000)
+                .setWorkers(8)
+                .setQueueCapacity(16)).replace("...\n", "").split("---\n");
+        Arrays.sort(ordered);
+        Arrays.sort(unordered);
+        assertEquals(Arrays.asList(ordered), Arrays.asList(unordered));
+        assertNotEquals(0, ordered.length);
+    }
+
+    @Test
+    public void outputFormatTest() throws Exception {
+        String csv = run(new OfflineProcessing.Options()
+                .setMaxRecords(1000)
+                .setFormat(ResultWriter.Format.CSV)
+                .setProperties(Arrays.asList("IsMobile", "PlatformName", "DeviceType"))
+                .setFlushRecords(100));
+        String[] rows = csv.split("\n");
+        // a header row then a row per record
+        assertEquals(1001, rows.length);
+        assertTrue(rows[0].startsWith("header.user-agent,"));
+        assertTrue(rows[0].endsWith(",device.ismobile,device.platformname,device.devicetype"));
+        // the evidence columns can be chosen
+        String userAgents = run(new OfflineProcessing.Options()
+                .setMaxRecords(10)
+                .setFormat(ResultWriter.Format.CSV)
+                .setEvidenceKeys(Collections.singletonList("header.user-agent")));
+        assertTrue(userAgents.startsWith("header.user-agent,device.ismobile,"));
+
+        String jsonLines = run(new OfflineProcessing.Options()
+                .setMaxRecords(1000)
+                .setFormat(ResultWriter.Format.JSONL));
+        String[] lines = jsonLines.split("\n");
+        assertEquals(1000, lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("{\"header."));
+            assertTrue(line.contains("\"device.platformversion\":"));
+        }
+    }
+
+    @Test
+    public void resultCacheTest() throws Exception {
+        // the results are the same whether or not they come from the cache
+        assertEquals(
+                run(new OfflineProcessing.Options()
+                        .setMaxRecords(1000)
+                        .setPreserveOrder(true)
+                        .setCacheSize(0)),
+                run(new OfflineProcessing.Options()
+                        .setMaxRecords(1000)
+                        .setPreserveOrder(true)
+                        .setCacheSize(100)
+                        .setCachePolicy(ResultCache.Policy.FIFO)));
+
+        // evidence which is repeated is found in the cache
+        List<Object> documents = new ArrayList<>();
+        try (InputStream is =
+                     new FileInputStream(Objects.requireNonNull(FileUtils.getEvidenceFile()))) {
+            for (Object document : new Yaml().loadAll(is)) {
+                if (documents.size() == 100) {
+                    break;
+                }
+                documents.add(document);
+            }
+        }
+        documents.addAll(new ArrayList<>(documents));
+        DumperOptions dumperOptions = new DumperOptions();
+        dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        byte[] repeated = new Yaml(dumperOptions).dumpAll(documents.iterator())
+                .getBytes(StandardCharsets.UTF_8);
+        OfflineProcessing.Options options = new OfflineProcessing.Options()
+                .setCacheSize(100);
+        assertEquals(200, OfflineProcessing.run(getDataFile(),
+                new ByteArrayInputStream(repeated), new ByteArrayOutputStream(), options));
+        assertTrue(options.getCache().getHits() >= 100);
+        assertEquals(200, options.getCache().getHits() + options.getCache().getMisses());
+    }
+
+    @Test
+    public void outputLeftOpenTest() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        ByteArrayOutputStream os = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        try (InputStream is =
+                     new FileInputStream(Objects.requireNonNull(FileUtils.getEvidenceFile()))) {
+            OfflineProcessing.run(getDataFile(), is, os, new OfflineProcessing.Options()
+                    .setMaxRecords(10));
+        }
+        // the caller's stream is flushed but not closed, as it may be standard output
+        assertTrue(os.size() > 0);
+        assertFalse(closed.get());
+    }
+
+    @Test
+    public void columnarOutputTest() throws Exception {
+        // as run from the command line, so that logging shares standard output
+        File output = folder.newFile("results.col");
+        OfflineProcessing.main(new String[]{getDataFile(), FileUtils.EVIDENCE_FILE_NAME,
+                "--records=100", "--format=columnar", "--output=" + output});
+        try (ColumnarResultReader reader = ColumnarResultReader.open(output)) {
+            assertEquals(100, reader.getRowCount());
+            assertEquals(Arrays.asList("device.ismobile", "device.platformname",
+                    "device.platformversion"), reader.getColumns());
+            assertEquals(100, reader.readValues(0).length);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void columnarStandardOutputTest() throws Exception {
+        OfflineProcessing.main(new String[]{getDataFile(), FileUtils.EVIDENCE_FILE_NAME,
+                "--format=columnar"});
+    }
+
+    private static String getDataFile() {
+        return FileUtils.getHashFileName() == null
+                ? FileUtils.LITE_HASH_DATA_FILE_NAME
+                : FileUtils.getHashFileName();
+    }
+
+    private static String run(OfflineProcessing.Options options) throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (InputStream is =
+                     new FileInputStream(Objects.requireNonNull(FileUtils.getEvidenceFile()))) {
+            assertEquals(1000, OfflineProcessing.run(getDataFile(), is, os, options));
+        }
+        return os.toString("UTF-8");
+    }
+}
@@ -21,30 +21,163 @@
  * ********************************************************************* */
 
 package fiftyone.devicedetection.examples.console;
-
 import fiftyone.common.testhelpers.LogbackHelper;
+import fiftyone.devicedetection.examples.console.performance.ResultsWriter;
+import fiftyone.devicedetection.examples.console.performance.ThreadCostMeter;
+import fiftyone.devicedetection.examples.shared.BinaryEvidenceCorpus;
+import fiftyone.devicedetection.examples.shared.EvidenceCorpus;
+import fiftyone.devicedetection.examples.shared.EvidenceHelper;
 import fiftyone.pipeline.engines.Constants;
 import fiftyone.pipeline.util.FileFinder;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static fiftyone.devicedetection.examples.console.PerformanceBenchmark.*;
 import static java.util.Arrays.stream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+/**
+ * Smoke tests which run the benchmark against the data file. The behaviour of each part
+ * of the benchmark is tested by the tests of the performance package.
+ */
 public class PerformanceBenchmarkTest {
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
 
-   @Test
-   public void benchmarkTest() throws Exception {
+   @Before
+   public void setUp() {
        LogbackHelper.configureLogback(FileFinder.getFilePath("logback.xml"));
-       new PerformanceBenchmark().runBenchmarks(
-               // get only max performance for testing
-               stream(DEFAULT_PERFORMANCE_CONFIGURATIONS)
-                       .filter(c -> c.profile.equals(Constants.PerformanceProfiles.MaxPerformance))
-                       .toArray(PerformanceConfiguration[]::new),
+   }
+
+   /**
+    * Run the benchmark with the first of the default configurations, loaded from memory
+    * and from disk, on the default number of threads
+    */
+   private static List<BenchmarkSummary> run(PerformanceBenchmark benchmark) throws Exception {
+       return run(benchmark, DEFAULT_PERFORMANCE_CONFIGURATIONS[0]);
+   }
+
+   private static List<BenchmarkSummary> run(PerformanceBenchmark benchmark,
+                                             PerformanceConfiguration... configs)
+           throws Exception {
+       return benchmark.runBenchmarks(configs,
                null,
                null,
                DEFAULT_NUMBER_OF_THREADS,
                new PrintWriter(System.out,true));
    }
-}
\ No newline at end of file
+
+   @Test
+   public void benchmarkTest() throws Exception {
+       // get only max performance for testing
+       run(new PerformanceBenchmark(), stream(DEFAULT_PERFORMANCE_CONFIGURATIONS)
+               .filter(c -> c.profile.equals(Constants.PerformanceProfiles.MaxPerformance))
+               .toArray(PerformanceConfiguration[]::new));
+   }
+
+   @Test
+   public void outputsTest() throws Exception {
+       File histograms = folder.newFolder();
+       File results = new File(folder.getRoot(), "results.csv");
+       File baseline = new File(folder.getRoot(), "baseline.csv");
+       boolean measurePhases = ThreadCostMeter.getAllocatedBytes() >= 0;
+       List<BenchmarkSummary> summaries = run(new PerformanceBenchmark()
+               .setHistogramDirectory(histograms)
+               .setResultsFile(results)
+               .setSaveBaseline(baseline)
+               .setMeasureStartup(true)
+               .setMeasurePhases(measurePhases));
+       String label = DEFAULT_PERFORMANCE_CONFIGURATIONS[0].toString().replace(':', '-');
+       assertTrue(new File(histograms, label + "-disk.hlog").exists());
+       assertTrue(new File(histograms, label + "-disk.hgrm").exists());
+       // a header and a row for each summary, from memory and from disk
+       assertEquals(3, Files.readAllLines(results.toPath()).size());
+       assertTrue(baseline.exists());
+       for (BenchmarkSummary summary : summaries) {
+           assertTrue(summary.startup.buildMillis > 0);
+           assertTrue(summary.startup.firstDetectionMicros > 0);
+           assertTrue(summary.startup.warmUpMillis > 0);
+           if (measurePhases) {
+               assertTrue(summary.bytesPerDetection > 0);
+               assertTrue(summary.phases.getAllocatedBytes(
+                       ThreadCostMeter.Phase.CREATE_FLOW_DATA) > 0);
+           }
+       }
+       assertTrue(summaries.get(0).startup.fileReadMillis >= 0);
+       assertTrue(Double.isNaN(summaries.get(1).startup.fileReadMillis));
+   }
+
+   @Test
+   public void threadSweepTest() throws Exception {
+       List<BenchmarkSummary> summaries = run(new PerformanceBenchmark().setThreadSweep(2),
+               DEFAULT_PERFORMANCE_CONFIGURATIONS[1]);
+       // 1 and 2 threads, from memory and from disk
+       assertEquals(4, summaries.size());
+       assertEquals(1.0, summaries.get(0).scalingEfficiency, 0);
+   }
+
+   @Test
+   public void corpusTest() throws Exception {
+       // a corpus of 1,000 requests a millisecond apart
+       File text = new File(folder.getRoot(), "corpus.txt");
+       List<Map<String, String>> evidence = EvidenceHelper.setUpEvidence();
+       try (EvidenceCorpus.Writer writer = EvidenceCorpus.openWriter(text)) {
+           for (int i = 0; i < 1000; i++) {
+               writer.write(i, evidence.get(i % evidence.size()));
+           }
+       }
+       File binary = new File(folder.getRoot(), "corpus.bin");
+       assertEquals(1000, BinaryEvidenceCorpus.convert(text, binary));
+       List<BenchmarkSummary> summaries = run(new PerformanceBenchmark()
+               .setCorpus(binary, true, 1.0));
+       for (BenchmarkSummary summary : summaries) {
+           // every record replayed once, at the original rate
+           assertEquals(1000, summary.detections);
+           assertEquals(1000, summary.targetRate, 1);
+       }
+   }
+
+   @Test
+   public void verifyTest() throws Exception {
+       PerformanceBenchmark benchmark = new PerformanceBenchmark()
+               .setVerify(Arrays.asList("IsMobile"), 16);
+       // covers both the performance and predictive graphs
+       List<BenchmarkSummary> summaries = run(benchmark, DEFAULT_PERFORMANCE_CONFIGURATIONS);
+       assertTrue(summaries.isEmpty());
+       assertTrue(benchmark.getVerificationFailures().isEmpty());
+   }
+
+   @Test
+   public void forkTest() throws Exception {
+       File results = new File(folder.getRoot(), "results.csv");
+       List<BenchmarkSummary> summaries = run(new PerformanceBenchmark()
+               .setFork("512m", Collections.emptyList())
+               .setResultsFile(results));
+       // MaxPerformance is run loaded from memory and from disk, each in a child JVM
+       List<Map<String, Object>> rows;
+       try (Reader reader = Files.newBufferedReader(results.toPath())) {
+           rows = ResultsWriter.readCsv(reader);
+       }
+       assertEquals(2, rows.size());
+       assertEquals("memory", rows.get(0).get("loading"));
+       assertEquals("disk", rows.get(1).get("loading"));
+       // the summaries are gathered from the children, with their latency histograms
+       assertEquals(2, summaries.size());
+       for (BenchmarkSummary summary : summaries) {
+           assertTrue(summary.detections > 0);
+           assertTrue(summary.latency.getTotalCount() > 0);
+       }
+   }
+}
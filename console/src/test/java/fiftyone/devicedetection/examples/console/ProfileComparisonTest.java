@@ -0,0 +1,58 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console;
+
+import fiftyone.devicedetection.examples.console.PerformanceBenchmark.PerformanceConfiguration;
+import fiftyone.devicedetection.examples.console.ProfileComparison.ConfigurationResult;
+import fiftyone.devicedetection.examples.shared.EvidenceHelper;
+import fiftyone.pipeline.engines.Constants;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProfileComparisonTest {
+    @Test
+    public void testProfileComparison() throws Exception {
+        List<ConfigurationResult> results = ProfileComparison.run(
+                new PerformanceConfiguration[]{
+                        new PerformanceConfiguration(
+                                Constants.PerformanceProfiles.MaxPerformance, true, false, true),
+                        new PerformanceConfiguration(
+                                Constants.PerformanceProfiles.LowMemory, true, false, true)},
+                null,
+                EvidenceHelper.setUpEvidence(),
+                Arrays.asList("IsMobile", "PlatformName", "BrowserName"),
+                new PrintWriter(System.out, true));
+        assertEquals(2, results.size());
+        for (ConfigurationResult result : results) {
+            assertEquals(3, result.records);
+            // the profiles trade off memory and speed but give the same results
+            assertEquals(0, result.getDisagreements());
+            assertEquals(3L, result.toMap().get("records"));
+        }
+    }
+}
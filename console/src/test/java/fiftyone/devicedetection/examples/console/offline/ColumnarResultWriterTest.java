@@ -0,0 +1,134 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.offline;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ColumnarResultWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final List<String> EVIDENCE_KEYS = Collections.singletonList("header.user-agent");
+    private static final List<String> RESULT_KEYS =
+            Arrays.asList("device.ismobile", "device.platformname");
+    private static final String[] PLATFORMS = {"Android", "iOS", "Windows"};
+
+    private static void write(ResultWriter writer, int rows) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            Map<String, String> evidence = new HashMap<>();
+            // every fifth row has no evidence
+            if (i % 5 != 0) {
+                evidence.put("header.user-agent", "UA " + (i % 4));
+            }
+            Map<String, String> results = new LinkedHashMap<>();
+            results.put("device.ismobile", Boolean.toString(i % 2 == 0));
+            results.put("device.platformname", PLATFORMS[i % PLATFORMS.length]);
+            writer.write(evidence, results);
+        }
+        writer.finish();
+        writer.close();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = folder.newFile("results.bin");
+        write(new ColumnarResultWriter(new FileOutputStream(file), EVIDENCE_KEYS, RESULT_KEYS,
+                3, ResultWriter.DEFAULT_FLUSH_RECORDS), 10);
+        try (ColumnarResultReader reader = ColumnarResultReader.open(file)) {
+            assertEquals(Arrays.asList("header.user-agent", "device.ismobile",
+                    "device.platformname"), reader.getColumns());
+            assertEquals(10, reader.getRowCount());
+            // ids are given to values in the order they are first written
+            assertArrayEquals(new String[]{"true", "false"}, reader.getDictionary(1));
+            assertArrayEquals(PLATFORMS, reader.getDictionary(2));
+            String[] userAgents = reader.readValues(0);
+            String[] platforms = reader.readValues(2);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i % 5 == 0 ? null : "UA " + (i % 4), userAgents[i]);
+                assertEquals(PLATFORMS[i % PLATFORMS.length], platforms[i]);
+            }
+            assertEquals(-1, reader.readIds(0)[0]);
+        }
+    }
+
+    @Test
+    public void testSmallerThanCsv() throws Exception {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        write(new CsvResultWriter(csv, EVIDENCE_KEYS, RESULT_KEYS,
+                ResultWriter.DEFAULT_FLUSH_RECORDS), 10000);
+        ByteArrayOutputStream columnar = new ByteArrayOutputStream();
+        write(ResultWriter.create(ResultWriter.Format.COLUMNAR, columnar, EVIDENCE_KEYS,
+                RESULT_KEYS, ResultWriter.DEFAULT_FLUSH_RECORDS), 10000);
+        assertTrue(columnar.size() < csv.size());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        File file = folder.newFile("empty.bin");
+        write(new ColumnarResultWriter(new FileOutputStream(file), null, RESULT_KEYS,
+                3, ResultWriter.DEFAULT_FLUSH_RECORDS), 0);
+        try (ColumnarResultReader reader = ColumnarResultReader.open(file)) {
+            // by default only the results are written
+            assertEquals(RESULT_KEYS, reader.getColumns());
+            assertEquals(0, reader.getRowCount());
+            assertEquals(0, reader.readIds(0).length);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotFinished() throws Exception {
+        File file = folder.newFile("failed.bin");
+        ColumnarResultWriter writer = new ColumnarResultWriter(new FileOutputStream(file),
+                EVIDENCE_KEYS, RESULT_KEYS, 3, ResultWriter.DEFAULT_FLUSH_RECORDS);
+        Map<String, String> results = new HashMap<>();
+        results.put("device.ismobile", "true");
+        for (int i = 0; i < 10; i++) {
+            writer.write(Collections.emptyMap(), results);
+        }
+        // closed without being finished, as when processing fails, so has no trailer
+        writer.close();
+        ColumnarResultReader.open(file).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotColumnar() throws Exception {
+        File file = folder.newFile("results.csv");
+        try (OutputStream os = Files.newOutputStream(file.toPath())) {
+            write(new CsvResultWriter(os, EVIDENCE_KEYS, RESULT_KEYS,
+                    ResultWriter.DEFAULT_FLUSH_RECORDS), 10);
+        }
+        ColumnarResultReader.open(file).close();
+    }
+}
@@ -0,0 +1,166 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.offline;
+
+import fiftyone.pipeline.core.data.EvidenceKeyFilter;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+    private static final EvidenceKeyFilter HEADERS = new EvidenceKeyFilter() {
+        @Override
+        public boolean include(String key) {
+            return key.startsWith("header.");
+        }
+
+        @Override
+        public Integer order(String key) {
+            return include(key) ? 0 : null;
+        }
+    };
+
+    private final AtomicInteger detections = new AtomicInteger();
+
+    private static Map<String, String> evidence(String... keysAndValues) {
+        Map<String, String> evidence = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            evidence.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return evidence;
+    }
+
+    private Map<String, String> get(ResultCache cache, Map<String, String> evidence)
+            throws Exception {
+        return cache.get(evidence, () -> {
+            detections.incrementAndGet();
+            return Collections.singletonMap("device.ismobile",
+                    evidence.get("header.user-agent"));
+        });
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        ResultCache cache = new ResultCache(10, ResultCache.Policy.LRU, HEADERS, Date::new);
+        get(cache, evidence("header.user-agent", "a", "header.sec-ch-ua", "b"));
+        // the same evidence in a different order, with evidence the engine doesn't use
+        Map<String, String> results = get(cache, evidence(
+                "query.unused", "x", "header.sec-ch-ua", "b", "header.user-agent", "a"));
+        assertEquals("a", results.get("device.ismobile"));
+        get(cache, evidence("header.user-agent", "a"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, detections.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testKeysIgnoreCase() throws Exception {
+        ResultCache cache = new ResultCache(10, ResultCache.Policy.LRU, null, () -> null);
+        get(cache, evidence("Header.User-Agent", "a", "header.sec-ch-ua", "b"));
+        // the filter ignores the case of keys, so the engine sees the same evidence
+        get(cache, evidence("header.sec-ch-ua", "b", "header.user-agent", "a"));
+        assertEquals(1, cache.getHits());
+        // but not of values
+        get(cache, evidence("header.user-agent", "A", "header.sec-ch-ua", "b"));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testLru() throws Exception {
+        ResultCache cache = new ResultCache(2, ResultCache.Policy.LRU, null, () -> null);
+        get(cache, evidence("header.user-agent", "a"));
+        get(cache, evidence("header.user-agent", "b"));
+        // using a makes b the least recently used, so it is evicted
+        get(cache, evidence("header.user-agent", "a"));
+        get(cache, evidence("header.user-agent", "c"));
+        get(cache, evidence("header.user-agent", "a"));
+        assertEquals(2, cache.getHits());
+        get(cache, evidence("header.user-agent", "b"));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testFifo() throws Exception {
+        ResultCache cache = new ResultCache(2, ResultCache.Policy.FIFO, null, () -> null);
+        get(cache, evidence("header.user-agent", "a"));
+        get(cache, evidence("header.user-agent", "b"));
+        get(cache, evidence("header.user-agent", "a"));
+        // a was added first so is evicted, even though it was used since
+        get(cache, evidence("header.user-agent", "c"));
+        get(cache, evidence("header.user-agent", "b"));
+        assertEquals(2, cache.getHits());
+        get(cache, evidence("header.user-agent", "a"));
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        Date[] published = {new Date(1000)};
+        ResultCache cache = new ResultCache(10, ResultCache.Policy.LRU, null,
+                () -> published[0], 0);
+        get(cache, evidence("header.user-agent", "a"));
+        get(cache, evidence("header.user-agent", "a"));
+        assertEquals(1, cache.getHits());
+        // the same date, so nothing is discarded
+        published[0] = new Date(1000);
+        get(cache, evidence("header.user-agent", "a"));
+        assertEquals(2, cache.getHits());
+        published[0] = new Date(2000);
+        get(cache, evidence("header.user-agent", "a"));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getInvalidations());
+        get(cache, evidence("header.user-agent", "a"));
+        assertEquals(3, cache.getHits());
+    }
+
+    @Test
+    public void testInvalidatedOnce() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        ResultCache cache = new ResultCache(10, ResultCache.Policy.LRU, null,
+                () -> new Date(checks.incrementAndGet() > 1 ? 2000 : 1000), 0);
+        // many threads see the new date at once, but it is only one change
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    try {
+                        get(cache, evidence("header.user-agent", "a"));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(800, cache.getHits() + cache.getMisses());
+    }
+}
@@ -0,0 +1,105 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.offline;
+
+import org.junit.Test;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResultWriterTest {
+    private static final List<String> RESULT_KEYS =
+            Arrays.asList("device.ismobile", "device.platformname");
+
+    private static String write(ResultWriter.Format format, List<String> evidenceKeys)
+            throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ResultWriter writer = ResultWriter.create(format, os, evidenceKeys, RESULT_KEYS,
+                ResultWriter.DEFAULT_FLUSH_RECORDS)) {
+            Map<String, String> evidence = new LinkedHashMap<>();
+            evidence.put("header.user-agent", "a,\"b\"");
+            evidence.put("query.x", "tab\there");
+            Map<String, String> results = new LinkedHashMap<>();
+            results.put("device.ismobile", "true");
+            results.put("device.platformname", "Android");
+            writer.write(evidence, results);
+            evidence.remove("header.user-agent");
+            writer.write(evidence, results);
+        }
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        assertEquals("query.x,header.user-agent,device.ismobile,device.platformname\n" +
+                "tab\there,\"a,\"\"b\"\"\",true,Android\n" +
+                "tab\there,,true,Android\n",
+                write(ResultWriter.Format.CSV, Arrays.asList("query.x", "header.user-agent")));
+    }
+
+    @Test
+    public void testJsonLines() throws Exception {
+        assertEquals("{\"header.user-agent\":\"a,\\\"b\\\"\",\"query.x\":\"tab\\there\"," +
+                "\"device.ismobile\":\"true\",\"device.platformname\":\"Android\"}\n" +
+                "{\"query.x\":\"tab\\there\"," +
+                "\"device.ismobile\":\"true\",\"device.platformname\":\"Android\"}\n",
+                write(ResultWriter.Format.JSONL, null));
+    }
+
+    @Test
+    public void testYaml() throws Exception {
+        String yaml = write(ResultWriter.Format.YAML, Collections.singletonList("query.x"));
+        List<Object> documents = new ArrayList<>();
+        new Yaml().loadAll(yaml).forEach(documents::add);
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("query.x", "tab\there");
+        expected.put("device.ismobile", "true");
+        expected.put("device.platformname", "Android");
+        assertEquals(Arrays.asList(expected, expected), documents);
+    }
+
+    @Test
+    public void testFlushRecords() throws Exception {
+        int[] flushes = {0};
+        OutputStream os = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+        try (ResultWriter writer = ResultWriter.create(ResultWriter.Format.JSONL, os, null,
+                RESULT_KEYS, 10)) {
+            for (int i = 0; i < 25; i++) {
+                writer.write(Collections.singletonMap("header.user-agent", "UA " + i),
+                        Collections.singletonMap("device.ismobile", "true"));
+            }
+            assertEquals(2, flushes[0]);
+        }
+    }
+}
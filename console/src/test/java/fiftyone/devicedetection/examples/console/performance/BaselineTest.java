@@ -0,0 +1,79 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BaselineTest {
+
+    private static Map<String, Object> getResult(String label, double throughput, double p99) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("label", label);
+        result.put("detectionsPerSecond", throughput);
+        result.put("p99Micros", p99);
+        return result;
+    }
+
+    private static Baseline getBaseline(List<Map<String, Object>> results) throws Exception {
+        StringWriter writer = new StringWriter();
+        ResultsWriter.writeCsv(writer, results);
+        return Baseline.load(new StringReader(writer.toString()));
+    }
+
+    @Test
+    public void testNoRegression() throws Exception {
+        Baseline baseline = getBaseline(Collections.singletonList(getResult("a,b", 1000, 10)));
+        assertEquals(Collections.singleton("a,b"), baseline.getLabels());
+        assertTrue(baseline.compare(
+                Collections.singletonList(getResult("a,b", 950, 11)), 0.1, 0.2).isEmpty());
+    }
+
+    @Test
+    public void testRegressions() throws Exception {
+        Baseline baseline = getBaseline(Arrays.asList(
+                getResult("slower", 1000, 10),
+                getResult("later", 1000, 10)));
+        List<String> regressions = baseline.compare(Arrays.asList(
+                getResult("slower", 800, 10),
+                getResult("later", 1000, 13),
+                getResult("new", 1, 1000)), 0.1, 0.2);
+        assertEquals(2, regressions.size());
+        assertTrue(regressions.get(0).startsWith("slower:"));
+        assertTrue(regressions.get(1).startsWith("later:"));
+    }
+
+    @Test
+    public void testParseCsv() throws Exception {
+        List<List<String>> rows = Baseline.parseCsv(
+                new StringReader("label,value\r\n\"a,\"\"b\"\"\",1\nc,\n"));
+        assertEquals(3, rows.size());
+        assertEquals(Arrays.asList("a,\"b\"", "1"), rows.get(1));
+        assertEquals(Arrays.asList("c", ""), rows.get(2));
+    }
+}
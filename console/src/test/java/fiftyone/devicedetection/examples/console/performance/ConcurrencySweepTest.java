@@ -0,0 +1,69 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConcurrencySweepTest {
+
+    @Test
+    public void testRun() throws Exception {
+        List<Integer> run = new ArrayList<>();
+        ConcurrencySweep sweep = new ConcurrencySweep(Arrays.asList(4, 1, 16));
+        assertEquals(0, sweep.getConcurrency());
+        sweep.run(() -> run.add(sweep.getConcurrency()));
+        assertEquals(Arrays.asList(4, 1, 16), run);
+        assertEquals(0, sweep.getConcurrency());
+    }
+
+    @Test
+    public void testBenchmarkFails() {
+        ConcurrencySweep sweep = new ConcurrencySweep(Collections.singletonList(8));
+        try {
+            sweep.run(() -> {
+                throw new IllegalStateException("failed");
+            });
+            fail("The failure should be thrown");
+        } catch (Exception e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertEquals(0, sweep.getConcurrency());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmpty() {
+        new ConcurrencySweep(Collections.<Integer>emptyList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotPositive() {
+        new ConcurrencySweep(Arrays.asList(2, 0));
+    }
+}
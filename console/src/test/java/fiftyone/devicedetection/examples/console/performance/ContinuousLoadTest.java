@@ -0,0 +1,93 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import fiftyone.devicedetection.examples.shared.ExecutorHelper;
+import fiftyone.devicedetection.examples.shared.ExecutorHelper.Threading;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class ContinuousLoadTest {
+
+    static List<Map<String, String>> getEvidence(int records) {
+        List<Map<String, String>> evidence = new ArrayList<>();
+        for (int i = 0; i < records; i++) {
+            evidence.add(Collections.singletonMap("header.user-agent", "agent " + i));
+        }
+        return evidence;
+    }
+
+    @Test
+    public void testAllRecordsDetected() throws Exception {
+        List<Map<String, String>> evidence = getEvidence(10);
+        Set<Map<String, String>> detected = ConcurrentHashMap.newKeySet();
+        try (ContinuousLoad load = new ContinuousLoad(
+                evidence, detected::add, Threading.PLATFORM, 3, 3)) {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (detected.size() < evidence.size() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            load.checkThreads();
+            assertEquals(evidence.size(), detected.size());
+            long detections = load.getIntervalHistogram().getTotalCount();
+            assertTrue(detections >= evidence.size());
+        }
+    }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        assumeTrue("Virtual threads not supported", ExecutorHelper.isVirtualThreadSupported());
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        try (ContinuousLoad load = new ContinuousLoad(getEvidence(10),
+                e -> threads.add(Thread.currentThread().toString()),
+                Threading.VIRTUAL, 100, 3)) {
+            Thread.sleep(100);
+            load.checkThreads();
+            assertTrue(load.getIntervalHistogram().getTotalCount() > 0);
+        }
+        assertTrue(threads.iterator().next().startsWith("VirtualThread"));
+    }
+
+    @Test
+    public void testFailureSurfaced() throws Exception {
+        try (ContinuousLoad load = new ContinuousLoad(getEvidence(10), e -> {
+            throw new IllegalStateException("detection failed");
+        }, Threading.PLATFORM, 2, 3)) {
+            Thread.sleep(100);
+            load.checkThreads();
+            fail("The failed detection should be surfaced");
+        } catch (Exception e) {
+            assertEquals("detection failed", e.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoEvidence() {
+        new ContinuousLoad(Collections.emptyList(), e -> {}, Threading.PLATFORM, 1, 3);
+    }
+}
@@ -0,0 +1,198 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import fiftyone.devicedetection.examples.shared.ExecutorHelper.Threading;
+import fiftyone.devicedetection.shared.DeviceData;
+import fiftyone.pipeline.core.data.FlowData;
+import fiftyone.pipeline.core.flowelements.Pipeline;
+import fiftyone.pipeline.engines.data.AspectPropertyValue;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.*;
+
+public class DetectionVerifierTest {
+
+    /**
+     * A pipeline whose values are given by a function of the evidence and property name, so
+     * that no data file is needed
+     */
+    private static Pipeline getPipeline(
+            BiFunction<Map<String, ?>, String, Object> values) {
+        return (Pipeline) Proxy.newProxyInstance(
+                DetectionVerifierTest.class.getClassLoader(),
+                new Class<?>[]{Pipeline.class},
+                (pipeline, method, args) -> {
+                    if (method.getName().equals("createFlowData")) {
+                        return getFlowData(values);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FlowData getFlowData(BiFunction<Map<String, ?>, String, Object> values) {
+        Map<String, Object> evidence = new HashMap<>();
+        DeviceData device = (DeviceData) Proxy.newProxyInstance(
+                DetectionVerifierTest.class.getClassLoader(),
+                new Class<?>[]{DeviceData.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("get")) {
+                        return getValue(values.apply(evidence, (String) args[0]));
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return (FlowData) Proxy.newProxyInstance(
+                DetectionVerifierTest.class.getClassLoader(),
+                new Class<?>[]{FlowData.class},
+                (flowData, method, args) -> {
+                    switch (method.getName()) {
+                        case "addEvidence":
+                            evidence.putAll((Map<String, Object>) args[0]);
+                            return flowData;
+                        case "process":
+                            return flowData;
+                        case "get":
+                            return device;
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static AspectPropertyValue<?> getValue(Object value) {
+        return (AspectPropertyValue<?>) Proxy.newProxyInstance(
+                DetectionVerifierTest.class.getClassLoader(),
+                new Class<?>[]{AspectPropertyValue.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hasValue":
+                            return true;
+                        case "getValue":
+                            return value;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static List<Map<String, String>> getEvidence(int records) {
+        List<Map<String, String>> evidence = new ArrayList<>();
+        for (int i = 0; i < records; i++) {
+            evidence.add(Collections.singletonMap("header.user-agent", "agent " + i));
+        }
+        return evidence;
+    }
+
+    @Test
+    public void testGetValues() throws Exception {
+        String[] values = DetectionVerifier.getValues(
+                getPipeline((evidence, property) -> property + " of " +
+                        evidence.get("header.user-agent")),
+                Collections.singletonMap("header.user-agent", "agent"),
+                Arrays.asList("IsMobile", "DeviceType"));
+        assertArrayEquals(new String[]{"IsMobile of agent", "DeviceType of agent"}, values);
+    }
+
+    @Test
+    public void testConsistent() throws Exception {
+        DetectionVerifier verifier = new DetectionVerifier(
+                getPipeline((evidence, property) -> evidence.get("header.user-agent")),
+                getEvidence(10),
+                DetectionVerifier.DEFAULT_PROPERTIES);
+        DetectionVerifier.Result result = verifier.verify(Threading.PLATFORM, 4);
+        // every thread detects every record
+        assertEquals(40, result.getDetections());
+        assertEquals(0, result.getMismatches());
+        assertTrue(result.getDescribedMismatches().isEmpty());
+    }
+
+    @Test
+    public void testPropertyMismatch() throws Exception {
+        AtomicInteger detections = new AtomicInteger();
+        // only DeviceType changes, once the reference has been found
+        DetectionVerifier verifier = new DetectionVerifier(
+                getPipeline((evidence, property) -> property.equals("DeviceType") &&
+                        detections.incrementAndGet() > 10 ? "Tablet" : "Desktop"),
+                getEvidence(10),
+                DetectionVerifier.DEFAULT_PROPERTIES);
+        verifier.runReference();
+        DetectionVerifier.Result result = verifier.verify(Threading.PLATFORM, 1);
+        assertEquals(10, result.getMismatches());
+        for (String mismatch : result.getDescribedMismatches()) {
+            assertTrue(mismatch.contains(
+                    "DeviceType: expected 'Desktop' but thread 0 got 'Tablet'"));
+        }
+    }
+
+    @Test
+    public void testMismatches() throws Exception {
+        AtomicInteger detections = new AtomicInteger();
+        // the values change once the reference has been found
+        DetectionVerifier verifier = new DetectionVerifier(
+                getPipeline((evidence, property) ->
+                        detections.incrementAndGet() > 30 ? "changed" : "reference"),
+                getEvidence(30),
+                Collections.singletonList("IsMobile"));
+        verifier.runReference();
+        DetectionVerifier.Result result = verifier.verify(Threading.PLATFORM, 2);
+        assertEquals(60, result.getDetections());
+        assertEquals(60, result.getMismatches());
+        assertEquals(DetectionVerifier.MAX_DESCRIBED_MISMATCHES,
+                result.getDescribedMismatches().size());
+        assertTrue(result.getDescribedMismatches().get(0)
+                .contains("IsMobile: expected 'reference' but thread"));
+    }
+
+    @Test
+    public void testReport() throws Exception {
+        AtomicInteger detections = new AtomicInteger();
+        // the values change once the reference has been found
+        DetectionVerifier verifier = new DetectionVerifier(
+                getPipeline((evidence, property) ->
+                        detections.incrementAndGet() > 30 ? "changed" : "reference"),
+                getEvidence(30),
+                Collections.singletonList("IsMobile"));
+        DetectionVerifier.Result result = verifier.verify(Threading.PLATFORM, 1);
+        StringWriter output = new StringWriter();
+        List<String> failures = verifier.report(
+                result, "label", 1, new PrintWriter(output, true));
+        String[] lines = output.toString().split("\\R");
+        assertEquals("Verify: label, Threads: 1, Detections compared: 30, " +
+                "Properties: [IsMobile], Mismatches: 30", lines[0]);
+        assertEquals(1 + DetectionVerifier.MAX_DESCRIBED_MISMATCHES, lines.length);
+        assertTrue(lines[1].startsWith("Mismatch: label: record "));
+        // each described mismatch, then a count of the rest
+        assertEquals(DetectionVerifier.MAX_DESCRIBED_MISMATCHES + 1, failures.size());
+        assertEquals("label: 10 more mismatches", failures.get(failures.size() - 1));
+    }
+}
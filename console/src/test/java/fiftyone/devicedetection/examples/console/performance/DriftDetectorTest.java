@@ -0,0 +1,72 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DriftDetectorTest {
+
+    @Test
+    public void testSteadyValueDoesNotDrift() {
+        DriftDetector detector = new DriftDetector(4, 0.05);
+        for (double value : new double[]{100, 102, 99, 101, 100, 98, 101}) {
+            assertFalse(detector.add(value));
+        }
+    }
+
+    @Test
+    public void testRisingValueDrifts() {
+        DriftDetector detector = new DriftDetector(4, 0.05);
+        assertFalse(detector.add(100));
+        assertFalse(detector.add(102));
+        assertFalse(detector.add(104));
+        // a rise of 6 over 4 windows is more than 5% of the mean
+        assertTrue(detector.add(106));
+        assertEquals(6, detector.getRise(), 0.001);
+    }
+
+    @Test
+    public void testFallingValueDrifts() {
+        DriftDetector upward = new DriftDetector(4, 0.05);
+        DriftDetector downward = new DriftDetector(4, 0.05, true);
+        for (double value : new double[]{106, 104, 102}) {
+            assertFalse(upward.add(value));
+            assertFalse(downward.add(value));
+        }
+        // only a detector of falling values flags a fall
+        assertFalse(upward.add(100));
+        assertTrue(downward.add(100));
+        assertEquals(-6, downward.getRise(), 0.001);
+    }
+
+    @Test
+    public void testUnmeasuredValuesIgnored() {
+        DriftDetector detector = new DriftDetector(2, 0.05);
+        assertFalse(detector.add(-1));
+        assertFalse(detector.add(Double.NaN));
+        assertFalse(detector.add(100));
+        assertEquals(0, detector.getRise(), 0);
+    }
+}
@@ -0,0 +1,99 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ForkedResultsTest {
+
+    private static Map<String, Object> getColumns(String label, long detections) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("label", label);
+        columns.put("detections", detections);
+        columns.put("allProperties", true);
+        return columns;
+    }
+
+    private static Histogram getLatency(long... values) {
+        Histogram latency = new Histogram(3);
+        for (long value : values) {
+            latency.recordValue(value);
+        }
+        return latency;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        StringWriter child = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(child)) {
+            writer.println("Benchmarking with profile: MaxPerformance");
+            ForkedResults.writeResult(writer, getColumns("first", 100), getLatency(1000, 2000));
+            ForkedResults.writeResult(writer, getColumns("second", 200), getLatency(3000));
+            ForkedResults.writeVerificationFailure(writer, "second: 2 more mismatches");
+            writer.println("Overall: 300 detections");
+        }
+
+        List<String> output = new ArrayList<>();
+        ForkedResults forked = new ForkedResults(output::add);
+        for (String line : child.toString().split("\\R")) {
+            forked.accept(line);
+        }
+        // only the lines which are not results are passed on
+        assertEquals(Arrays.asList(
+                "Benchmarking with profile: MaxPerformance",
+                "Overall: 300 detections"), output);
+
+        List<ForkedResults.Result> results = forked.getResults();
+        assertEquals(2, results.size());
+        assertEquals(getColumns("first", 100), results.get(0).getColumns());
+        assertEquals(2, results.get(0).getLatency().getTotalCount());
+        assertEquals(2000, results.get(0).getLatency().getMaxValue());
+        assertEquals(getColumns("second", 200), results.get(1).getColumns());
+        assertEquals(1, results.get(1).getLatency().getTotalCount());
+        assertEquals(Collections.singletonList("second: 2 more mismatches"),
+                forked.getVerificationFailures());
+    }
+
+    @Test
+    public void testEncode() throws Exception {
+        Histogram latency = ForkedResults.decode(
+                ForkedResults.encode(getLatency(500, 1500, 2500)));
+        assertEquals(3, latency.getTotalCount());
+        assertEquals(2500, latency.getMaxValue());
+    }
+
+    @Test
+    public void testNoResults() throws Exception {
+        ForkedResults forked = new ForkedResults(line -> {});
+        forked.accept("Overall: 0 detections");
+        assertTrue(forked.getResults().isEmpty());
+        assertTrue(forked.getVerificationFailures().isEmpty());
+    }
+}
@@ -0,0 +1,70 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RateSweepTest {
+
+    @Test
+    public void testSaturation() throws Exception {
+        List<Double> rates = new ArrayList<>();
+        RateSweep sweep = new RateSweep(1000, 2, 0.95);
+        // at most 5000 detections per second can be carried out
+        sweep.run(rate -> {
+            rates.add(rate);
+            return Math.min(rate, 5000);
+        });
+        assertEquals(Arrays.asList(1000.0, 2000.0, 4000.0, 8000.0), rates);
+        assertEquals(4000, sweep.getSustainedRate(), 0);
+        assertEquals(8000, sweep.getSaturatedRate(), 0);
+    }
+
+    @Test
+    public void testWithinThreshold() throws Exception {
+        RateSweep sweep = new RateSweep(1000, 2, 0.9);
+        // 91% of the rate is achieved below 5000, then 50%
+        sweep.run(rate -> rate < 5000 ? rate * 0.91 : rate * 0.5);
+        assertEquals(4000, sweep.getSustainedRate(), 0);
+    }
+
+    @Test
+    public void testFirstRateSaturated() throws Exception {
+        RateSweep sweep = new RateSweep(1000, 1.5, 0.95);
+        assertTrue(Double.isNaN(sweep.getSaturatedRate()));
+        sweep.run(rate -> 10);
+        assertEquals(0, sweep.getSustainedRate(), 0);
+        assertEquals(1000, sweep.getSaturatedRate(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFactorNotIncreasing() {
+        new RateSweep(1000, 1, 0.95);
+    }
+}
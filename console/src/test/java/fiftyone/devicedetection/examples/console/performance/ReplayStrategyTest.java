@@ -0,0 +1,133 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import fiftyone.devicedetection.examples.console.performance.ReplayStrategy.Order;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ReplayStrategyTest {
+
+    private static List<Integer> getRecords(int size) {
+        List<Integer> records = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            records.add(i);
+        }
+        return records;
+    }
+
+    @Test
+    public void testDefault() {
+        List<Integer> records = getRecords(10);
+        assertSame(records, new ReplayStrategy().getList(records, 3, 4));
+    }
+
+    @Test
+    public void testOffset() {
+        List<Integer> records = getRecords(8);
+        ReplayStrategy replay = new ReplayStrategy(Order.OFFSET, 1.0, 1.0, 1);
+        assertEquals(records, replay.getList(records, 0, 4));
+        assertEquals(Arrays.asList(2, 3, 4, 5, 6, 7, 0, 1), replay.getList(records, 1, 4));
+    }
+
+    @Test
+    public void testShuffle() {
+        List<Integer> records = getRecords(100);
+        List<Integer> first = new ReplayStrategy(Order.SHUFFLE, 1.0, 1.0, 7).getList(records, 0, 2);
+        List<Integer> second = new ReplayStrategy(Order.SHUFFLE, 1.0, 1.0, 7).getList(records, 1, 2);
+        assertNotEquals(records, first);
+        assertNotEquals(first, second);
+        // every record once
+        assertEquals(new HashSet<>(records), new HashSet<>(first));
+        // the same seed gives the same order
+        assertEquals(first, new ReplayStrategy(Order.SHUFFLE, 1.0, 1.0, 7).getList(records, 0, 2));
+    }
+
+    @Test
+    public void testZipf() {
+        List<Integer> records = getRecords(1000);
+        List<Integer> replayed = new ReplayStrategy(Order.ZIPF, 1.0, 1.0, 7).getList(records, 0, 1);
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Integer record : replayed) {
+            counts.merge(record, 1, Integer::sum);
+        }
+        // the most common record accounts for far more than its share
+        assertTrue(Collections.max(counts.values()) > 50);
+        assertTrue(counts.size() < records.size());
+    }
+
+    @Test
+    public void testPermutation() {
+        // every size, including those that are not a power of 2, is permuted exactly
+        for (int size : new int[]{1, 2, 3, 5, 100, 1000, 4097}) {
+            ReplayStrategy.Permutation permutation = new ReplayStrategy.Permutation(size);
+            Set<Integer> indexes = new HashSet<>();
+            for (int i = 0; i < size; i++) {
+                int index = permutation.apply(i, 7);
+                assertTrue(index >= 0 && index < size);
+                indexes.add(index);
+            }
+            assertEquals(size, indexes.size());
+        }
+    }
+
+    @Test
+    public void testZipfDistribution() {
+        ReplayStrategy.Zipf zipf = new ReplayStrategy.Zipf(100, 1.0);
+        int[] counts = new int[101];
+        for (int i = 0; i < 100000; i++) {
+            counts[zipf.sample(ReplayStrategy.mix(i))]++;
+        }
+        // rank k has probability 1 / (k * H(100)), H(100) being about 5.187
+        assertEquals(100000 / 5.187, counts[1], 1000);
+        assertEquals(100000 / 5.187 / 2, counts[2], 1000);
+        assertEquals(100000 / 5.187 / 100, counts[100], 100);
+    }
+
+    @Test
+    public void testThreadsDiffer() {
+        List<Integer> records = getRecords(1000);
+        ReplayStrategy replay = new ReplayStrategy(Order.ZIPF, 0.5, 1.0, 7);
+        List<Integer> first = replay.getList(records, 0, 2);
+        List<Integer> second = replay.getList(records, 1, 2);
+        assertNotEquals(first, second);
+        // the records replayed are the same for every thread
+        Set<Integer> unique = new HashSet<>(first);
+        unique.addAll(second);
+        assertTrue(unique.size() <= 500);
+        // the order is the same each time it is replayed
+        assertEquals(first, new ArrayList<>(replay.getList(records, 0, 2)));
+    }
+
+    @Test
+    public void testUniqueRatio() {
+        List<Integer> records = getRecords(100);
+        List<Integer> replayed = new ReplayStrategy(Order.SEQUENTIAL, 0.1, 1.0, 7)
+                .getList(records, 0, 1);
+        assertEquals(100, replayed.size());
+        assertEquals(10, new HashSet<>(replayed).size());
+    }
+}
@@ -0,0 +1,81 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ResultsWriterTest {
+
+    private static List<Map<String, Object>> getResults() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("label", "a,\"b\"");
+        first.put("threads", 1);
+        first.put("efficiency", Double.NaN);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("label", "c");
+        second.put("threads", 2);
+        second.put("efficiency", 0.5);
+        second.put("fromDisk", true);
+        return Arrays.asList(first, second);
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        StringWriter writer = new StringWriter();
+        ResultsWriter.writeCsv(writer, getResults());
+        assertEquals("label,threads,efficiency,fromDisk\n" +
+                "\"a,\"\"b\"\"\",1,,\n" +
+                "c,2,0.5,true\n", writer.toString());
+    }
+
+    @Test
+    public void testJson() throws Exception {
+        StringWriter writer = new StringWriter();
+        ResultsWriter.writeJson(writer, getResults());
+        assertEquals("[\n" +
+                "  {\"label\": \"a,\\\"b\\\"\", \"threads\": 1, \"efficiency\": null},\n" +
+                "  {\"label\": \"c\", \"threads\": 2, \"efficiency\": 0.5, \"fromDisk\": true}\n" +
+                "]\n", writer.toString());
+    }
+
+    @Test
+    public void testReadCsv() throws Exception {
+        StringWriter writer = new StringWriter();
+        ResultsWriter.writeCsv(writer, getResults());
+        List<Map<String, Object>> results =
+                ResultsWriter.readCsv(new StringReader(writer.toString()));
+        assertEquals(2, results.size());
+        assertEquals("a,\"b\"", results.get(0).get("label"));
+        assertEquals(1L, results.get(0).get("threads"));
+        assertNull(results.get(0).get("efficiency"));
+        assertEquals(0.5, results.get(1).get("efficiency"));
+        assertEquals(true, results.get(1).get("fromDisk"));
+    }
+}
@@ -0,0 +1,80 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import fiftyone.devicedetection.examples.shared.ExecutorHelper.Threading;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class SoakTestTest {
+
+    private static ContinuousLoad getLoad(ContinuousLoad.Detection detection) {
+        return new ContinuousLoad(ContinuousLoadTest.getEvidence(10), detection,
+                Threading.PLATFORM, 2, 3);
+    }
+
+    @Test
+    public void testWholeWindows() throws Exception {
+        StringWriter output = new StringWriter();
+        SoakTest.Result result;
+        try (ContinuousLoad load = getLoad(e -> Thread.sleep(1))) {
+            // the part window at the end is not run
+            result = new SoakTest(130, 50, 0.05).run(load, new PrintWriter(output, true));
+        }
+        String[] lines = output.toString().split(System.lineSeparator());
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("Soak: Window 1, 0 secs, Detections per second: "));
+        assertTrue(lines[1].startsWith("Soak: Window 2, "));
+        assertTrue(lines[2].startsWith("Soak: " + String.format("%,d",
+                result.getLatency().getTotalCount()) + " detections, "));
+        // the signal which is not measured is stated
+        assertTrue(lines[3].startsWith("Soak: Open FlowData are not counted"));
+        assertTrue(result.getLatency().getTotalCount() > 0);
+        assertTrue(result.getElapsedNanos() >= 100000000L);
+        assertTrue(result.getDetectionsPerSecond() > 0);
+    }
+
+    @Test
+    public void testSlowingDrifts() throws Exception {
+        StringWriter output = new StringWriter();
+        long start = System.nanoTime();
+        SoakTest.Result result;
+        // each detection takes 1 milli longer for every 20 millis of the soak test
+        try (ContinuousLoad load = getLoad(e ->
+                Thread.sleep(1 + (System.nanoTime() - start) / 20000000L))) {
+            result = new SoakTest(400, 50, 0.05).run(load, new PrintWriter(output, true));
+        }
+        assertTrue(result.getDriftWindows() > 0);
+        assertTrue(output.toString().contains("p99 latency"));
+        assertTrue(output.toString().contains("throughput"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoWindow() {
+        new SoakTest(1000, 0, 0.05);
+    }
+}
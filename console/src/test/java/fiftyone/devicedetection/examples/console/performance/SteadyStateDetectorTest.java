@@ -0,0 +1,54 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SteadyStateDetectorTest {
+
+    @Test
+    public void testNotSteadyUntilEnoughWindows() {
+        SteadyStateDetector detector = new SteadyStateDetector(3, 0.05);
+        assertFalse(detector.add(1000));
+        assertFalse(detector.add(1000));
+        assertTrue(Double.isNaN(detector.getCoefficientOfVariation()));
+        assertTrue(detector.add(1000));
+        assertEquals(0, detector.getCoefficientOfVariation(), 0);
+    }
+
+    @Test
+    public void testSteadyAfterWarmUp() {
+        SteadyStateDetector detector = new SteadyStateDetector(3, 0.05);
+        // throughput rising as the JVM warms up
+        assertFalse(detector.add(200));
+        assertFalse(detector.add(600));
+        assertFalse(detector.add(900));
+        assertFalse(detector.add(1000));
+        assertFalse(detector.add(1010));
+        // only the last 3 windows count
+        assertTrue(detector.add(990));
+        assertEquals(1000, detector.getMean(), 0.001);
+    }
+}
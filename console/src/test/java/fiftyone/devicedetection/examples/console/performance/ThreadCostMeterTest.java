@@ -0,0 +1,62 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class ThreadCostMeterTest {
+
+    @Test
+    public void testUnavailable() {
+        assertEquals(-1, ThreadCostMeter.getAllocatedBytes(-1, 100));
+        assertEquals(-1, ThreadCostMeter.getCpuNanos(100, -1));
+        assertEquals(50, ThreadCostMeter.getCpuNanos(100, 150));
+    }
+
+    @Test
+    public void testPhases() {
+        assumeTrue("Thread allocation not measurable", ThreadCostMeter.getAllocatedBytes() >= 0);
+        ThreadCostMeter meter = new ThreadCostMeter();
+        meter.start();
+        byte[][] arrays = new byte[100][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = new byte[1000];
+        }
+        meter.mark(ThreadCostMeter.Phase.PROCESS);
+        assertTrue(arrays[99].length > 0);
+        assertTrue(meter.getAllocatedBytes(ThreadCostMeter.Phase.PROCESS) >= 100 * 1000);
+        assertEquals(0, meter.getAllocatedBytes(ThreadCostMeter.Phase.CLOSE));
+
+        // costs of other meters are added to each phase
+        ThreadCostMeter total = new ThreadCostMeter();
+        total.add(meter);
+        total.add(meter);
+        assertEquals(2 * meter.getAllocatedBytes(ThreadCostMeter.Phase.PROCESS),
+                total.getAllocatedBytes(ThreadCostMeter.Phase.PROCESS));
+        assertEquals(2 * meter.getCpuNanos(ThreadCostMeter.Phase.PROCESS),
+                total.getCpuNanos(ThreadCostMeter.Phase.PROCESS));
+    }
+}
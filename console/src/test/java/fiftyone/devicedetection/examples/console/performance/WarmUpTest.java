@@ -0,0 +1,69 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.console.performance;
+
+import fiftyone.devicedetection.examples.shared.ExecutorHelper.Threading;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WarmUpTest {
+
+    private static ContinuousLoad getLoad(ContinuousLoad.Detection detection) {
+        return new ContinuousLoad(ContinuousLoadTest.getEvidence(10), detection,
+                Threading.PLATFORM, 2, 3);
+    }
+
+    @Test
+    public void testSteady() throws Exception {
+        WarmUp warmUp = new WarmUp(20, 0.5, 10000);
+        long start = System.nanoTime();
+        try (ContinuousLoad load = getLoad(e -> Thread.sleep(1))) {
+            assertTrue(warmUp.run(load));
+        }
+        assertTrue(warmUp.getSteadyStart() >= start);
+        assertTrue(warmUp.getThroughput() > 0);
+    }
+
+    @Test
+    public void testNotSteady() throws Exception {
+        // no coefficient of variation is below 0, so throughput is never steady
+        WarmUp warmUp = new WarmUp(10, 0, 200);
+        try (ContinuousLoad load = getLoad(e -> Thread.sleep(1))) {
+            assertFalse(warmUp.run(load));
+        }
+        assertEquals(0, warmUp.getSteadyStart());
+        assertTrue(Double.isNaN(warmUp.getThroughput()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailureSurfaced() throws Throwable {
+        try (ContinuousLoad load = getLoad(e -> {
+            throw new IllegalStateException("detection failed");
+        })) {
+            new WarmUp(10, 0.5, 10000).run(load);
+        } catch (Exception e) {
+            throw e.getCause();
+        }
+    }
+}
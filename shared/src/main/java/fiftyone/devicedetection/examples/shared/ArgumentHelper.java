@@ -0,0 +1,106 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Splits command line arguments into positional arguments and options of the form
+ * <code>--name=value</code>. An option given as just <code>--name</code> has the value "true".
+ */
+public class ArgumentHelper {
+    private final List<String> positional = new ArrayList<>();
+    private final Map<String, String> options = new HashMap<>();
+
+    public ArgumentHelper(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int equals = arg.indexOf('=');
+                if (equals < 0) {
+                    options.put(arg.substring(2), "true");
+                } else {
+                    options.put(arg.substring(2, equals), arg.substring(equals + 1));
+                }
+            } else {
+                positional.add(arg);
+            }
+        }
+    }
+
+    /**
+     * Get a positional argument, ignoring any options
+     * @param index the position of the argument
+     * @param defaultValue returned if there are not enough positional arguments
+     * @return the argument or default
+     */
+    public String getPositional(int index, String defaultValue) {
+        return index < positional.size() ? positional.get(index) : defaultValue;
+    }
+
+    public boolean hasOption(String name) {
+        return options.containsKey(name);
+    }
+
+    public String getOption(String name, String defaultValue) {
+        String value = options.get(name);
+        return Objects.isNull(value) ? defaultValue : value;
+    }
+
+    public int getOption(String name, int defaultValue) {
+        String value = options.get(name);
+        return Objects.isNull(value) ? defaultValue : Integer.parseInt(value);
+    }
+
+    public long getOption(String name, long defaultValue) {
+        String value = options.get(name);
+        return Objects.isNull(value) ? defaultValue : Long.parseLong(value);
+    }
+
+    public double getOption(String name, double defaultValue) {
+        String value = options.get(name);
+        return Objects.isNull(value) ? defaultValue : Double.parseDouble(value);
+    }
+
+    /**
+     * Get a comma separated option as a list of integers e.g. <code>--threads=1,2,4</code>
+     * @param name the name of the option
+     * @param defaultValue returned if the option is not present
+     * @return a list of values
+     */
+    public List<Integer> getOption(String name, List<Integer> defaultValue) {
+        String value = options.get(name);
+        if (Objects.isNull(value)) {
+            return defaultValue;
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .collect(Collectors.toList());
+    }
+}
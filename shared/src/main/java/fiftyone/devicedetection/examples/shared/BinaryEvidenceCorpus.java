@@ -0,0 +1,472 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A compact binary corpus of evidence, for replaying millions of records without the time
+ * and memory needed to parse YAML into maps. The file is read through a memory map, and
+ * each record is presented as a read only Map view which decodes values only as they are
+ * read, so records need not all be held in memory.
+ * <p>
+ * The file starts with a header: the magic number, the format version, the offset of the
+ * key dictionary and the number of records. Each record follows, prefixed by its length:
+ * the capture time in epoch millis (0 if not known) and the number of keys, then for each
+ * key its index in the dictionary and its UTF-8 value prefixed by its length. The key
+ * dictionary, at the end of the file, is the number of keys followed by each key in UTF-8
+ * prefixed by its length.
+ * <p>
+ * Use {@link #convert(File, File)} to convert a YAML evidence file or an
+ * {@link EvidenceCorpus} to this format.
+ */
+public class BinaryEvidenceCorpus implements Closeable, Iterable<Map<String, String>> {
+    // the first 4 bytes of a binary corpus, "51DE"
+    public static final int MAGIC = 0x35314445;
+    public static final int VERSION = 1;
+    // magic, version, dictionary offset and record count
+    static final int HEADER_LENGTH = 4 + 4 + 8 + 8;
+    // the largest record, so a record is always within a segment of the memory map
+    static final int MAX_RECORD_LENGTH = 1 << 20;
+    // the size of each memory mapped segment, excluding the overlap with the next
+    static final long SEGMENT_LENGTH = 1L << 30;
+
+    private final FileChannel channel;
+    // the file is mapped in overlapping segments, as a buffer can't exceed 2GB
+    private final MappedByteBuffer[] segments;
+    private final long dictionaryOffset;
+    private final long size;
+    private final String[] keys;
+    private final Map<String, Integer> keyIndexes = new HashMap<>();
+
+    private BinaryEvidenceCorpus(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_LENGTH || header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a binary evidence corpus");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary evidence corpus version " + version);
+            }
+            dictionaryOffset = header.getLong();
+            size = header.getLong();
+
+            int segmentCount = (int) ((length + SEGMENT_LENGTH - 1) / SEGMENT_LENGTH);
+            segments = new MappedByteBuffer[Math.max(1, segmentCount)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT_LENGTH;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(SEGMENT_LENGTH + MAX_RECORD_LENGTH, length - start));
+            }
+
+            ByteBuffer dictionary = getBuffer(dictionaryOffset);
+            keys = new String[dictionary.getInt()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = readString(dictionary, dictionary.getShort() & 0xFFFF);
+                keyIndexes.put(keys[i], i);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open a binary corpus for reading
+     * @param file the file to read
+     * @return the corpus, which must be closed
+     * @throws IOException on file errors or if the file is not a binary corpus
+     */
+    public static BinaryEvidenceCorpus open(File file) throws IOException {
+        return new BinaryEvidenceCorpus(file);
+    }
+
+    /**
+     * @param file a file
+     * @return true if the file starts with the magic number of a binary corpus
+     */
+    public static boolean isBinaryCorpus(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Convert a YAML evidence file, as read by {@link EvidenceHelper}, or an
+     * {@link EvidenceCorpus} file to a binary corpus. The records are converted as they are
+     * read, so the input need not fit in memory.
+     * @param input the file to convert
+     * @param output the binary corpus to write
+     * @return the number of records converted
+     * @throws IOException on file errors
+     */
+    public static long convert(File input, File output) throws IOException {
+        try (Writer writer = openWriter(output)) {
+            if (isEvidenceCorpus(input)) {
+                EvidenceCorpus.forEach(input, Long.MAX_VALUE, writer::write);
+            } else {
+                for (Map<String, String> evidence : EvidenceHelper.getEvidenceIterable(input)) {
+                    writer.write(0, evidence);
+                }
+            }
+            writer.finish();
+            return writer.getSize();
+        }
+    }
+
+    private static boolean isEvidenceCorpus(File file) throws IOException {
+        // the same input as EvidenceCorpus reads, decompressed if the name ends ".gz"
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                EvidenceCorpus.openInput(file), StandardCharsets.UTF_8))) {
+            return EvidenceCorpus.HEADER.equals(reader.readLine());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Open a binary corpus for writing, replacing any existing file
+     * @param file the file to write
+     * @return a writer, which must be finished to complete the file, and closed
+     * @throws IOException on file errors
+     */
+    public static Writer openWriter(File file) throws IOException {
+        return new Writer(file);
+    }
+
+    /**
+     * @return the number of records
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the evidence keys used by the records
+     */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * Iterate through the records in order, without holding them in memory
+     * @return an iterator of lazily decoded views of each record
+     */
+    @Override
+    public Iterator<Map<String, String>> iterator() {
+        return new Iterator<Map<String, String>>() {
+            private long offset = HEADER_LENGTH;
+            private long index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Map<String, String> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Record record = new Record(offset);
+                offset += 4 + record.length;
+                index++;
+                return record;
+            }
+        };
+    }
+
+    /**
+     * Get a random access list of up to max records. The offset of each record is held,
+     * but the records themselves are lazily decoded views.
+     * @param max the maximum number of records
+     * @return the records, each being a {@link Record}
+     */
+    public List<Map<String, String>> asList(int max) {
+        int count = (int) Math.min(size, max);
+        final long[] offsets = new long[count];
+        long offset = HEADER_LENGTH;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = offset;
+            offset += 4 + getBuffer(offset).getInt();
+        }
+        return new RecordList(offsets);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @param offset the offset in the file
+     * @return a buffer positioned at the offset, which can be read independently of others
+     */
+    private ByteBuffer getBuffer(long offset) {
+        ByteBuffer buffer = segments[(int) (offset / SEGMENT_LENGTH)].duplicate();
+        buffer.position((int) (offset % SEGMENT_LENGTH));
+        return buffer;
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(),
+                    buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A read only view of a record, decoding keys and values when read
+     */
+    public class Record extends AbstractMap<String, String> {
+        // the offset of the record's keys in the file
+        private final long offset;
+        private final int length;
+        private final long timestamp;
+        private final int count;
+
+        private Record(long offset) {
+            ByteBuffer buffer = getBuffer(offset);
+            this.length = buffer.getInt();
+            this.timestamp = buffer.getLong();
+            this.count = buffer.getShort() & 0xFFFF;
+            this.offset = offset + 4 + 8 + 2;
+        }
+
+        /**
+         * @return the time the evidence was captured in epoch millis, 0 if not known
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public String get(Object key) {
+            Integer keyIndex = keyIndexes.get(key);
+            if (keyIndex == null) {
+                return null;
+            }
+            ByteBuffer buffer = getBuffer(offset);
+            for (int i = 0; i < count; i++) {
+                int index = buffer.getShort() & 0xFFFF;
+                int valueLength = buffer.getInt();
+                if (index == keyIndex) {
+                    return readString(buffer, valueLength);
+                }
+                buffer.position(buffer.position() + valueLength);
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    final ByteBuffer buffer = getBuffer(offset);
+                    return new Iterator<Entry<String, String>>() {
+                        private int read = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return read < count;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            read++;
+                            String key = keys[buffer.getShort() & 0xFFFF];
+                            String value = readString(buffer, buffer.getInt());
+                            return new SimpleImmutableEntry<>(key, value);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return count;
+                }
+            };
+        }
+    }
+
+    /**
+     * Random access to records by their offsets
+     */
+    private class RecordList extends AbstractList<Map<String, String>> implements RandomAccess {
+        private final long[] offsets;
+
+        RecordList(long[] offsets) {
+            this.offsets = offsets;
+        }
+
+        @Override
+        public Map<String, String> get(int index) {
+            return new Record(offsets[index]);
+        }
+
+        @Override
+        public int size() {
+            return offsets.length;
+        }
+    }
+
+    /**
+     * Writes records to a binary corpus. The header is only written by {@link #finish()},
+     * so a file which is closed without being finished, e.g. because a record could not be
+     * written, is not mistaken for a complete corpus. Not thread safe.
+     */
+    public static class Writer implements Closeable {
+        private final File file;
+        private final DataOutputStream out;
+        private final Map<String, Integer> keyIndexes = new LinkedHashMap<>();
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        private final DataOutputStream recordOut = new DataOutputStream(record);
+        private long offset = HEADER_LENGTH;
+        private long size = 0;
+        // true once the dictionary and header have been written
+        private boolean finished = false;
+
+        private Writer(File file) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            // completed when finished, until then the magic number is not valid
+            out.write(new byte[HEADER_LENGTH]);
+        }
+
+        /**
+         * Write a record
+         * @param timestamp the time the evidence was captured in epoch millis, 0 if not known
+         * @param evidence the evidence
+         * @throws IOException on write errors, or if the record is too large
+         */
+        public void write(long timestamp, Map<String, ?> evidence) throws IOException {
+            // the number of keys is written in 2 bytes
+            if (evidence.size() > 0xFFFF) {
+                throw new IOException("Record of " + evidence.size() + " keys has too many");
+            }
+            record.reset();
+            recordOut.writeLong(timestamp);
+            recordOut.writeShort(evidence.size());
+            for (Map.Entry<String, ?> entry : evidence.entrySet()) {
+                Integer index = keyIndexes.get(entry.getKey());
+                if (index == null) {
+                    index = keyIndexes.size();
+                    if (index > 0xFFFF) {
+                        throw new IOException("Too many different evidence keys");
+                    }
+                    // the length of each key in the dictionary is written in 2 bytes
+                    if (entry.getKey().getBytes(StandardCharsets.UTF_8).length > 0xFFFF) {
+                        throw new IOException("Evidence key " + entry.getKey() + " is too long");
+                    }
+                    keyIndexes.put(entry.getKey(), index);
+                }
+                byte[] value = String.valueOf(entry.getValue()).getBytes(StandardCharsets.UTF_8);
+                recordOut.writeShort(index);
+                recordOut.writeInt(value.length);
+                recordOut.write(value);
+            }
+            if (record.size() > MAX_RECORD_LENGTH) {
+                throw new IOException("Record of " + record.size() + " bytes is too large");
+            }
+            out.writeInt(record.size());
+            record.writeTo(out);
+            offset += 4 + record.size();
+            size++;
+        }
+
+        /**
+         * @return the number of records written
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Write the key dictionary and header, completing the file. Only call this when
+         * every record has been written, calling it again has no effect.
+         * @throws IOException on write errors
+         */
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            out.writeInt(keyIndexes.size());
+            for (String key : keyIndexes.keySet()) {
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            out.close();
+            try (RandomAccessFile header = new RandomAccessFile(file, "rw")) {
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.writeLong(offset);
+                header.writeLong(size);
+            }
+            finished = true;
+        }
+
+        /**
+         * Close the file, which is only a valid corpus if it was finished
+         * @throws IOException on file errors
+         */
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
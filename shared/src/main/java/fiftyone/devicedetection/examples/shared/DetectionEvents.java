@@ -0,0 +1,254 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import fiftyone.devicedetection.hash.engine.onpremise.flowelements.DeviceDetectionHashEngine;
+import fiftyone.pipeline.core.data.FlowData;
+import fiftyone.pipeline.core.flowelements.Pipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Records JDK Flight Recorder events around each stage of a detection - creating the
+ * FlowData, adding evidence, processing and getting property values - so that in JDK
+ * Mission Control latency outliers, which otherwise show only as native frames, can be
+ * correlated with the data file tier, the performance profile and the number of evidence
+ * keys.
+ * <p>
+ * The events, in the "51Degrees" category, are defined in {@link FlightRecorderEvents},
+ * which is only loaded if the jdk.jfr API is available, i.e. on Java 11 or later, or Java
+ * 8 from update 262. Otherwise, or when the events are not enabled in a recording, each
+ * stage is just carried out. Start a recording with e.g.
+ * {@code -XX:StartFlightRecording=filename=detection.jfr}.
+ */
+public class DetectionEvents {
+
+    /**
+     * The stages of a detection for which events are recorded
+     */
+    public enum Stage {
+        CREATE_FLOW_DATA,
+        ADD_EVIDENCE,
+        PROCESS,
+        GET_PROPERTY
+    }
+
+    /**
+     * Creates and commits the events, implemented by {@link FlightRecorderEvents}
+     */
+    interface Recorder {
+        /**
+         * @param stage a stage
+         * @return true if events for the stage are enabled in a running recording, which
+         * is checked without allocating
+         */
+        boolean isEnabled(Stage stage);
+
+        /**
+         * @param stage the stage about to be carried out, whose events are enabled
+         * @return an event which has begun
+         */
+        Object begin(Stage stage);
+
+        /**
+         * End the event and commit it to the recording
+         * @param event returned by {@link #begin(Stage)}
+         * @param tier the data file tier, or null if not known
+         * @param performanceProfile the performance profile, or null if not known
+         * @param evidenceKeys the number of evidence keys in the FlowData
+         * @param property the property got, or null if the stage is not
+         * {@link Stage#GET_PROPERTY}
+         */
+        void commit(Object event,
+                    String tier,
+                    String performanceProfile,
+                    int evidenceKeys,
+                    String property);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(DetectionEvents.class);
+
+    // records nothing, used when JFR is not available
+    private static final Recorder NONE = new Recorder() {
+        @Override
+        public boolean isEnabled(Stage stage) {
+            return false;
+        }
+
+        @Override
+        public Object begin(Stage stage) {
+            return null;
+        }
+
+        @Override
+        public void commit(Object event,
+                           String tier,
+                           String performanceProfile,
+                           int evidenceKeys,
+                           String property) {
+        }
+    };
+
+    private static final Recorder RECORDER = loadRecorder();
+
+    private final String tier;
+    private final String performanceProfile;
+
+    /**
+     * @param tier the data file tier e.g. "Lite", or null if not known
+     * @param performanceProfile the performance profile e.g. "MaxPerformance", or null if
+     *                           not known
+     */
+    public DetectionEvents(String tier, String performanceProfile) {
+        this.tier = tier;
+        this.performanceProfile = performanceProfile;
+    }
+
+    /**
+     * Events for detections by a pipeline, with the tier of its on-premise data file, if it
+     * has one
+     * @param pipeline the pipeline
+     * @param performanceProfile the profile the pipeline was built with, or null if not
+     *                           known
+     * @return the events
+     */
+    public static DetectionEvents forPipeline(Pipeline pipeline, String performanceProfile) {
+        DeviceDetectionHashEngine engine = pipeline.getElement(DeviceDetectionHashEngine.class);
+        return new DetectionEvents(
+                Objects.isNull(engine) ? null : engine.getDataSourceTier(),
+                performanceProfile);
+    }
+
+    /**
+     * @return true if this JVM supports JFR, so that events can be recorded
+     */
+    public static boolean isAvailable() {
+        return RECORDER != NONE;
+    }
+
+    /**
+     * Use this to avoid the cost of e.g. a getter for {@link #get(FlowData, String, Supplier)}
+     * when no event would be recorded
+     * @param stage a stage
+     * @return true if events for the stage are being recorded
+     */
+    public boolean isEnabled(Stage stage) {
+        return RECORDER.isEnabled(stage);
+    }
+
+    /**
+     * Create a FlowData, recording a {@link Stage#CREATE_FLOW_DATA} event
+     * @param pipeline the pipeline
+     * @return a new FlowData, which MUST be closed
+     */
+    public FlowData createFlowData(Pipeline pipeline) {
+        Object event = begin(Stage.CREATE_FLOW_DATA);
+        FlowData flowData = pipeline.createFlowData();
+        commit(event, flowData, null);
+        return flowData;
+    }
+
+    /**
+     * Add evidence, recording a {@link Stage#ADD_EVIDENCE} event
+     * @param flowData the FlowData
+     * @param evidence the evidence to add
+     * @return the FlowData
+     */
+    public FlowData addEvidence(FlowData flowData, Map<String, ?> evidence) {
+        Object event = begin(Stage.ADD_EVIDENCE);
+        flowData.addEvidence(evidence);
+        commit(event, flowData, null);
+        return flowData;
+    }
+
+    /**
+     * Process, recording a {@link Stage#PROCESS} event
+     * @param flowData the FlowData
+     * @return the FlowData
+     */
+    public FlowData process(FlowData flowData) {
+        Object event = begin(Stage.PROCESS);
+        flowData.process();
+        commit(event, flowData, null);
+        return flowData;
+    }
+
+    /**
+     * Get a property value, recording a {@link Stage#GET_PROPERTY} event
+     * @param flowData the FlowData the property is got from
+     * @param property the name of the property
+     * @param getter gets the value e.g. device::getIsMobile, which in a hot path need only
+     *               be created if {@link #isEnabled(Stage)}
+     * @param <T> the type of the value
+     * @return the value
+     */
+    public <T> T get(FlowData flowData, String property, Supplier<T> getter) {
+        Object event = begin(Stage.GET_PROPERTY);
+        T value = getter.get();
+        commit(event, flowData, property);
+        return value;
+    }
+
+    /**
+     * @return an event which has begun, or null if events for the stage are not enabled,
+     * in which case nothing is allocated
+     */
+    private static Object begin(Stage stage) {
+        return RECORDER.isEnabled(stage) ? RECORDER.begin(stage) : null;
+    }
+
+    /**
+     * Commit the event, if one was begun, counting the evidence keys only then as it is not
+     * free to do so
+     */
+    private void commit(Object event, FlowData flowData, String property) {
+        if (Objects.nonNull(event)) {
+            RECORDER.commit(event,
+                    tier,
+                    performanceProfile,
+                    flowData.getEvidence().asKeyMap().size(),
+                    property);
+        }
+    }
+
+    /**
+     * Load the JFR events by reflection, so that this class does not depend on jdk.jfr
+     * @return the recorder, or {@link #NONE} if JFR is not available
+     */
+    private static Recorder loadRecorder() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (Recorder) Class.forName(
+                            DetectionEvents.class.getPackage().getName() + ".FlightRecorderEvents")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.debug("JFR is not available, detection events will not be recorded");
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A corpus of evidence captured from real traffic, each record having the time it was
+ * captured, so that it can be replayed with its original timing.
+ * <p>
+ * The file is text, one record per line: the capture time in epoch millis followed by the
+ * evidence keys and values, separated by tabs. Tabs, line breaks and backslashes in keys
+ * and values are escaped with a backslash. Files whose names end ".gz" are compressed.
+ */
+public class EvidenceCorpus {
+    // the first line of a corpus file
+    public static final String HEADER = "#51Degrees evidence corpus v1";
+
+    private final List<Map<String, String>> evidence;
+    private final long[] timestamps;
+
+    private EvidenceCorpus(List<Map<String, String>> evidence, long[] timestamps) {
+        this.evidence = evidence;
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * @return the evidence of each record, in the order captured
+     */
+    public List<Map<String, String>> getEvidence() {
+        return evidence;
+    }
+
+    /**
+     * @return the capture time of each record in epoch millis, in the order captured
+     */
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    /**
+     * @return the number of records
+     */
+    public int size() {
+        return evidence.size();
+    }
+
+    /**
+     * Receives each record of a corpus as it is read
+     */
+    public interface RecordHandler {
+        /**
+         * @param timestamp the time the evidence was captured in epoch millis
+         * @param evidence the evidence
+         * @throws IOException if the record can't be handled
+         */
+        void accept(long timestamp, Map<String, String> evidence) throws IOException;
+    }
+
+    /**
+     * Read a corpus file into memory
+     * @param file the file to read
+     * @param max the maximum number of records to read
+     * @return the corpus
+     * @throws IOException on file errors or if the file is not a corpus
+     */
+    public static EvidenceCorpus read(File file, int max) throws IOException {
+        List<Map<String, String>> evidence = new ArrayList<>();
+        long[][] timestamps = {new long[1024]};
+        forEach(file, max, (timestamp, record) -> {
+            if (evidence.size() == timestamps[0].length) {
+                timestamps[0] = Arrays.copyOf(timestamps[0], timestamps[0].length * 2);
+            }
+            timestamps[0][evidence.size()] = timestamp;
+            evidence.add(record);
+        });
+        return new EvidenceCorpus(evidence, Arrays.copyOf(timestamps[0], evidence.size()));
+    }
+
+    /**
+     * Read a corpus file a record at a time, without holding the records in memory
+     * @param file the file to read
+     * @param max the maximum number of records to read
+     * @param handler receives each record
+     * @return the number of records read
+     * @throws IOException on file errors, if the file is not a corpus or if the handler
+     * fails
+     */
+    public static long forEach(File file, long max, RecordHandler handler) throws IOException {
+        long count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                openInput(file), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                throw new IOException(file + " is not an evidence corpus");
+            }
+            while (count < max && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields.length % 2 != 1) {
+                    throw new IOException("Malformed record: " + line);
+                }
+                Map<String, String> record = new HashMap<>();
+                for (int i = 1; i < fields.length; i += 2) {
+                    record.put(unescape(fields[i]), unescape(fields[i + 1]));
+                }
+                handler.accept(Long.parseLong(fields[0]), record);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Open a corpus file for writing, appending if it already exists
+     * @param file the file to write
+     * @return a writer
+     * @throws IOException on file errors
+     */
+    public static Writer openWriter(File file) throws IOException {
+        return new Writer(file);
+    }
+
+    /**
+     * Writes records to a corpus file. Records may be written concurrently from many
+     * threads.
+     */
+    public static class Writer implements Closeable {
+        private final BufferedWriter writer;
+
+        private Writer(File file) throws IOException {
+            // gzip can't be appended to, so a compressed corpus is always new
+            boolean append = file.exists() && file.length() > 0 && !isCompressed(file);
+            OutputStream out = new FileOutputStream(file, append);
+            if (isCompressed(file)) {
+                out = new GZIPOutputStream(out);
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (!append) {
+                writer.write(HEADER);
+                writer.newLine();
+            }
+        }
+
+        /**
+         * Write a record
+         * @param timestamp the time the evidence was captured in epoch millis
+         * @param evidence the evidence
+         * @throws IOException on write errors
+         */
+        public void write(long timestamp, Map<String, ?> evidence) throws IOException {
+            StringBuilder line = new StringBuilder().append(timestamp);
+            for (Map.Entry<String, ?> entry : evidence.entrySet()) {
+                line.append('\t').append(escape(entry.getKey()))
+                        .append('\t').append(escape(String.valueOf(entry.getValue())));
+            }
+            synchronized (this) {
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+
+        /**
+         * Write any buffered records to the file
+         * @throws IOException on write errors
+         */
+        public synchronized void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    private static boolean isCompressed(File file) {
+        return file.getName().endsWith(".gz");
+    }
+
+    static InputStream openInput(File file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()));
+        return isCompressed(file) ? new GZIPInputStream(in) : in;
+    }
+
+    static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': escaped.append("\\\\"); break;
+                case '\t': escaped.append("\\t"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                default: escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 't': unescaped.append('\t'); break;
+                    case 'n': unescaped.append('\n'); break;
+                    case 'r': unescaped.append('\r'); break;
+                    default: unescaped.append(next);
+                }
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
@@ -0,0 +1,202 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import java.util.*;
+
+/**
+ * Generates reproducible evidence sets of any size by recombining the User-Agent and User-Agent
+ * Client Hints (UA-CH) header values of an existing set of evidence, so that throughput and
+ * memory can be tested at millions of records without shipping large evidence files.
+ * <p>
+ * Each record takes a User-Agent from one source record and the UA-CH headers from another,
+ * chosen at random so that UA-CH headers from the same source record are kept together.
+ * The proportion of records which include a User-Agent, and which include UA-CH headers, is
+ * configurable, by default being the proportion of source records which do. So is the
+ * proportion of records with UA-CH headers which include each of them, by default all.
+ * <p>
+ * Records are generated on demand from the seed and their index, so a generated list holds
+ * no records and the same seed always gives the same records.
+ */
+public class EvidenceGenerator {
+    public static final String USER_AGENT = "header.user-agent";
+    // the prefix of the UA-CH headers, and the key for the coverage of UA-CH headers
+    public static final String CLIENT_HINTS = "header.sec-ch-ua";
+    public static final long DEFAULT_SEED = 42;
+
+    // distinct User-Agents of the source records
+    private final List<String> userAgents;
+    // distinct sets of UA-CH headers of the source records
+    private final List<Map<String, String>> clientHints;
+    // the proportion of records including the User-Agent and the UA-CH headers, and the
+    // proportion of those with UA-CH headers including each one
+    private final Map<String, Double> coverage = new TreeMap<>();
+    private long seed = DEFAULT_SEED;
+
+    /**
+     * Create a generator recombining the headers of the source evidence
+     * @param source evidence, for example from {@link EvidenceHelper#getEvidenceList}
+     */
+    public EvidenceGenerator(Iterable<? extends Map<String, String>> source) {
+        Set<String> userAgents = new LinkedHashSet<>();
+        Set<Map<String, String>> clientHints = new LinkedHashSet<>();
+        int records = 0;
+        int withUserAgent = 0;
+        int withClientHints = 0;
+        for (Map<String, String> evidence : source) {
+            records++;
+            Map<String, String> hints = new TreeMap<>();
+            for (Map.Entry<String, String> entry : evidence.entrySet()) {
+                String key = entry.getKey().toLowerCase(Locale.ROOT);
+                if (key.equals(USER_AGENT)) {
+                    userAgents.add(entry.getValue());
+                    withUserAgent++;
+                } else if (key.startsWith(CLIENT_HINTS)) {
+                    hints.put(key, entry.getValue());
+                }
+            }
+            if (!hints.isEmpty()) {
+                clientHints.add(hints);
+                withClientHints++;
+            }
+        }
+        if (userAgents.isEmpty() && clientHints.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "The source evidence has no User-Agent or UA-CH headers");
+        }
+        this.userAgents = new ArrayList<>(userAgents);
+        this.clientHints = new ArrayList<>(clientHints);
+        coverage.put(USER_AGENT, (double) withUserAgent / records);
+        coverage.put(CLIENT_HINTS, (double) withClientHints / records);
+    }
+
+    /**
+     * Set the seed, the same seed always generating the same records
+     * @param seed the seed
+     * @return this
+     */
+    public EvidenceGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Set the proportion of records which include a header. For UA-CH headers other than
+     * "header.sec-ch-ua" itself, this is the proportion of the records with UA-CH headers,
+     * see {@link #setClientHintsCoverage}, whose source record's header is included.
+     * @param key the evidence key, e.g. "header.sec-ch-ua-platform-version"
+     * @param proportion between 0 and 1
+     * @return this
+     */
+    public EvidenceGenerator setCoverage(String key, double proportion) {
+        if (proportion < 0 || proportion > 1) {
+            throw new IllegalArgumentException("Coverage must be between 0 and 1");
+        }
+        coverage.put(key.toLowerCase(Locale.ROOT), proportion);
+        return this;
+    }
+
+    /**
+     * Set the proportion of records which include UA-CH headers. The default is the
+     * proportion of source records which include any.
+     * @param proportion between 0 and 1
+     * @return this
+     */
+    public EvidenceGenerator setClientHintsCoverage(double proportion) {
+        return setCoverage(CLIENT_HINTS, proportion);
+    }
+
+    /**
+     * @return the coverage of the User-Agent and UA-CH headers, and of any UA-CH headers
+     * which has been set
+     */
+    public Map<String, Double> getCoverage() {
+        return Collections.unmodifiableMap(coverage);
+    }
+
+    /**
+     * Generate a record
+     * @param index the index of the record
+     * @return a new map of evidence
+     */
+    public Map<String, String> generate(long index) {
+        // a generator per record, so any record can be generated independently
+        SplittableRandom random = new SplittableRandom(seed + index * 0x9E3779B97F4A7C15L);
+        // always make every draw, so changing the coverage leaves the other choices alone
+        int userAgent = random.nextInt(Math.max(1, userAgents.size()));
+        boolean includeUserAgent = include(random, USER_AGENT);
+        int hints = random.nextInt(Math.max(1, clientHints.size()));
+        boolean includeHints = include(random, CLIENT_HINTS);
+        Map<String, String> evidence = new HashMap<>();
+        if (includeUserAgent && !userAgents.isEmpty()) {
+            evidence.put(USER_AGENT, userAgents.get(userAgent));
+        }
+        if (!clientHints.isEmpty()) {
+            for (Map.Entry<String, String> hint : clientHints.get(hints).entrySet()) {
+                boolean include = hint.getKey().equals(CLIENT_HINTS) ||
+                        include(random, hint.getKey());
+                if (includeHints && include) {
+                    evidence.put(hint.getKey(), hint.getValue());
+                }
+            }
+        }
+        return evidence;
+    }
+
+    /**
+     * Get a list of generated records. The records are generated each time they are read.
+     * @param size the number of records
+     * @return a random access list of records
+     */
+    public List<Map<String, String>> generate(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative");
+        }
+        return new GeneratedList(size);
+    }
+
+    private boolean include(SplittableRandom random, String key) {
+        return random.nextDouble() < coverage.getOrDefault(key, 1.0);
+    }
+
+    private class GeneratedList extends AbstractList<Map<String, String>> implements RandomAccess {
+        private final int size;
+
+        GeneratedList(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Map<String, String> get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return generate((long) index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
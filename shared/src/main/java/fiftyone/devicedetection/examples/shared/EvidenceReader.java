@@ -0,0 +1,507 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import fiftyone.pipeline.core.data.EvidenceKeyFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads evidence from a YAML evidence file, as read by {@link EvidenceHelper}, one document
+ * at a time without building the intermediate objects of a general purpose YAML parser.
+ * <p>
+ * The input is tokenised incrementally into character buffers which are reused from record
+ * to record, and only keys accepted by the {@link EvidenceKeyFilter}, usually the pipeline's,
+ * are added to the evidence. Whether each key is accepted is remembered, so the filter is
+ * consulted and the key's string created once per distinct key rather than once per record.
+ * The only allocation per record is then the string for each accepted value.
+ * <p>
+ * Each document is a mapping of evidence keys to scalar values, which may be plain, single
+ * or double quoted, and may continue over indented lines. Comments and directives are
+ * ignored. Lines end with "\n" or "\r\n" only. Block scalars, and nested or flow
+ * collections, are not supported.
+ */
+public class EvidenceReader {
+    // the most distinct keys whose acceptance is remembered
+    private static final int MAX_KEYS = 4096;
+
+    private final Reader reader;
+    private final EvidenceKeyFilter filter;
+
+    // characters read but not yet tokenised
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+    private boolean endOfInput = false;
+
+    // the line being tokenised
+    private char[] line = new char[256];
+    private int lineLength = 0;
+    // the value being tokenised, which may span lines
+    private final StringBuilder value = new StringBuilder();
+
+    // remembered keys, with those the filter rejected mapped to null
+    private String[] keys = new String[64];
+    private String[] acceptedKeys = new String[64];
+    private int keyCount = 0;
+
+    // the key of the value being tokenised, null if there isn't one or it is not accepted
+    private String key = null;
+    // true if a value is being tokenised, even if its key is not accepted
+    private boolean inValue = false;
+    // the quote of a quoted value whose closing quote has not been read, otherwise 0
+    private char openQuote = 0;
+    // true if the line ended with an escaped line break, which is removed
+    private boolean escapedLineBreak = false;
+    // true if the value being tokenised is plain, not quoted
+    private boolean plainValue = false;
+    // blank lines since the value was continued, which are folded into line breaks
+    private int blankLines = 0;
+    // true if the current document has any entries
+    private boolean inDocument = false;
+    // the number of documents read
+    private long documents = 0;
+
+    /**
+     * @param is UTF-8 YAML, which is not closed by the reader
+     * @param filter the evidence to keep, or null to keep all of it
+     */
+    public EvidenceReader(InputStream is, EvidenceKeyFilter filter) {
+        this.reader = new InputStreamReader(is, StandardCharsets.UTF_8);
+        this.filter = filter;
+    }
+
+    /**
+     * Read the next document
+     * @param evidence cleared then filled with the evidence of the next document
+     * @return false if there are no more documents
+     * @throws IOException if the input can't be read or is not evidence
+     */
+    public boolean read(Map<String, String> evidence) throws IOException {
+        evidence.clear();
+        while (readLine()) {
+            if (isMarker('-') || isMarker('.')) {
+                // the end of a document, or the start of the next one
+                endValue(evidence);
+                if (inDocument) {
+                    inDocument = false;
+                    documents++;
+                    return true;
+                }
+                continue;
+            }
+            int start = skipSpaces(0);
+            if (start == lineLength) {
+                // a blank line, which is a line break within a multi-line value
+                if (inValue) {
+                    blankLines++;
+                }
+                continue;
+            }
+            if (openQuote != 0 || (start > 0 && inValue && line[start] != '#')) {
+                // a quoted value not yet closed, or an indented continuation of a value
+                continueValue(start);
+                continue;
+            }
+            if (line[start] == '#' || (start == 0 && line[0] == '%')) {
+                // a comment or directive
+                continue;
+            }
+            endValue(evidence);
+            startEntry(start);
+        }
+        endValue(evidence);
+        if (inDocument) {
+            inDocument = false;
+            documents++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of documents read
+     */
+    public long getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Read the next line into {@link #line}, without its line break
+     * @return false if there are no more lines
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        while (true) {
+            if (position == limit) {
+                if (endOfInput) {
+                    return lineLength > 0;
+                }
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    endOfInput = true;
+                    continue;
+                }
+            }
+            int end = position;
+            while (end < limit && buffer[end] != '\n') {
+                end++;
+            }
+            append(position, end);
+            position = end < limit ? end + 1 : end;
+            if (end < limit) {
+                if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                    lineLength--;
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Append part of the buffer to the line, growing it if needed
+     */
+    private void append(int start, int end) {
+        int length = end - start;
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(buffer, start, line, lineLength, length);
+        lineLength += length;
+    }
+
+    /**
+     * @return true if the line is a document marker of three of the character, alone or
+     * followed by a space
+     */
+    private boolean isMarker(char c) {
+        return lineLength >= 3 &&
+                line[0] == c && line[1] == c && line[2] == c &&
+                (lineLength == 3 || line[3] == ' ' || line[3] == '\t');
+    }
+
+    private int skipSpaces(int index) {
+        while (index < lineLength && (line[index] == ' ' || line[index] == '\t')) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Tokenise a "key: value" line
+     * @param start the index of the key
+     */
+    private void startEntry(int start) throws IOException {
+        int index;
+        int keyStart = start;
+        int keyEnd;
+        if (line[start] == '\'' || line[start] == '"') {
+            // a quoted key, which is rare, so its string is created for each record
+            value.setLength(0);
+            openQuote = line[start];
+            index = quoted(start + 1);
+            if (openQuote != 0) {
+                throw new IOException("Multi-line keys are not supported");
+            }
+            key = accept(value.toString());
+            keyEnd = -1;
+        } else {
+            index = start;
+            while (index < lineLength &&
+                    (line[index] != ':' ||
+                            (index + 1 < lineLength && line[index + 1] != ' ' &&
+                                    line[index + 1] != '\t'))) {
+                index++;
+            }
+            keyEnd = index;
+            while (keyEnd > keyStart && (line[keyEnd - 1] == ' ' || line[keyEnd - 1] == '\t')) {
+                keyEnd--;
+            }
+        }
+        index = skipSpaces(index);
+        if (index == lineLength || line[index] != ':') {
+            throw new IOException("Expected 'key: value' but found '" +
+                    new String(line, 0, lineLength) + "'");
+        }
+        if (keyEnd >= 0) {
+            key = accept(keyStart, keyEnd);
+        }
+        inDocument = true;
+        inValue = true;
+        plainValue = true;
+        blankLines = 0;
+        value.setLength(0);
+        index = skipSpaces(index + 1);
+        if (index < lineLength) {
+            char c = line[index];
+            if (c == '|' || c == '>') {
+                throw new IOException("Block scalars are not supported");
+            }
+            if (c == '{' || c == '[') {
+                throw new IOException("Flow collections are not supported");
+            }
+            if (c == '\'' || c == '"') {
+                openQuote = c;
+                plainValue = false;
+                quoted(index + 1);
+            } else {
+                plainValue = true;
+                plain(index);
+            }
+        }
+    }
+
+    /**
+     * Continue the value being tokenised on the next line, folding the line break into a
+     * space, or the blank lines before it into line breaks
+     */
+    private void continueValue(int start) throws IOException {
+        if (escapedLineBreak) {
+            escapedLineBreak = false;
+        } else if (blankLines > 0) {
+            for (; blankLines > 0; blankLines--) {
+                value.append('\n');
+            }
+        } else if (value.length() > 0 || openQuote != 0) {
+            value.append(' ');
+        }
+        blankLines = 0;
+        if (openQuote != 0) {
+            int index = quoted(start);
+            if (openQuote == 0 && skipSpaces(index) < lineLength && line[skipSpaces(index)] != '#') {
+                throw new IOException("Unexpected characters after a quoted value '" +
+                        new String(line, 0, lineLength) + "'");
+            }
+        } else {
+            plain(start);
+        }
+    }
+
+    /**
+     * Append a plain value to the end of the line or a comment, without trailing spaces
+     */
+    private void plain(int start) {
+        int end = start;
+        while (end < lineLength &&
+                (line[end] != '#' || (line[end - 1] != ' ' && line[end - 1] != '\t'))) {
+            end++;
+        }
+        while (end > start && (line[end - 1] == ' ' || line[end - 1] == '\t')) {
+            end--;
+        }
+        value.append(line, start, end - start);
+    }
+
+    /**
+     * Append a quoted value up to its closing {@link #openQuote}, or the end of the line if
+     * it continues on the next, in which case trailing spaces are folded
+     * @return the index after the closing quote
+     */
+    private int quoted(int start) throws IOException {
+        int index = start;
+        while (index < lineLength) {
+            char c = line[index++];
+            if (c == openQuote) {
+                if (openQuote == '\'' && index < lineLength && line[index] == '\'') {
+                    // an escaped single quote
+                    value.append('\'');
+                    index++;
+                    continue;
+                }
+                openQuote = 0;
+                return index;
+            }
+            if (c == '\\' && openQuote == '"') {
+                if (index == lineLength) {
+                    escapedLineBreak = true;
+                    return index;
+                }
+                index = escape(index);
+                continue;
+            }
+            value.append(c);
+        }
+        // the value continues on the next line, without the spaces before the line break
+        int length = value.length();
+        while (length > 0 && (value.charAt(length - 1) == ' ' || value.charAt(length - 1) == '\t')) {
+            length--;
+        }
+        value.setLength(length);
+        return index;
+    }
+
+    /**
+     * Append an escape sequence from a double quoted value
+     * @param index the index after the backslash
+     * @return the index after the escape sequence
+     */
+    private int escape(int index) throws IOException {
+        char c = line[index++];
+        switch (c) {
+            case '0': value.append('\0'); break;
+            case 'a': value.append('\u0007'); break;
+            case 'b': value.append('\b'); break;
+            case 't':
+            case '\t': value.append('\t'); break;
+            case 'n': value.append('\n'); break;
+            case 'v': value.append('\u000b'); break;
+            case 'f': value.append('\f'); break;
+            case 'r': value.append('\r'); break;
+            case 'e': value.append('\u001b'); break;
+            case ' ': value.append(' '); break;
+            case '"': value.append('"'); break;
+            case '/': value.append('/'); break;
+            case '\\': value.append('\\'); break;
+            case 'N': value.append('\u0085'); break;
+            case '_': value.append('\u00a0'); break;
+            case 'L': value.append('\u2028'); break;
+            case 'P': value.append('\u2029'); break;
+            case 'x': return hex(index, 2);
+            case 'u': return hex(index, 4);
+            case 'U': return hex(index, 8);
+            default:
+                throw new IOException("Unknown escape sequence '\\" + c + "'");
+        }
+        return index;
+    }
+
+    private int hex(int index, int digits) throws IOException {
+        if (index + digits > lineLength) {
+            throw new IOException("Incomplete escape sequence");
+        }
+        int codePoint = 0;
+        for (int i = 0; i < digits; i++) {
+            int digit = Character.digit(line[index + i], 16);
+            if (digit < 0) {
+                throw new IOException("Invalid escape sequence");
+            }
+            codePoint = codePoint * 16 + digit;
+        }
+        value.appendCodePoint(codePoint);
+        return index + digits;
+    }
+
+    /**
+     * Add the value being tokenised to the evidence, if its key is accepted
+     */
+    private void endValue(Map<String, String> evidence) throws IOException {
+        if (openQuote != 0) {
+            throw new IOException("Quoted value is not closed");
+        }
+        if (inValue && Objects.nonNull(key) && (plainValue == false || isNull() == false)) {
+            evidence.put(key, value.toString());
+        }
+        inValue = false;
+        key = null;
+        blankLines = 0;
+    }
+
+    /**
+     * @return true if the plain value being tokenised is empty or one of the YAML nulls
+     */
+    private boolean isNull() {
+        switch (value.length()) {
+            case 0:
+                return true;
+            case 1:
+                return value.charAt(0) == '~';
+            case 4:
+                String text = value.toString();
+                return text.equals("null") || text.equals("Null") || text.equals("NULL");
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return the key in the line if the filter accepts it, otherwise null
+     */
+    private String accept(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + line[i];
+        }
+        int mask = keys.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            String candidate = keys[slot];
+            if (candidate == null) {
+                String key = new String(line, start, end - start);
+                String accepted = accept(key);
+                if (keyCount < MAX_KEYS) {
+                    keys[slot] = key;
+                    acceptedKeys[slot] = accepted;
+                    if (++keyCount * 2 > keys.length) {
+                        growKeys();
+                    }
+                }
+                return accepted;
+            }
+            if (candidate.length() == end - start && matches(candidate, start)) {
+                return acceptedKeys[slot];
+            }
+        }
+    }
+
+    private boolean matches(String candidate, int start) {
+        for (int i = 0; i < candidate.length(); i++) {
+            if (candidate.charAt(i) != line[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String accept(String key) {
+        return Objects.isNull(filter) || filter.include(key) ? key : null;
+    }
+
+    /**
+     * Double the size of the remembered keys table
+     */
+    private void growKeys() {
+        String[] oldKeys = keys;
+        String[] oldAccepted = acceptedKeys;
+        keys = new String[oldKeys.length * 2];
+        acceptedKeys = new String[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = oldKeys[i].hashCode() & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                acceptedKeys[slot] = oldAccepted[i];
+            }
+        }
+    }
+}
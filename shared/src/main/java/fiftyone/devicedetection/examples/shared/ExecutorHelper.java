@@ -0,0 +1,107 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executors for running detections on platform threads or, where the JVM supports
+ * them (Java 21 and later), on virtual threads.
+ * <p>
+ * The examples are compiled for Java 8 so virtual threads are created by reflection.
+ */
+public class ExecutorHelper {
+    // system property that sets the number of carrier threads for virtual threads
+    public static final String VIRTUAL_THREAD_PARALLELISM = "jdk.virtualThreadScheduler.parallelism";
+
+    public enum Threading {
+        PLATFORM,
+        VIRTUAL;
+
+        /**
+         * Parse a threading option - "platform", "virtual" or "both"
+         * @param value the option value
+         * @return the threading models requested
+         */
+        public static Threading[] parse(String value) {
+            String lower = value.toLowerCase(Locale.ROOT);
+            if (lower.equals("both")) {
+                return new Threading[]{PLATFORM, VIRTUAL};
+            }
+            return new Threading[]{valueOf(lower.toUpperCase(Locale.ROOT))};
+        }
+    }
+
+    /**
+     * @return true if this JVM can create virtual threads
+     */
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create an executor for the threading model given
+     * @param threading platform or virtual
+     * @param numberOfThreads the size of the pool of platform threads, ignored for virtual
+     *                        threads where there is one thread per task
+     * @return an executor, which the caller must shut down
+     */
+    public static ExecutorService newExecutor(Threading threading, int numberOfThreads) {
+        if (threading == Threading.VIRTUAL) {
+            try {
+                return (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+            } catch (NoSuchMethodException e) {
+                throw new UnsupportedOperationException(
+                        "Virtual threads require Java 21 or later", e);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create virtual thread executor", e);
+            }
+        }
+        return Executors.newFixedThreadPool(numberOfThreads);
+    }
+
+    /**
+     * The number of threads able to call into the native device detection engine at once.
+     * A virtual thread is pinned to its carrier thread while in native code, so at most
+     * one detection per carrier thread can be in progress however many virtual threads there are.
+     * @param threading platform or virtual
+     * @param numberOfThreads the number of threads or tasks
+     * @return the number of concurrent detections possible
+     */
+    public static int getConcurrency(Threading threading, int numberOfThreads) {
+        if (threading == Threading.VIRTUAL) {
+            return Math.min(numberOfThreads, Integer.getInteger(VIRTUAL_THREAD_PARALLELISM,
+                    Runtime.getRuntime().availableProcessors()));
+        }
+        return numberOfThreads;
+    }
+}
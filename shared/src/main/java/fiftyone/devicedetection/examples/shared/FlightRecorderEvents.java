@@ -0,0 +1,127 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JFR events recorded by {@link DetectionEvents}. Only loaded, by reflection, when the
+ * jdk.jfr API is available.
+ */
+class FlightRecorderEvents implements DetectionEvents.Recorder {
+
+    @Category({"51Degrees", "Device Detection"})
+    @StackTrace(false)
+    public abstract static class DetectionEvent extends Event {
+        @Label("Data Tier")
+        @Description("The tier of the data file e.g. Lite")
+        String tier;
+
+        @Label("Performance Profile")
+        String performanceProfile;
+
+        @Label("Evidence Keys")
+        @Description("The number of evidence keys in the FlowData")
+        int evidenceKeys;
+    }
+
+    @Name("fiftyone.CreateFlowData")
+    @Label("Create FlowData")
+    public static class CreateFlowData extends DetectionEvent {
+    }
+
+    @Name("fiftyone.AddEvidence")
+    @Label("Add Evidence")
+    public static class AddEvidence extends DetectionEvent {
+    }
+
+    @Name("fiftyone.Process")
+    @Label("Process")
+    @Description("Detection by the pipeline's engines")
+    public static class Process extends DetectionEvent {
+    }
+
+    @Name("fiftyone.GetProperty")
+    @Label("Get Property")
+    public static class GetProperty extends DetectionEvent {
+        @Label("Property")
+        String property;
+    }
+
+    // the type of event for each stage, in the order of the stages, whose enabled state
+    // follows the recordings running so can be checked without creating an event
+    private static final EventType[] TYPES = {
+            EventType.getEventType(CreateFlowData.class),
+            EventType.getEventType(AddEvidence.class),
+            EventType.getEventType(Process.class),
+            EventType.getEventType(GetProperty.class)
+    };
+
+    @Override
+    public boolean isEnabled(DetectionEvents.Stage stage) {
+        return TYPES[stage.ordinal()].isEnabled();
+    }
+
+    @Override
+    public Object begin(DetectionEvents.Stage stage) {
+        DetectionEvent event;
+        switch (stage) {
+            case CREATE_FLOW_DATA:
+                event = new CreateFlowData();
+                break;
+            case ADD_EVIDENCE:
+                event = new AddEvidence();
+                break;
+            case PROCESS:
+                event = new Process();
+                break;
+            default:
+                event = new GetProperty();
+                break;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commit(Object event,
+                       String tier,
+                       String performanceProfile,
+                       int evidenceKeys,
+                       String property) {
+        DetectionEvent detectionEvent = (DetectionEvent) event;
+        detectionEvent.tier = tier;
+        detectionEvent.performanceProfile = performanceProfile;
+        detectionEvent.evidenceKeys = evidenceKeys;
+        if (detectionEvent instanceof GetProperty) {
+            ((GetProperty) detectionEvent).property = property;
+        }
+        detectionEvent.commit();
+    }
+}
@@ -0,0 +1,133 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Runs a main class in a child JVM, with the same Java and class path as this one, so that
+ * each benchmark starts from a fresh JVM, unaffected by the JIT compilation, heap and
+ * native memory of any run before it.
+ */
+public class ForkHelper {
+    // system properties passed to the child if set, as when run by Maven they are set
+    // by the test runner rather than on the command line
+    public static final List<String> FORWARDED_PROPERTIES = Arrays.asList(
+            "project.root", "logback.configurationFile");
+    // keys passed to the child if set, as environment variables of the same name rather
+    // than on its command line where any user can see them, see KeyUtils#getNamedKey
+    public static final List<String> FORWARDED_KEYS = Arrays.asList(
+            "TestResourceKey", "SuperResourceKey", "LicenseKey");
+
+    /**
+     * Run the main class in a child JVM, passing each line it writes to standard output to
+     * the consumer as it is written. Standard error is inherited from this JVM, as are the
+     * system properties given on its command line and those in
+     * {@link #FORWARDED_PROPERTIES}. The keys in {@link #FORWARDED_KEYS} are passed in the
+     * child's environment instead.
+     * @param mainClass the class whose main method is run
+     * @param heap the initial and maximum heap size e.g. "2g", or null for the JVM's
+     *             default. Fixing the initial size avoids the heap being resized while
+     *             running.
+     * @param arguments the arguments to pass to main
+     * @param output receives each line of the child's output
+     * @return the child's exit code
+     * @throws IOException if the child can't be started or its output read
+     * @throws InterruptedException if interrupted waiting for the child, which is then
+     * destroyed
+     */
+    public static int run(Class<?> mainClass,
+                          String heap,
+                          List<String> arguments,
+                          Consumer<String> output) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" +
+                File.separator + "java");
+        if (Objects.nonNull(heap)) {
+            command.add("-Xms" + heap);
+            command.add("-Xmx" + heap);
+        }
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("-D") && isKey(argument) == false) {
+                command.add(argument);
+            }
+        }
+        for (String name : FORWARDED_PROPERTIES) {
+            String value = System.getProperty(name);
+            if (Objects.nonNull(value)) {
+                command.add("-D" + name + "=" + value);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.addAll(arguments);
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        for (String name : FORWARDED_KEYS) {
+            String value = System.getProperty(name);
+            if (Objects.nonNull(value)) {
+                builder.environment().put(name, value);
+            }
+        }
+        Process process = builder.start();
+        try {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    process.getInputStream(), Charset.defaultCharset()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.accept(line);
+                }
+            }
+            return process.waitFor();
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * @param argument a system property argument, -D&lt;name&gt;=&lt;value&gt;
+     * @return true if the argument sets one of the {@link #FORWARDED_KEYS}
+     */
+    private static boolean isKey(String argument) {
+        for (String name : FORWARDED_KEYS) {
+            if (argument.equals("-D" + name) || argument.startsWith("-D" + name + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
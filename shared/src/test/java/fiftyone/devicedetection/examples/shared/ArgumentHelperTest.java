@@ -0,0 +1,63 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ArgumentHelperTest {
+
+    @Test
+    public void testPositionalAndOptions() {
+        ArgumentHelper arguments = new ArgumentHelper(
+                new String[]{"data.hash", "--rate=500", "evidence.yml", "--verify", "8"});
+        assertEquals("data.hash", arguments.getPositional(0, null));
+        assertEquals("evidence.yml", arguments.getPositional(1, null));
+        assertEquals("8", arguments.getPositional(2, null));
+        assertNull(arguments.getPositional(3, null));
+        assertEquals(500, arguments.getOption("rate", 0));
+        assertTrue(arguments.hasOption("verify"));
+        assertEquals("true", arguments.getOption("verify", "false"));
+    }
+
+    @Test
+    public void testDefaults() {
+        ArgumentHelper arguments = new ArgumentHelper(new String[0]);
+        assertFalse(arguments.hasOption("rate"));
+        assertEquals(7L, arguments.getOption("rate", 7L));
+        assertEquals(0.5, arguments.getOption("ratio", 0.5), 0);
+        assertEquals(Collections.singletonList(1),
+                arguments.getOption("threads", Collections.singletonList(1)));
+    }
+
+    @Test
+    public void testList() {
+        ArgumentHelper arguments = new ArgumentHelper(new String[]{"--threads=1, 2,4"});
+        assertEquals(Arrays.asList(1, 2, 4),
+                arguments.getOption("threads", Collections.<Integer>emptyList()));
+    }
+}
@@ -0,0 +1,133 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BinaryEvidenceCorpusTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<Map<String, String>> getEvidence() {
+        List<Map<String, String>> evidence = EvidenceHelper.setUpEvidence();
+        Map<String, String> unicode = new HashMap<>();
+        unicode.put("header.user-agent", "Mozilla/5.0 \u00e9\u4e2d\ud83d\ude00");
+        unicode.put("query.extra", "");
+        evidence.add(unicode);
+        return evidence;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = new File(folder.getRoot(), "corpus.bin");
+        List<Map<String, String>> evidence = getEvidence();
+        try (BinaryEvidenceCorpus.Writer writer = BinaryEvidenceCorpus.openWriter(file)) {
+            for (int i = 0; i < evidence.size(); i++) {
+                writer.write(1000L + i, evidence.get(i));
+            }
+            writer.finish();
+        }
+        assertTrue(BinaryEvidenceCorpus.isBinaryCorpus(file));
+        try (BinaryEvidenceCorpus corpus = BinaryEvidenceCorpus.open(file)) {
+            assertEquals(evidence.size(), corpus.size());
+            List<Map<String, String>> records = corpus.asList(Integer.MAX_VALUE);
+            assertEquals(evidence, records);
+            for (int i = 0; i < evidence.size(); i++) {
+                BinaryEvidenceCorpus.Record record = (BinaryEvidenceCorpus.Record) records.get(i);
+                assertEquals(1000L + i, record.getTimestamp());
+                for (Map.Entry<String, String> entry : evidence.get(i).entrySet()) {
+                    assertEquals(entry.getValue(), record.get(entry.getKey()));
+                }
+                assertNull(record.get("header.missing"));
+            }
+            List<Map<String, String>> iterated = new ArrayList<>();
+            for (Map<String, String> record : corpus) {
+                iterated.add(record);
+            }
+            assertEquals(evidence, iterated);
+            assertEquals(2, corpus.asList(2).size());
+        }
+    }
+
+    @Test
+    public void testConvertCorpus() throws Exception {
+        File text = new File(folder.getRoot(), "corpus.txt");
+        List<Map<String, String>> evidence = getEvidence();
+        try (EvidenceCorpus.Writer writer = EvidenceCorpus.openWriter(text)) {
+            for (int i = 0; i < evidence.size(); i++) {
+                writer.write(i, evidence.get(i));
+            }
+        }
+        assertFalse(BinaryEvidenceCorpus.isBinaryCorpus(text));
+        File binary = new File(folder.getRoot(), "corpus.bin");
+        assertEquals(evidence.size(), BinaryEvidenceCorpus.convert(text, binary));
+        try (BinaryEvidenceCorpus corpus = BinaryEvidenceCorpus.open(binary)) {
+            assertEquals(evidence, corpus.asList(Integer.MAX_VALUE));
+        }
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void testTooManyKeys() throws Exception {
+        // the number of keys in a record must fit in 2 bytes
+        Map<String, String> evidence = new HashMap<>();
+        for (int i = 0; i <= 0xFFFF; i++) {
+            evidence.put("header.x-" + i, "");
+        }
+        try (BinaryEvidenceCorpus.Writer writer =
+                     BinaryEvidenceCorpus.openWriter(new File(folder.getRoot(), "large.bin"))) {
+            writer.write(0, evidence);
+        }
+    }
+
+    @Test
+    public void testNotFinished() throws Exception {
+        File file = new File(folder.getRoot(), "corpus.bin");
+        try (BinaryEvidenceCorpus.Writer writer = BinaryEvidenceCorpus.openWriter(file)) {
+            writer.write(0, getEvidence().get(0));
+        }
+        // closed without being finished, so the header is not valid
+        assertFalse(BinaryEvidenceCorpus.isBinaryCorpus(file));
+        try {
+            BinaryEvidenceCorpus.open(file).close();
+            fail("A corpus which was not finished should not be opened");
+        } catch (java.io.IOException e) {
+            assertTrue(e.getMessage().contains("is not a binary evidence corpus"));
+        }
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void testNotBinary() throws Exception {
+        File text = new File(folder.getRoot(), "corpus.txt");
+        try (EvidenceCorpus.Writer writer = EvidenceCorpus.openWriter(text)) {
+            writer.write(0, getEvidence().get(0));
+        }
+        BinaryEvidenceCorpus.open(text).close();
+    }
+}
@@ -0,0 +1,145 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import fiftyone.pipeline.core.data.Evidence;
+import fiftyone.pipeline.core.data.FlowData;
+import fiftyone.pipeline.core.flowelements.Pipeline;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class DetectionEventsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * A pipeline whose FlowData only holds evidence, so that no data file is needed
+     */
+    private static Pipeline getPipeline() {
+        return (Pipeline) Proxy.newProxyInstance(
+                DetectionEventsTest.class.getClassLoader(),
+                new Class<?>[]{Pipeline.class},
+                (pipeline, method, args) -> {
+                    switch (method.getName()) {
+                        case "createFlowData":
+                            return getFlowData();
+                        case "getElement":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FlowData getFlowData() {
+        Map<String, Object> evidence = new HashMap<>();
+        Evidence evidenceProxy = (Evidence) Proxy.newProxyInstance(
+                DetectionEventsTest.class.getClassLoader(),
+                new Class<?>[]{Evidence.class},
+                (proxy, method, args) -> evidence);
+        return (FlowData) Proxy.newProxyInstance(
+                DetectionEventsTest.class.getClassLoader(),
+                new Class<?>[]{FlowData.class},
+                (flowData, method, args) -> {
+                    switch (method.getName()) {
+                        case "addEvidence":
+                            evidence.putAll((Map<String, Object>) args[0]);
+                            return flowData;
+                        case "process":
+                            return flowData;
+                        case "getEvidence":
+                            return evidenceProxy;
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void testEventsRecorded() throws Exception {
+        assumeTrue(DetectionEvents.isAvailable());
+        DetectionEvents events = DetectionEvents.forPipeline(getPipeline(), "MaxPerformance");
+        Map<String, String> evidence = new HashMap<>();
+        evidence.put("header.user-agent", "Mozilla/5.0");
+        evidence.put("header.sec-ch-ua-mobile", "?0");
+
+        File file = new File(folder.getRoot(), "detection.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : Arrays.asList("fiftyone.CreateFlowData",
+                    "fiftyone.AddEvidence", "fiftyone.Process", "fiftyone.GetProperty")) {
+                recording.enable(name);
+            }
+            recording.start();
+            assertTrue(events.isEnabled(DetectionEvents.Stage.GET_PROPERTY));
+            try (FlowData flowData = events.createFlowData(getPipeline())) {
+                events.process(events.addEvidence(flowData, evidence));
+                assertEquals("value", events.get(flowData, "IsMobile", () -> "value"));
+            }
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+
+        Map<String, RecordedEvent> recorded = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+            recorded.put(event.getEventType().getName(), event);
+        }
+        assertEquals(0, recorded.get("fiftyone.CreateFlowData").getInt("evidenceKeys"));
+        assertEquals(2, recorded.get("fiftyone.AddEvidence").getInt("evidenceKeys"));
+        RecordedEvent process = recorded.get("fiftyone.Process");
+        assertEquals(2, process.getInt("evidenceKeys"));
+        assertEquals("MaxPerformance", process.getString("performanceProfile"));
+        // there is no on-premise engine so the tier is not known
+        assertNull(process.getString("tier"));
+        assertEquals("IsMobile", recorded.get("fiftyone.GetProperty").getString("property"));
+    }
+
+    @Test
+    public void testNotRecording() {
+        // without a recording each stage is just carried out
+        DetectionEvents events = new DetectionEvents("Lite", null);
+        for (DetectionEvents.Stage stage : DetectionEvents.Stage.values()) {
+            assertFalse(events.isEnabled(stage));
+        }
+        try (FlowData flowData = events.createFlowData(getPipeline())) {
+            events.addEvidence(flowData, Collections.singletonMap("header.user-agent", "x"));
+            assertEquals(1, flowData.getEvidence().asKeyMap().size());
+            assertEquals(Integer.valueOf(1), events.get(flowData, "IsMobile", () -> 1));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EvidenceCorpusTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private void testRoundTrip(File file) throws Exception {
+        List<Map<String, String>> evidence = EvidenceHelper.setUpEvidence();
+        Map<String, String> awkward = new HashMap<>();
+        awkward.put("header.user-agent", "tab\there\\ and\nnew line");
+        evidence.add(awkward);
+        try (EvidenceCorpus.Writer writer = EvidenceCorpus.openWriter(file)) {
+            for (int i = 0; i < evidence.size(); i++) {
+                writer.write(1000L + i * 10, evidence.get(i));
+            }
+        }
+        EvidenceCorpus corpus = EvidenceCorpus.read(file, Integer.MAX_VALUE);
+        assertEquals(evidence, corpus.getEvidence());
+        assertArrayEquals(new long[]{1000, 1010, 1020, 1030}, corpus.getTimestamps());
+        assertEquals(2, EvidenceCorpus.read(file, 2).size());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        testRoundTrip(new File(folder.getRoot(), "corpus.txt"));
+    }
+
+    @Test
+    public void testCompressedRoundTrip() throws Exception {
+        testRoundTrip(new File(folder.getRoot(), "corpus.txt.gz"));
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        File file = new File(folder.getRoot(), "corpus.txt");
+        Map<String, String> evidence = EvidenceHelper.setUpEvidence().get(0);
+        for (int i = 0; i < 2; i++) {
+            try (EvidenceCorpus.Writer writer = EvidenceCorpus.openWriter(file)) {
+                writer.write(i, evidence);
+            }
+        }
+        assertEquals(2, EvidenceCorpus.read(file, Integer.MAX_VALUE).size());
+    }
+}
@@ -0,0 +1,83 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EvidenceGeneratorTest {
+
+    @Test
+    public void testReproducible() {
+        List<Map<String, String>> first = new EvidenceGenerator(EvidenceHelper.setUpEvidence())
+                .setSeed(1).generate(1000);
+        List<Map<String, String>> second = new EvidenceGenerator(EvidenceHelper.setUpEvidence())
+                .setSeed(1).generate(1000);
+        assertEquals(1000, first.size());
+        assertEquals(first, second);
+        assertEquals(first.get(999), first.get(999));
+        assertNotEquals(first, new EvidenceGenerator(EvidenceHelper.setUpEvidence())
+                .setSeed(2).generate(1000));
+    }
+
+    @Test
+    public void testRecombines() {
+        List<Map<String, String>> source = EvidenceHelper.setUpEvidence();
+        for (Map<String, String> evidence : new EvidenceGenerator(source).generate(1000)) {
+            String userAgent = evidence.get(EvidenceGenerator.USER_AGENT);
+            assertTrue(source.stream().anyMatch(
+                    s -> s.get(EvidenceGenerator.USER_AGENT).equals(userAgent)));
+            // the UA-CH headers are kept together
+            if (evidence.containsKey("header.sec-ch-ua")) {
+                assertEquals(source.get(2).get("header.sec-ch-ua-platform"),
+                        evidence.get("header.sec-ch-ua-platform"));
+            }
+        }
+    }
+
+    @Test
+    public void testCoverage() {
+        EvidenceGenerator generator = new EvidenceGenerator(EvidenceHelper.setUpEvidence());
+        // one of the three source records has UA-CH headers
+        assertEquals(1.0 / 3, generator.getCoverage().get(EvidenceGenerator.CLIENT_HINTS), 1e-9);
+        generator.setClientHintsCoverage(0.5).setCoverage("header.sec-ch-ua-platform-version", 0);
+        int withClientHints = 0;
+        for (Map<String, String> evidence : generator.generate(10000)) {
+            if (evidence.containsKey("header.sec-ch-ua")) {
+                withClientHints++;
+                assertTrue(evidence.containsKey("header.sec-ch-ua-platform"));
+            }
+            assertFalse(evidence.containsKey("header.sec-ch-ua-platform-version"));
+        }
+        assertEquals(5000, withClientHints, 200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCoverage() {
+        new EvidenceGenerator(EvidenceHelper.setUpEvidence()).setClientHintsCoverage(1.5);
+    }
+}
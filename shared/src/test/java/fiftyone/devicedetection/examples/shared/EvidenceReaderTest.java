@@ -0,0 +1,146 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import fiftyone.pipeline.core.data.EvidenceKeyFilter;
+import org.junit.Test;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EvidenceReaderTest {
+    private static final String EVIDENCE = "%YAML 1.1\n" +
+            "---\n" +
+            "header.user-agent: Mozilla/5.0 (Linux; Android 9) Chrome/98.0 # a comment\n" +
+            "header.sec-ch-ua: '\" Not A;Brand\";v=\"99\", \"Chromium\";v=\"98\"'\n" +
+            "header.sec-ch-ua-mobile: '?0'\n" +
+            "# a comment line\n" +
+            "header.sec-ch-ua-platform: '\"Android\"'\r\n" +
+            "query.empty: ''\n" +
+            "query.null:\n" +
+            "---\n" +
+            "\"header.user-agent\": \"tab\\there \\\\ \\\"quoted\\\" \\u00e9\\x41\"\n" +
+            "header.accept-language: 'it''s'\n" +
+            "header.x-folded: a long\n" +
+            "  plain value\n" +
+            "\n" +
+            "  with a line break\n" +
+            "header.x-quoted: \"a long \n" +
+            "   quoted \\\n" +
+            "   value\"\n" +
+            "...\n" +
+            "---\n" +
+            "cookie.only: 'value'\n" +
+            "---\n" +
+            "---\n" +
+            "header.user-agent: last # no line break at the end";
+
+    private static InputStream getStream(String yaml) {
+        return new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Map<String, String>> readAll(String yaml, EvidenceKeyFilter filter)
+            throws IOException {
+        List<Map<String, String>> documents = new ArrayList<>();
+        EvidenceReader reader = new EvidenceReader(getStream(yaml), filter);
+        Map<String, String> evidence = new HashMap<>();
+        while (reader.read(evidence)) {
+            documents.add(new HashMap<>(evidence));
+        }
+        assertEquals(documents.size(), reader.getDocuments());
+        return documents;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void readerMatchesYamlTest() throws Exception {
+        List<Map<String, String>> expected = new ArrayList<>();
+        for (Object document : new Yaml().loadAll(getStream(EVIDENCE))) {
+            if (document != null) {
+                Map<String, String> evidence = new HashMap<>((Map<String, String>) document);
+                // nulls are not evidence
+                evidence.values().removeIf(v -> v == null);
+                expected.add(evidence);
+            }
+        }
+        assertEquals(4, expected.size());
+        assertEquals(expected, readAll(EVIDENCE, null));
+    }
+
+    @Test
+    public void filterTest() throws Exception {
+        List<String> asked = new ArrayList<>();
+        EvidenceKeyFilter filter = new EvidenceKeyFilter() {
+            @Override
+            public boolean include(String key) {
+                asked.add(key);
+                return key.startsWith("header.");
+            }
+
+            @Override
+            public Integer order(String key) {
+                return include(key) ? 0 : null;
+            }
+        };
+        List<Map<String, String>> documents = readAll(EVIDENCE, filter);
+        // documents with no accepted keys are still read, so records stay in step
+        assertEquals(4, documents.size());
+        assertEquals(4, documents.get(0).size());
+        assertTrue(documents.get(2).isEmpty());
+        assertEquals("last", documents.get(3).get("header.user-agent"));
+        // each plain key is only passed to the filter once
+        assertEquals(asked.stream().distinct().count() + 1, asked.size());
+    }
+
+    @Test
+    public void evidenceFileTest() throws Exception {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        StringBuilder yaml = new StringBuilder();
+        List<Map<String, String>> evidence = EvidenceHelper.setUpEvidence();
+        for (Map<String, String> document : evidence) {
+            yaml.append("---\n").append(new Yaml(options).dump(document));
+        }
+        assertEquals(evidence, readAll(yaml.toString(), null));
+    }
+
+    @Test(expected = IOException.class)
+    public void blockScalarTest() throws Exception {
+        readAll("header.user-agent: |\n  value\n", null);
+    }
+
+    @Test(expected = IOException.class)
+    public void unclosedQuoteTest() throws Exception {
+        readAll("header.user-agent: 'value\n", null);
+    }
+}
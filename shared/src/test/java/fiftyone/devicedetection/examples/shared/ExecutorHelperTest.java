@@ -0,0 +1,65 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import fiftyone.devicedetection.examples.shared.ExecutorHelper.Threading;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class ExecutorHelperTest {
+
+    @Test
+    public void testParse() {
+        assertArrayEquals(new Threading[]{Threading.PLATFORM, Threading.VIRTUAL},
+                Threading.parse("both"));
+        assertArrayEquals(new Threading[]{Threading.VIRTUAL}, Threading.parse("Virtual"));
+    }
+
+    @Test
+    public void testPlatform() throws Exception {
+        ExecutorService service = ExecutorHelper.newExecutor(Threading.PLATFORM, 2);
+        try {
+            assertEquals(Integer.valueOf(1), service.submit(() -> 1).get());
+        } finally {
+            service.shutdown();
+        }
+        assertEquals(2, ExecutorHelper.getConcurrency(Threading.PLATFORM, 2));
+    }
+
+    @Test
+    public void testVirtual() throws Exception {
+        assumeTrue("Virtual threads not supported", ExecutorHelper.isVirtualThreadSupported());
+        ExecutorService service = ExecutorHelper.newExecutor(Threading.VIRTUAL, 0);
+        try {
+            assertEquals(Integer.valueOf(1), service.submit(() -> 1).get());
+        } finally {
+            service.shutdown();
+        }
+        // however many virtual threads, concurrency is limited by the carrier threads
+        assertTrue(ExecutorHelper.getConcurrency(Threading.VIRTUAL, 100000) <= 100000);
+    }
+}
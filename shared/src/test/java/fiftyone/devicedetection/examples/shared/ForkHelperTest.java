@@ -0,0 +1,112 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.shared;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ForkHelperTest {
+
+    /**
+     * Run in the child JVM, echoing the arguments and the maximum heap
+     */
+    public static void main(String[] args) {
+        for (String arg : args) {
+            System.out.println(arg);
+        }
+        System.out.println(Runtime.getRuntime().maxMemory() / (1024 * 1024) < 100);
+        System.exit(args.length);
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        List<String> lines = new ArrayList<>();
+        int exitCode = ForkHelper.run(ForkHelperTest.class, "64m",
+                Arrays.asList("first", "second"), lines::add);
+        assertEquals(2, exitCode);
+        assertEquals(Arrays.asList("first", "second", "true"), lines);
+    }
+
+    /**
+     * Run in the child JVM, echoing a forwarded system property
+     */
+    public static class PropertyMain {
+        public static void main(String[] args) {
+            System.out.println(System.getProperty("project.root"));
+        }
+    }
+
+    @Test
+    public void testPropertiesForwarded() throws Exception {
+        String previous = System.getProperty("project.root");
+        System.setProperty("project.root", "forwarded");
+        try {
+            List<String> lines = new ArrayList<>();
+            assertEquals(0, ForkHelper.run(PropertyMain.class, null,
+                    Collections.emptyList(), lines::add));
+            assertEquals(Collections.singletonList("forwarded"), lines);
+        } finally {
+            if (previous == null) {
+                System.clearProperty("project.root");
+            } else {
+                System.setProperty("project.root", previous);
+            }
+        }
+    }
+
+    /**
+     * Run in the child JVM, echoing a forwarded key and whether it is on the command line
+     */
+    public static class KeyMain {
+        public static void main(String[] args) {
+            System.out.println(System.getenv("LicenseKey"));
+            System.out.println(ManagementFactory.getRuntimeMXBean().getInputArguments()
+                    .toString().contains("LicenseKey"));
+        }
+    }
+
+    @Test
+    public void testKeysInEnvironment() throws Exception {
+        String previous = System.getProperty("LicenseKey");
+        System.setProperty("LicenseKey", "secret");
+        try {
+            List<String> lines = new ArrayList<>();
+            assertEquals(0, ForkHelper.run(KeyMain.class, null,
+                    Collections.emptyList(), lines::add));
+            assertEquals(Arrays.asList("secret", "false"), lines);
+        } finally {
+            if (previous == null) {
+                System.clearProperty("LicenseKey");
+            } else {
+                System.setProperty("LicenseKey", previous);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@
 
 package fiftyone.devicedetection.examples.web;
 
+import fiftyone.devicedetection.examples.shared.DetectionEvents;
 import fiftyone.devicedetection.shared.DeviceData;
 import fiftyone.pipeline.core.configuration.PipelineOptions;
 import fiftyone.pipeline.core.configuration.PipelineOptionsFactory;
@@ -93,8 +94,14 @@ public class GettingStartedWebOnPrem extends HttpServlet {
             PipelineOptions pipelineOptions =
                     PipelineOptionsFactory.getOptionsFromFile(getFilePath(resourceBase) +
                             "/WEB-INF/51Degrees-OnPrem.xml");
+            // record a JFR event for getting each property, with the performance profile
+            // from the configuration
+            DetectionEvents events = DetectionEvents.forPipeline(flowData.getPipeline(),
+                    pipelineOptions.findAndSubstitute("DeviceDetectionHashEngine",
+                            "PerformanceProfile"));
             doDeviceData(out, device, flowData,
-                    pipelineOptions.findAndSubstitute("DeviceDetectionHashEngine", "DataFile"));
+                    pipelineOptions.findAndSubstitute("DeviceDetectionHashEngine", "DataFile"),
+                    events);
 
             doStaticText(out, resourceBase + "/WEB-INF/html/apple-detection.html");
             doEvidence(out, request, flowData);
@@ -0,0 +1,146 @@
+/* *********************************************************************
+ * This Original Work is copyright of 51 Degrees Mobile Experts Limited.
+ * Copyright 2025 51 Degrees Mobile Experts Limited, Davidson House,
+ * Forbury Square, Reading, Berkshire, United Kingdom RG1 3EU.
+ *
+ * This Original Work is licensed under the European Union Public Licence
+ * (EUPL) v.1.2 and is subject to its terms as set out below.
+ *
+ * If a copy of the EUPL was not distributed with this file, You can obtain
+ * one at https://opensource.org/licenses/EUPL-1.2.
+ *
+ * The 'Compatible Licences' set out in the Appendix to the EUPL (as may be
+ * amended by the European Commission) shall be deemed incompatible for
+ * the purposes of the Work and the provisions of the compatibility
+ * clause in Article 5 of the EUPL shall not apply.
+ *
+ * If using the Work as, or as part of, a network application, by
+ * including the attribution notice(s) required under Article 5 of the EUPL
+ * in the end user terms of the application under an appropriate heading,
+ * such notice(s) shall fulfill the requirements of that article.
+ * ********************************************************************* */
+
+package fiftyone.devicedetection.examples.web;
+
+import fiftyone.devicedetection.examples.shared.EvidenceCorpus;
+import fiftyone.pipeline.core.data.EvidenceKeyFilter;
+import fiftyone.pipeline.core.data.FlowData;
+import fiftyone.pipeline.web.services.FlowDataProviderCore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Captures the evidence of each request, with the time it was received, to an
+ * {@link EvidenceCorpus} file, so that real traffic can be replayed by the
+ * PerformanceBenchmark console example. Only evidence accepted by the pipeline's evidence
+ * key filter is captured, which is what the engines use for detection.
+ * <p>
+ * Capture is opt-in: nothing is captured unless the "capture-file" init parameter, or the
+ * "EvidenceCaptureFile" system property, names the file to write. "max-records" limits the
+ * number of records captured.
+ * <p>
+ * The filter uses the flow data created by the 51Degrees PipelineFilter, so must be mapped
+ * after it in web.xml.
+ */
+public class EvidenceCaptureFilter implements Filter {
+    public static final String CAPTURE_FILE_PARAMETER = "capture-file";
+    public static final String CAPTURE_FILE_PROPERTY = "EvidenceCaptureFile";
+    public static final String MAX_RECORDS_PARAMETER = "max-records";
+    // buffered records are written to the file this often
+    private static final int FLUSH_RECORDS = 1000;
+
+    private static final Logger logger = LoggerFactory.getLogger(EvidenceCaptureFilter.class);
+
+    private final FlowDataProviderCore flowDataProvider = new FlowDataProviderCore.Default();
+    private final AtomicLong records = new AtomicLong();
+    private long maxRecords = Long.MAX_VALUE;
+    // null if capture is not enabled
+    private EvidenceCorpus.Writer writer = null;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        String captureFile = filterConfig.getInitParameter(CAPTURE_FILE_PARAMETER);
+        if (captureFile == null || captureFile.isEmpty()) {
+            captureFile = System.getProperty(CAPTURE_FILE_PROPERTY);
+        }
+        if (captureFile == null || captureFile.isEmpty()) {
+            logger.info("Evidence capture is not enabled");
+            return;
+        }
+        String maxRecordsParameter = filterConfig.getInitParameter(MAX_RECORDS_PARAMETER);
+        if (maxRecordsParameter != null && !maxRecordsParameter.isEmpty()) {
+            maxRecords = Long.parseLong(maxRecordsParameter);
+        }
+        try {
+            writer = EvidenceCorpus.openWriter(new File(captureFile));
+        } catch (IOException e) {
+            throw new ServletException("Could not open evidence capture file " + captureFile, e);
+        }
+        logger.info("Capturing evidence to {}", new File(captureFile).getAbsolutePath());
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (writer != null && request instanceof HttpServletRequest) {
+            capture((HttpServletRequest) request, System.currentTimeMillis());
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Write the evidence of a request to the corpus. Failing to capture never fails the
+     * request.
+     * @param request the request, which has been processed by the PipelineFilter
+     * @param timestamp the time the request was received
+     */
+    private void capture(HttpServletRequest request, long timestamp) {
+        try {
+            // the PipelineFilter is responsible for the lifecycle of the flowData - do NOT dispose
+            FlowData flowData = flowDataProvider.getFlowData(request);
+            if (flowData == null) {
+                return;
+            }
+            EvidenceKeyFilter keyFilter = flowData.getPipeline().getEvidenceKeyFilter();
+            Map<String, Object> evidence = new TreeMap<>();
+            for (Map.Entry<String, Object> entry : flowData.getEvidence().asKeyMap().entrySet()) {
+                if (entry.getValue() != null && keyFilter.include(entry.getKey())) {
+                    evidence.put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (evidence.isEmpty()) {
+                return;
+            }
+            long count = records.incrementAndGet();
+            if (count > maxRecords) {
+                return;
+            }
+            writer.write(timestamp, evidence);
+            if (count % FLUSH_RECORDS == 0 || count == maxRecords) {
+                writer.flush();
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to capture evidence for {}", request.getRequestURI(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (writer != null) {
+            try {
+                writer.close();
+                logger.info("Captured {} evidence records", Math.min(records.get(), maxRecords));
+            } catch (IOException e) {
+                logger.warn("Failed to close evidence capture file", e);
+            }
+        }
+    }
+}
@@ -22,11 +22,13 @@
 
 package fiftyone.devicedetection.examples.web;
 
+import fiftyone.devicedetection.examples.shared.DetectionEvents;
 import fiftyone.devicedetection.hash.engine.onpremise.flowelements.DeviceDetectionHashEngine;
 import fiftyone.devicedetection.shared.DeviceData;
 import fiftyone.pipeline.cloudrequestengine.flowelements.CloudRequestEngine;
 import fiftyone.pipeline.core.data.FlowData;
 import fiftyone.pipeline.core.flowelements.FlowElement;
+import fiftyone.pipeline.engines.data.AspectPropertyValue;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -40,6 +42,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 import static fiftyone.devicedetection.examples.shared.PropertyHelper.asString;
 import static fiftyone.devicedetection.examples.shared.PropertyHelper.tryGet;
@@ -136,6 +139,20 @@ public class HtmlContentHelper {
 
     public static void doDeviceData(PrintWriter out, DeviceData device, FlowData flowData,
                                     String dataFileLocation) {
+        doDeviceData(out, device, flowData, dataFileLocation,
+                DetectionEvents.forPipeline(flowData.getPipeline(), null));
+    }
+
+    /**
+     * Output the device data, recording a JFR event for getting each property value
+     * @param out the PrintWriter to write to
+     * @param device the device data
+     * @param flowData the flowdata the device data is from
+     * @param dataFileLocation the location of the data file, if on-premise
+     * @param events records the events
+     */
+    public static void doDeviceData(PrintWriter out, DeviceData device, FlowData flowData,
+                                    String dataFileLocation, DetectionEvents events) {
         FlowElement<?, ?> engine = getFlowElement(flowData);
         String content = "";
         if (engine instanceof CloudRequestEngine) {
@@ -167,21 +184,35 @@ public class HtmlContentHelper {
                         "<div id=\"content\">\n" +
                         content +
                         "    <table>\n" +
-                        "        <tr><td>Hardware Vendor</td><td>" + asString(tryGet(device::getHardwareVendor)) + "</td></tr>\n" +
-                        "        <tr><td>Hardware Name</td><td>" + asString(tryGet(device::getHardwareName)) + "</td></tr>\n" +
-                        "        <tr><td>Device Type</td><td>" + asString(tryGet(device::getDeviceType)) + "</td></tr>\n" +
-                        "        <tr><td>Platform Vendor</td><td>" + asString(tryGet(device::getPlatformVendor)) + "</td></tr>\n" +
-                        "        <tr><td>Platform Name</td><td>" + asString(tryGet(device::getPlatformName)) + "</td></tr>\n" +
-                        "        <tr><td>Platform Version</td><td>" + asString(tryGet(device::getPlatformVersion)) + "</td></tr>\n" +
-                        "        <tr><td>Browser Vendor</td><td>" + asString(tryGet(device::getBrowserVendor)) + "</td></tr>\n" +
-                        "        <tr><td>Browser Name</td><td>" + asString(tryGet((device::getBrowserName))) + "</td></tr>\n" +
-                        "        <tr><td>Browser Version</td><td>" + asString(tryGet(device::getBrowserVersion)) + "</td></tr>\n" +
+                        "        <tr><td>Hardware Vendor</td><td>" + getValue(events, flowData, "HardwareVendor", device::getHardwareVendor) + "</td></tr>\n" +
+                        "        <tr><td>Hardware Name</td><td>" + getValue(events, flowData, "HardwareName", device::getHardwareName) + "</td></tr>\n" +
+                        "        <tr><td>Device Type</td><td>" + getValue(events, flowData, "DeviceType", device::getDeviceType) + "</td></tr>\n" +
+                        "        <tr><td>Platform Vendor</td><td>" + getValue(events, flowData, "PlatformVendor", device::getPlatformVendor) + "</td></tr>\n" +
+                        "        <tr><td>Platform Name</td><td>" + getValue(events, flowData, "PlatformName", device::getPlatformName) + "</td></tr>\n" +
+                        "        <tr><td>Platform Version</td><td>" + getValue(events, flowData, "PlatformVersion", device::getPlatformVersion) + "</td></tr>\n" +
+                        "        <tr><td>Browser Vendor</td><td>" + getValue(events, flowData, "BrowserVendor", device::getBrowserVendor) + "</td></tr>\n" +
+                        "        <tr><td>Browser Name</td><td>" + getValue(events, flowData, "BrowserName", device::getBrowserName) + "</td></tr>\n" +
+                        "        <tr><td>Browser Version</td><td>" + getValue(events, flowData, "BrowserVersion", device::getBrowserVersion) + "</td></tr>\n" +
                         "    </table>\n" +
                         "</div>\n");
 
         doLiteRubric(out, flowData);
     }
 
+    /**
+     * Get a property value as a string, recording a JFR event
+     * @param events records the event
+     * @param flowData the flowdata the value is from
+     * @param property the name of the property
+     * @param getter gets the value e.g. device::getIsMobile
+     * @param <T> the type of the value
+     * @return a string representation of the value or a "no value" message
+     */
+    private static <T> String getValue(DetectionEvents events, FlowData flowData, String property,
+                                       Supplier<AspectPropertyValue<T>> getter) {
+        return asString(tryGet(() -> events.get(flowData, property, getter)));
+    }
+
     public static void doUachInfo(PrintWriter out) {
         //language=html
         out.append(